@@ -0,0 +1,53 @@
+package com.campus.kwangwoon.bench;
+
+import com.campus.kwangwoon.graph.GraphGenerator;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 벤치마크용 데이터 폴더.
+ * - "campus": classpath의 resources/data (실제 배포 데이터)
+ * - "grid-10k", "grid-100k", "grid-1m": GraphGenerator 기본 옵션(고정 seed)으로 만든 합성 그래프
+ * (java.io.tmpdir/campus-router-bench/ 아래에 한 번만 만들고 재사용)
+ */
+final class BenchmarkGraphs {
+
+    static final String CAMPUS = "campus";
+
+    private BenchmarkGraphs() {
+    }
+
+    static Path dataDir(String name) throws IOException {
+        if (CAMPUS.equals(name))
+            return campusDir();
+        int nodes = switch (name) {
+            case "grid-10k" -> 10_000;
+            case "grid-100k" -> 100_000;
+            case "grid-1m" -> 1_000_000;
+            default -> throw new IllegalArgumentException("Unknown benchmark graph: " + name);
+        };
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"), "campus-router-bench", name);
+        if (!Files.exists(dir.resolve("building.json"))) {
+            GraphGenerator.Options opt = new GraphGenerator.Options();
+            opt.nodes = nodes;
+            GraphGenerator.generate(dir, opt);
+        }
+        return dir;
+    }
+
+    private static Path campusDir() {
+        URL url = BenchmarkGraphs.class.getClassLoader().getResource("data");
+        if (url == null)
+            throw new IllegalStateException("resources/data 폴더를 찾을 수 없습니다.");
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
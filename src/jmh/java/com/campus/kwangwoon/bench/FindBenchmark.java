@@ -0,0 +1,94 @@
+package com.campus.kwangwoon.bench;
+
+import com.campus.kwangwoon.graph.Router;
+import com.campus.kwangwoon.graph.SpatialIndex;
+import com.campus.kwangwoon.model.BuildingInfo;
+import com.campus.kwangwoon.model.Node;
+import com.campus.kwangwoon.service.GraphService;
+import com.campus.kwangwoon.service.GraphSnapshot;
+import com.campus.kwangwoon.service.RouteService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/find 전체 경로 (HTTP/JSON 직렬화 제외): 스냅샷 -> 엣지 스내핑 -> 게이트 필터 -> RouteService 탐색.
+ * 출발 좌표는 임의의 노드 근처, 목적지는 임의의 빌딩. cache=0이면 경로 캐시 없이 매번 탐색.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class FindBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({ BenchmarkGraphs.CAMPUS, "grid-10k", "grid-100k", "grid-1m" })
+    public String graph;
+
+    @Param({ "false", "true" })
+    public boolean avoidStair;
+
+    @Param({ "0", "10000" })
+    public int cache;
+
+    private GraphService graphService;
+    private RouteService routeService;
+    private final double[] lats = new double[QUERIES];
+    private final double[] lngs = new double[QUERIES];
+    private final String[] buildings = new String[QUERIES];
+    private Router.Options opt;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        graphService = GraphService.load(BenchmarkGraphs.dataDir(graph));
+        routeService = new RouteService(graphService, cache);
+        GraphSnapshot snap = graphService.snapshot();
+        List<BuildingInfo> infos = snap.buildingInfoList;
+        Random rnd = new Random(13);
+        for (int i = 0; i < QUERIES; i++) {
+            int v = rnd.nextInt(snap.graph.nodeCount());
+            lats[i] = snap.graph.lat(v) + (rnd.nextDouble() - 0.5) * 1e-4;
+            lngs[i] = snap.graph.lng(v) + (rnd.nextDouble() - 0.5) * 1e-4;
+            buildings[i] = infos.get(rnd.nextInt(infos.size())).getId();
+        }
+        opt = new Router.Options();
+        opt.avoidStair = avoidStair;
+    }
+
+    @Benchmark
+    public Router.RouteResult find() {
+        int i = next++ & (QUERIES - 1);
+        GraphSnapshot snap = graphService.snapshot();
+        SpatialIndex.EdgeSnap start = snap.spatialIndex.nearestEdge(lats[i], lngs[i], opt);
+        // RouteController.findOptimalRoute와 같은 게이트 필터
+        List<String> gates = new ArrayList<>();
+        for (String gateId : snap.buildingGateMap.get(buildings[i])) {
+            Node node = snap.graph.getNode(gateId);
+            if (node == null || (opt.avoidStair && node.isStair()) || (opt.avoidCrub && node.isCrub()))
+                continue;
+            gates.add(gateId);
+        }
+        if (gates.isEmpty())
+            return null;
+        return routeService.route(snap, start, gates, opt);
+    }
+}
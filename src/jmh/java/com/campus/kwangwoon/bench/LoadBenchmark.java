@@ -0,0 +1,72 @@
+package com.campus.kwangwoon.bench;
+
+import com.campus.kwangwoon.graph.Graph;
+import com.campus.kwangwoon.graph.GraphFile;
+import com.campus.kwangwoon.model.BuildingInfo;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 그래프 로드: JSON 스트리밍 로드(병렬/순차 빌드)와 미리 컴파일한 graph.bin 읽기.
+ * 한 번 로드하는 비용이 중요하므로 SingleShotTime으로 여러 번 반복 측정.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class LoadBenchmark {
+
+    @Param({ BenchmarkGraphs.CAMPUS, "grid-10k", "grid-100k", "grid-1m" })
+    public String graph;
+
+    private Path dataDir;
+    private Path binary;
+
+    @Setup
+    public void setup() throws IOException {
+        dataDir = BenchmarkGraphs.dataDir(graph);
+        // 데이터 폴더가 아닌 곳에 써서 다른 벤치마크의 로드 경로에 영향을 주지 않음
+        binary = Paths.get(System.getProperty("java.io.tmpdir"), "campus-router-bench", graph + ".bin");
+        binary.getParent().toFile().mkdirs();
+        List<BuildingInfo> buildings = new ObjectMapper().readValue(dataDir.resolve("building.json").toFile(),
+                new TypeReference<List<BuildingInfo>>() {
+                });
+        GraphFile.write(Graph.load(dataDir), buildings, binary);
+    }
+
+    @Benchmark
+    public Graph loadJson() throws IOException {
+        return Graph.load(dataDir, true);
+    }
+
+    @Benchmark
+    public Graph loadJsonSequential() throws IOException {
+        return Graph.load(dataDir, false);
+    }
+
+    @Benchmark
+    public GraphFile.Contents readBinary() throws IOException {
+        return GraphFile.read(binary);
+    }
+}
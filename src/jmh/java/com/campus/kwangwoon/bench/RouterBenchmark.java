@@ -0,0 +1,71 @@
+package com.campus.kwangwoon.bench;
+
+import com.campus.kwangwoon.graph.Graph;
+import com.campus.kwangwoon.graph.Router;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Router.shortestPath: 회피 옵션(없음/계단/턱/둘 다)별, 그래프 크기별 노드 -> 노드 탐색.
+ * 고정 시드의 임의 출발/도착 쌍을 돌아가며 사용 (경로가 없는 쌍도 포함).
+ * 탐색 방식 비교: -p algorithm=ASTAR,BIDIRECTIONAL
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class RouterBenchmark {
+
+    private static final int PAIRS = 1024; // 2의 거듭제곱 (인덱스 마스크용)
+
+    @Param({ BenchmarkGraphs.CAMPUS, "grid-10k", "grid-100k", "grid-1m" })
+    public String graph;
+
+    @Param({ "NONE", "STAIR", "CRUB", "BOTH" })
+    public String avoid;
+
+    @Param({ "DIJKSTRA" })
+    public Router.Algorithm algorithm;
+
+    private Graph g;
+    private Router.Options opt;
+    private final String[] sources = new String[PAIRS];
+    private final String[] targets = new String[PAIRS];
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        g = Graph.load(BenchmarkGraphs.dataDir(graph));
+        opt = new Router.Options();
+        opt.avoidStair = avoid.equals("STAIR") || avoid.equals("BOTH");
+        opt.avoidCrub = avoid.equals("CRUB") || avoid.equals("BOTH");
+        opt.algorithm = algorithm;
+        Random rnd = new Random(7);
+        for (int i = 0; i < PAIRS; i++) {
+            sources[i] = g.idOf(rnd.nextInt(g.nodeCount()));
+            targets[i] = g.idOf(rnd.nextInt(g.nodeCount()));
+        }
+    }
+
+    @Benchmark
+    public Router.RouteResult shortestPath() {
+        int i = next++ & (PAIRS - 1);
+        return Router.shortestPath(g, sources[i], targets[i], opt);
+    }
+}
@@ -0,0 +1,77 @@
+package com.campus.kwangwoon.bench;
+
+import com.campus.kwangwoon.graph.Graph;
+import com.campus.kwangwoon.graph.SpatialIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GPS 스내핑: 예전 RouteController.findNearestNode 방식(가장 가까운 노드)과
+ * 현재 /api/route/gps, /api/find 방식(가장 가까운 엣지 위 투영점).
+ * 질의 좌표는 그래프 좌표 범위 안의 고정 시드 임의 위치.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class SnapBenchmark {
+
+    private static final int POINTS = 1024;
+
+    @Param({ BenchmarkGraphs.CAMPUS, "grid-10k", "grid-100k", "grid-1m" })
+    public String graph;
+
+    private SpatialIndex index;
+    private final double[] lats = new double[POINTS];
+    private final double[] lngs = new double[POINTS];
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        Graph g = Graph.load(BenchmarkGraphs.dataDir(graph));
+        index = SpatialIndex.build(g);
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLng = Double.MAX_VALUE, maxLng = -Double.MAX_VALUE;
+        for (int i = 0; i < g.nodeCount(); i++) {
+            if (Double.isNaN(g.lat(i)))
+                continue;
+            minLat = Math.min(minLat, g.lat(i));
+            maxLat = Math.max(maxLat, g.lat(i));
+            minLng = Math.min(minLng, g.lng(i));
+            maxLng = Math.max(maxLng, g.lng(i));
+        }
+        Random rnd = new Random(11);
+        for (int i = 0; i < POINTS; i++) {
+            lats[i] = minLat + rnd.nextDouble() * (maxLat - minLat);
+            lngs[i] = minLng + rnd.nextDouble() * (maxLng - minLng);
+        }
+    }
+
+    @Benchmark
+    public SpatialIndex.Hit nearestNode() {
+        int i = next++ & (POINTS - 1);
+        return index.nearest(lats[i], lngs[i]);
+    }
+
+    @Benchmark
+    public SpatialIndex.EdgeSnap nearestEdge() {
+        int i = next++ & (POINTS - 1);
+        return index.nearestEdge(lats[i], lngs[i]);
+    }
+}
@@ -0,0 +1,474 @@
+package com.campus.kwangwoon.graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Contraction Hierarchies: 큰 그래프(여러 캠퍼스 통합, 도시 블록 등)를 위한 전처리 + 질의 엔진.
+ * - 전처리: 중요도(엣지 차이 + 이미 축약된 이웃 수)가 낮은 노드부터 축약하면서,
+ * 우회 경로(witness)가 없을 때만 지름길(shortcut) 엣지를 추가
+ * - 질의: 순위가 올라가는 엣지만 따라가는 양방향 Dijkstra
+ * - 지름길은 원래 아크 경로로 풀어서(unpack) 기존 RouteResult와 같은 형태로 반환
+ * - 회피 프로필(Router.Options)마다 따로 만들어야 함 (막힌 아크는 처음부터 제외)
+ */
+public final class ContractionHierarchy {
+
+    /** 우회 경로 탐색에서 확정할 최대 노드 수 (넘으면 지름길을 추가해도 결과는 정확) */
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    /** 중요도 계산(축약 흉내)용 우회 경로 탐색 한도: 자주 호출되므로 작게 */
+    private static final int SIMULATE_SETTLE_LIMIT = 50;
+    /** 탐색 지표(Router.SearchListener)에 쓰는 이름 */
+    static final String ALGORITHM_NAME = "CH";
+
+    private final Graph graph;
+    private final int block; // 전처리에 사용한 회피 마스크
+    private final int[] rank;
+
+    // CH 엣지: 원래 아크(edgeArc >= 0) 또는 두 엣지를 이은 지름길(edgeArc == -1)
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final int[] edgeArc;
+    private final int[] edgeFirst;
+    private final int[] edgeSecond;
+    private final int shortcuts;
+
+    // 순방향 탐색: 노드 u에서 순위가 더 높은 노드로 가는 엣지
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final double[] upWeights;
+    private final int[] upEdges;
+    // 역방향 탐색: 노드 w로 들어오는 엣지 중 출발 노드의 순위가 더 높은 것 (w -> 출발 노드로 거슬러 올라감)
+    private final int[] downOffsets;
+    private final int[] downTargets;
+    private final double[] downWeights;
+    private final int[] downEdges;
+
+    private ContractionHierarchy(Graph graph, Builder b) {
+        this.graph = graph;
+        this.block = b.block;
+        this.rank = b.rank;
+        int m = b.edges;
+        this.edgeFrom = Arrays.copyOf(b.eFrom, m);
+        this.edgeTo = Arrays.copyOf(b.eTo, m);
+        this.edgeArc = Arrays.copyOf(b.eArc, m);
+        this.edgeFirst = Arrays.copyOf(b.eFirst, m);
+        this.edgeSecond = Arrays.copyOf(b.eSecond, m);
+        this.shortcuts = b.shortcuts;
+
+        int n = graph.nodeCount();
+        this.upOffsets = new int[n + 1];
+        this.downOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            if (rank[edgeFrom[e]] < rank[edgeTo[e]])
+                upOffsets[edgeFrom[e] + 1]++;
+            else
+                downOffsets[edgeTo[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            upOffsets[v + 1] += upOffsets[v];
+            downOffsets[v + 1] += downOffsets[v];
+        }
+        this.upTargets = new int[upOffsets[n]];
+        this.upWeights = new double[upOffsets[n]];
+        this.upEdges = new int[upOffsets[n]];
+        this.downTargets = new int[downOffsets[n]];
+        this.downWeights = new double[downOffsets[n]];
+        this.downEdges = new int[downOffsets[n]];
+        int[] upFill = Arrays.copyOf(upOffsets, n);
+        int[] downFill = Arrays.copyOf(downOffsets, n);
+        for (int e = 0; e < m; e++) {
+            int u = edgeFrom[e];
+            int w = edgeTo[e];
+            if (rank[u] < rank[w]) {
+                int k = upFill[u]++;
+                upTargets[k] = w;
+                upWeights[k] = b.eW[e];
+                upEdges[k] = e;
+            } else {
+                int k = downFill[w]++;
+                downTargets[k] = u;
+                downWeights[k] = b.eW[e];
+                downEdges[k] = e;
+            }
+        }
+    }
+
+    /** profile에서 막힌 아크를 제외한 그래프로 전처리 */
+    public static ContractionHierarchy build(Graph g, Router.Options profile) {
+        Builder b = new Builder(g, profile == null ? 0 : profile.blockMask());
+        b.contractAll();
+        return new ContractionHierarchy(g, b);
+    }
+
+    public int shortcutCount() {
+        return shortcuts;
+    }
+
+    /** 노드 src에서 dsts 중 가장 가까운 곳까지 (Router.shortestPathToAny와 같은 의미) */
+    public Router.RouteResult route(String src, Collection<String> dsts) {
+        int s = graph.indexOf(src);
+        if (s < 0)
+            throw new IllegalArgumentException("Unknown source");
+        int[] ts = Router.resolveTargets(graph, dsts);
+        return query(new int[] { s }, new double[] { 0.0 }, new int[] { 0 }, ts, 0.0);
+    }
+
+    /** 엣지 위 스내핑 지점에서 출발 (Router.shortestPathToAny(EdgeSnap...)와 같은 의미) */
+    public Router.RouteResult route(SpatialIndex.EdgeSnap start, Collection<String> dsts) {
+        int[] ts = Router.resolveTargets(graph, dsts);
+        int fwd = start.arc;
+        int back = graph.oppositeArc(fwd);
+        int[] seeds = new int[2];
+        double[] costs = new double[2];
+        int[] flags = new int[2];
+        int k = 0;
+        if ((graph.arcFlags[fwd] & block) == 0) {
+            seeds[k] = graph.targets[fwd];
+            costs[k] = (1 - start.fraction) * graph.weights[fwd];
+            flags[k++] = graph.arcFlags[fwd];
+        }
+        if (back >= 0 && (graph.arcFlags[back] & block) == 0) {
+            seeds[k] = graph.targets[back];
+            costs[k] = start.fraction * graph.weights[back];
+            flags[k++] = graph.arcFlags[back];
+        }
+        if (k == 0)
+            return null;
+        return query(Arrays.copyOf(seeds, k), costs, flags, ts, start.distance);
+    }
+
+    private Router.RouteResult query(int[] seeds, double[] seedCosts, int[] seedFlags, int[] ts, double extraCost) {
+        long started = System.nanoTime();
+        int n = graph.nodeCount();
+        SearchState fwd = SearchState.acquire(n);
+        SearchState bwd = SearchState.acquireReverse(n);
+        for (int i = 0; i < seeds.length; i++)
+            fwd.relax(seeds[i], seedCosts[i], -1);
+        for (int t : ts)
+            bwd.relax(t, 0.0, -1);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        for (int s : seeds) {
+            if (bwd.reached(s) && fwd.dist(s) < best) {
+                best = fwd.dist(s);
+                meet = s;
+            }
+        }
+
+        // 양쪽 힙의 최소값이 모두 best 이상이면 더 짧은 경로는 없음
+        while (!fwd.isEmpty() || !bwd.isEmpty()) {
+            boolean forward = !fwd.isEmpty() && (bwd.isEmpty() || fwd.peekKey() <= bwd.peekKey());
+            SearchState st = forward ? fwd : bwd;
+            SearchState other = forward ? bwd : fwd;
+            if (st.peekKey() >= best)
+                break;
+            int[] offsets = forward ? upOffsets : downOffsets;
+            int[] targets = forward ? upTargets : downTargets;
+            double[] weights = forward ? upWeights : downWeights;
+            int[] edges = forward ? upEdges : downEdges;
+
+            int u = st.pop();
+            double du = st.dist(u);
+            for (int k = offsets[u], end = offsets[u + 1]; k < end; k++) {
+                int v = targets[k];
+                double nd = du + weights[k];
+                if (st.relax(v, nd, edges[k]) && other.reached(v) && nd + other.dist(v) < best) {
+                    best = nd + other.dist(v);
+                    meet = v;
+                }
+            }
+        }
+        long searched = System.nanoTime();
+        Router.RouteResult result = meet < 0 ? null : unpack(fwd, bwd, meet, best, seeds, seedFlags, extraCost);
+        Router.report(ALGORITHM_NAME, fwd, bwd, started, searched, meet >= 0);
+        return result;
+    }
+
+    /** 만나는 노드 기준으로 양쪽 prev 체인을 이어 붙이고, 지름길을 원래 아크로 풀어서 경로 복원 */
+    private Router.RouteResult unpack(SearchState fwd, SearchState bwd, int meet, double cost,
+            int[] seeds, int[] seedFlags, double extraCost) {
+        IntStack chEdges = new IntStack();
+        for (int e = fwd.prevArc(meet); e >= 0; e = fwd.prevArc(edgeFrom[e]))
+            chEdges.push(e);
+        chEdges.reverse();
+        for (int e = bwd.prevArc(meet); e >= 0; e = bwd.prevArc(edgeTo[e]))
+            chEdges.push(e);
+
+        IntStack arcs = new IntStack();
+        IntStack stack = new IntStack();
+        for (int i = 0; i < chEdges.size; i++) {
+            stack.push(chEdges.data[i]);
+            while (stack.size > 0) {
+                int e = stack.pop();
+                if (edgeArc[e] >= 0) {
+                    arcs.push(edgeArc[e]);
+                } else {
+                    stack.push(edgeSecond[e]);
+                    stack.push(edgeFirst[e]);
+                }
+            }
+        }
+
+        int start = arcs.size == 0 ? meet : graph.sources[arcs.data[0]];
+        int flags = 0;
+        for (int i = 0; i < seeds.length; i++)
+            if (seeds[i] == start)
+                flags |= seedFlags[i];
+        String[] path = new String[arcs.size + 1];
+        path[0] = graph.idOf(start);
+        for (int i = 0; i < arcs.size; i++) {
+            flags |= graph.arcFlags[arcs.data[i]];
+            path[i + 1] = graph.idOf(graph.targets[arcs.data[i]]);
+        }
+        return new Router.RouteResult(Arrays.asList(path), cost + extraCost,
+                (flags & Graph.STAIR_ANY) != 0, (flags & Graph.CRUB_ANY) != 0,
+                fwd.settled() + bwd.settled(), fwd.relaxed() + bwd.relaxed(), Arrays.copyOf(arcs.data, arcs.size));
+    }
+
+    /** 전처리 중에만 쓰는 가변 그래프와 축약 로직 */
+    private static final class Builder {
+        final Graph g;
+        final int block;
+        final int n;
+        final IntStack[] out;
+        final IntStack[] in;
+        final boolean[] contracted;
+        final int[] contractedNeighbors;
+        final int[] level; // 계층 깊이: 축약된 이웃의 level + 1 중 최대
+        final int[] rank;
+
+        int[] eFrom = new int[16], eTo = new int[16], eArc = new int[16];
+        int[] eFirst = new int[16], eSecond = new int[16];
+        double[] eW = new double[16];
+        int edges;
+        int shortcuts;
+
+        // 우회 경로 탐색용 (전처리 스레드 전용)
+        final double[] wDist;
+        final int[] wStamp;
+        int wGen;
+        final int[] wTarget; // 이번 우회 경로 탐색의 목적지 표시
+        int wTargetGen;
+        final IndexedMinHeap wHeap;
+
+        Builder(Graph g, int block) {
+            this.g = g;
+            this.block = block;
+            this.n = g.nodeCount();
+            this.out = new IntStack[n];
+            this.in = new IntStack[n];
+            for (int v = 0; v < n; v++) {
+                out[v] = new IntStack();
+                in[v] = new IntStack();
+            }
+            this.contracted = new boolean[n];
+            this.contractedNeighbors = new int[n];
+            this.level = new int[n];
+            this.rank = new int[n];
+            this.wDist = new double[n];
+            this.wStamp = new int[n];
+            this.wTarget = new int[n];
+            this.wHeap = new IndexedMinHeap(n);
+            for (int a = 0; a < g.arcCount(); a++) {
+                if ((g.arcFlags[a] & block) != 0 || g.sources[a] == g.targets[a])
+                    continue;
+                addEdge(g.sources[a], g.targets[a], g.weights[a], a, -1, -1);
+            }
+        }
+
+        int addEdge(int u, int w, double weight, int arc, int first, int second) {
+            if (edges == eFrom.length) {
+                int cap = edges * 2;
+                eFrom = Arrays.copyOf(eFrom, cap);
+                eTo = Arrays.copyOf(eTo, cap);
+                eArc = Arrays.copyOf(eArc, cap);
+                eFirst = Arrays.copyOf(eFirst, cap);
+                eSecond = Arrays.copyOf(eSecond, cap);
+                eW = Arrays.copyOf(eW, cap);
+            }
+            int e = edges++;
+            eFrom[e] = u;
+            eTo[e] = w;
+            eW[e] = weight;
+            eArc[e] = arc;
+            eFirst[e] = first;
+            eSecond[e] = second;
+            out[u].push(e);
+            in[w].push(e);
+            return e;
+        }
+
+        void contractAll() {
+            IndexedMinHeap queue = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++)
+                queue.insertOrDecrease(v, priority(v));
+            int order = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.pop();
+                // 지연 갱신: 다시 계산한 중요도가 다음 후보보다 크면 뒤로 미룸
+                double p = priority(v);
+                if (!queue.isEmpty() && p > queue.peekKey()) {
+                    queue.insertOrDecrease(v, p);
+                    continue;
+                }
+                contract(v, false);
+                contracted[v] = true;
+                rank[v] = order++;
+                for (int i = 0; i < out[v].size; i++)
+                    neighborContracted(v, eTo[out[v].data[i]]);
+                for (int i = 0; i < in[v].size; i++)
+                    neighborContracted(v, eFrom[in[v].data[i]]);
+                for (int i = 0; i < out[v].size; i++)
+                    detach(eTo[out[v].data[i]]);
+                for (int i = 0; i < in[v].size; i++)
+                    detach(eFrom[in[v].data[i]]);
+            }
+        }
+
+        private void neighborContracted(int v, int x) {
+            contractedNeighbors[x]++;
+            level[x] = Math.max(level[x], level[v] + 1);
+        }
+
+        /** 축약된 노드와 이어진 엣지를 이웃 x의 목록에서 제거 (이후 탐색/중요도 계산 비용 절감) */
+        private void detach(int x) {
+            if (contracted[x])
+                return;
+            IntStack xs = out[x];
+            int k = 0;
+            for (int i = 0; i < xs.size; i++)
+                if (!contracted[eTo[xs.data[i]]])
+                    xs.data[k++] = xs.data[i];
+            xs.size = k;
+            xs = in[x];
+            k = 0;
+            for (int i = 0; i < xs.size; i++)
+                if (!contracted[eFrom[xs.data[i]]])
+                    xs.data[k++] = xs.data[i];
+            xs.size = k;
+        }
+
+        /** 2 * 엣지 차이(추가될 지름길 - 사라질 엣지) + 이미 축약된 이웃 수 + 계층 깊이 */
+        double priority(int v) {
+            int removed = 0;
+            for (int i = 0; i < out[v].size; i++)
+                if (!contracted[eTo[out[v].data[i]]])
+                    removed++;
+            for (int i = 0; i < in[v].size; i++)
+                if (!contracted[eFrom[in[v].data[i]]])
+                    removed++;
+            return 2.0 * (contract(v, true) - removed) + contractedNeighbors[v] + level[v];
+        }
+
+        /** v를 축약할 때 필요한 지름길 수 (simulate=false면 실제로 추가) */
+        int contract(int v, boolean simulate) {
+            int added = 0;
+            IntStack ins = in[v];
+            IntStack outs = out[v];
+            for (int i = 0; i < ins.size; i++) {
+                int ie = ins.data[i];
+                int u = eFrom[ie];
+                if (contracted[u])
+                    continue;
+                double maxOut = -1;
+                int targetCount = 0;
+                wTargetGen++;
+                for (int j = 0; j < outs.size; j++) {
+                    int w = eTo[outs.data[j]];
+                    if (contracted[w] || w == u)
+                        continue;
+                    maxOut = Math.max(maxOut, eW[outs.data[j]]);
+                    if (wTarget[w] != wTargetGen) {
+                        wTarget[w] = wTargetGen;
+                        targetCount++;
+                    }
+                }
+                if (maxOut < 0)
+                    continue;
+                witnessSearch(u, v, eW[ie] + maxOut, targetCount,
+                        simulate ? SIMULATE_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+                for (int j = 0; j < outs.size; j++) {
+                    int oe = outs.data[j];
+                    int w = eTo[oe];
+                    if (contracted[w] || w == u)
+                        continue;
+                    double via = eW[ie] + eW[oe];
+                    if (wStamp[w] == wGen && wDist[w] <= via)
+                        continue; // v를 거치지 않는 같거나 짧은 길이 있음
+                    added++;
+                    if (!simulate) {
+                        addEdge(u, w, via, -1, ie, oe);
+                        shortcuts++;
+                        // 같은 u에서 이어지는 다음 w의 판정에도 반영
+                        wStamp[w] = wGen;
+                        wDist[w] = via;
+                    }
+                }
+            }
+            return added;
+        }
+
+        /**
+         * u에서 skip을 제외하고 limit 거리까지 탐색.
+         * wTarget으로 표시한 노드가 모두 확정되거나 settleLimit개를 확정하면 멈춤.
+         */
+        void witnessSearch(int u, int skip, double limit, int targetCount, int settleLimit) {
+            if (++wGen == Integer.MAX_VALUE) {
+                Arrays.fill(wStamp, 0);
+                wGen = 1;
+            }
+            wHeap.clear();
+            wStamp[u] = wGen;
+            wDist[u] = 0;
+            wHeap.insertOrDecrease(u, 0);
+            int settled = 0;
+            while (!wHeap.isEmpty() && settled < settleLimit) {
+                if (wHeap.peekKey() > limit)
+                    break;
+                int x = wHeap.pop();
+                settled++;
+                // 목적지(v의 이웃)가 모두 확정되면 더 볼 필요 없음
+                if (wTarget[x] == wTargetGen && --targetCount == 0)
+                    break;
+                IntStack xs = out[x];
+                for (int i = 0; i < xs.size; i++) {
+                    int e = xs.data[i];
+                    int y = eTo[e];
+                    if (y == skip || contracted[y])
+                        continue;
+                    double nd = wDist[x] + eW[e];
+                    if (wStamp[y] != wGen || nd < wDist[y]) {
+                        wStamp[y] = wGen;
+                        wDist[y] = nd;
+                        wHeap.insertOrDecrease(y, nd);
+                    }
+                }
+            }
+        }
+    }
+
+    /** 박싱 없는 int 스택/목록 */
+    private static final class IntStack {
+        int[] data = new int[4];
+        int size;
+
+        void push(int v) {
+            if (size == data.length)
+                data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        int pop() {
+            return data[--size];
+        }
+
+        void reverse() {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int t = data[i];
+                data[i] = data[j];
+                data[j] = t;
+            }
+        }
+    }
+}
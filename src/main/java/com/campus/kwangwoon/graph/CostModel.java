@@ -0,0 +1,66 @@
+package com.campus.kwangwoon.graph;
+
+/**
+ * 계단/턱을 완전히 막는 대신 비용을 더 매기는 탐색 옵션 (Router.Options.costModel).
+ * - 계단(턱) 아크 비용 = 거리 * factor + penalty (엣지나 도착 노드가 계단/턱이면 해당)
+ * - maxStairs/maxCrubs: 경로가 지나는 계단/턱 아크 수 상한 (-1이면 제한 없음)
+ * 아크 비용은 회피 프로필 인접 배열과 같은 순서의 배열로 미리 계산해서 그래프에 보관(Graph.arcCosts)하므로
+ * 탐색 루프는 배열 조회만 함. 상한이 없으면 탐색 비용은 일반 Dijkstra와 같음.
+ * 상한이 있으면 (노드, 지금까지 지난 계단 수, 턱 수) 상태 위에서 탐색하므로 상태 수만큼 늘어남
+ * (이 상태 배열은 스레드마다 하나를 재사용, 요청 단위 층 수 상한은 API 쪽에서 더 낮게 둠)
+ */
+public final class CostModel {
+
+    /** (maxStairs + 1) * (maxCrubs + 1) 상한 (상태 수 = 노드 수 * 이 값) */
+    public static final int MAX_LAYERS = 16;
+
+    public double stairFactor = 1.0;
+    public double stairPenalty = 0.0; // 미터 단위
+    public double crubFactor = 1.0;
+    public double crubPenalty = 0.0;
+    public int maxStairs = -1;
+    public int maxCrubs = -1;
+
+    /** 계단/턱 아크 비용이 거리와 다른지 (상한과는 무관) */
+    boolean hasPenalty() {
+        return stairFactor != 1.0 || stairPenalty != 0.0 || crubFactor != 1.0 || crubPenalty != 0.0;
+    }
+
+    /** 벌점 없이 거리만 쓰는 모델인지 (상한도 없을 때) */
+    public boolean isNeutral() {
+        return stairFactor == 1.0 && stairPenalty == 0.0 && crubFactor == 1.0 && crubPenalty == 0.0
+                && maxStairs < 0 && maxCrubs < 0;
+    }
+
+    /** 잘못된 값이면 IllegalArgumentException (비용이 거리보다 작아지면 안 됨) */
+    public void validate() {
+        if (!(stairFactor >= 1.0) || !(crubFactor >= 1.0) || Double.isInfinite(stairFactor + crubFactor))
+            throw new IllegalArgumentException("Penalty factor must be finite and >=1");
+        if (!(stairPenalty >= 0.0) || !(crubPenalty >= 0.0) || Double.isInfinite(stairPenalty + crubPenalty))
+            throw new IllegalArgumentException("Penalty must be finite and >=0");
+        if (maxStairs >= MAX_LAYERS || maxCrubs >= MAX_LAYERS || stairLayers() * crubLayers() > MAX_LAYERS)
+            throw new IllegalArgumentException("(maxStairs + 1) * (maxCrubs + 1) must be <=" + MAX_LAYERS);
+    }
+
+    /** 탐색 상태의 층 수 = (maxStairs + 1) * (maxCrubs + 1), 상한이 없으면 1 */
+    public int layers() {
+        return stairLayers() * crubLayers();
+    }
+
+    int stairLayers() {
+        return maxStairs < 0 ? 1 : maxStairs + 1;
+    }
+
+    int crubLayers() {
+        return maxCrubs < 0 ? 1 : maxCrubs + 1;
+    }
+
+    /** 거리 w, 플래그 flags인 아크의 비용 (배열을 만들 때와 스내핑 출발 구간에서 사용) */
+    double cost(double w, int flags) {
+        if ((flags & Graph.STAIR_ANY) != 0)
+            w = w * stairFactor + stairPenalty;
+        if ((flags & Graph.CRUB_ANY) != 0)
+            w = w * crubFactor + crubPenalty;
+        return w;
+    }
+}
@@ -0,0 +1,153 @@
+package com.campus.kwangwoon.graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 한 회피 프로필(계단/턱)에 대한 전체 쌍 최단 거리 + 다음 아크(next-hop) 표.
+ * - 시작 시 모든 노드에서 Dijkstra를 한 번씩 돌려서 채움 (노드 수 n -> n * n 칸)
+ * - 질의는 표 조회 + 다음 아크를 따라가며 경로 복원만 하므로 탐색이 없음
+ * - 메모리가 n^2에 비례하므로 estimateBytes()로 미리 크기를 확인하고 만들 것
+ */
+public final class DistanceTable {
+
+    /** n * n 인덱스가 int 범위를 넘지 않는 최대 노드 수 */
+    public static final int MAX_NODES = 46_340;
+
+    private final Graph graph;
+    private final int n;
+    private final int block;
+    private final double[] dist; // s * n + t -> 거리 (도달 불가면 +Inf)
+    private final int[] nextArc; // s * n + t -> s에서 t로 가는 첫 아크 (없으면 -1)
+
+    private DistanceTable(Graph graph, int block) {
+        this.graph = graph;
+        this.n = graph.nodeCount();
+        this.block = block;
+        this.dist = new double[n * n];
+        this.nextArc = new int[n * n];
+    }
+
+    /** 표 하나가 차지하는 대략적인 바이트 수 */
+    public static long estimateBytes(int nodeCount) {
+        return (long) nodeCount * nodeCount * (Double.BYTES + Integer.BYTES);
+    }
+
+    public static DistanceTable build(Graph g, Router.Options profile) {
+        if (g.nodeCount() > MAX_NODES)
+            throw new IllegalArgumentException("Too many nodes for a distance table: " + g.nodeCount());
+        DistanceTable table = new DistanceTable(g, profile == null ? 0 : profile.blockMask());
+        int[] first = new int[table.n];
+        for (int s = 0; s < table.n; s++)
+            table.fillRow(s, first);
+        return table;
+    }
+
+    /** s에서 전체 탐색 후, 각 노드까지의 첫 아크를 prevArc 체인에서 메모이제이션으로 구함 */
+    private void fillRow(int s, int[] first) {
+        SearchState st = Router.explore(graph, s, block);
+        int row = s * n;
+        Arrays.fill(first, -2); // -2: 아직 모름
+        first[s] = -1;
+        for (int t = 0; t < n; t++) {
+            if (!st.reached(t)) {
+                dist[row + t] = Double.POSITIVE_INFINITY;
+                nextArc[row + t] = -1;
+                continue;
+            }
+            dist[row + t] = st.dist(t);
+            nextArc[row + t] = firstArc(st, s, t, first);
+        }
+    }
+
+    private int firstArc(SearchState st, int s, int t, int[] first) {
+        // t에서 거슬러 올라가며 값을 아는 노드를 찾은 뒤, 내려오면서 채움
+        int v = t;
+        while (first[v] == -2) {
+            int a = st.prevArc(v);
+            int u = graph.sources[a];
+            if (u == s) {
+                first[v] = a;
+                break;
+            }
+            v = u;
+        }
+        int known = first[v];
+        for (int w = t; w != v; w = graph.sources[st.prevArc(w)])
+            first[w] = known;
+        return first[t];
+    }
+
+    public int nodeCount() {
+        return n;
+    }
+
+    public double distance(int s, int t) {
+        return dist[s * n + t];
+    }
+
+    /** 노드 src에서 dsts 중 가장 가까운 곳까지 (Router.shortestPathToAny와 같은 의미) */
+    public Router.RouteResult route(String src, Collection<String> dsts) {
+        int s = graph.indexOf(src);
+        if (s < 0)
+            throw new IllegalArgumentException("Unknown source");
+        int[] ts = Router.resolveTargets(graph, dsts);
+        int best = -1;
+        for (int t : ts)
+            if (best < 0 || dist[s * n + t] < dist[s * n + best])
+                best = t;
+        if (Double.isInfinite(dist[s * n + best]))
+            return null;
+        return unroll(s, best, 0.0, 0);
+    }
+
+    /** 엣지 위 스내핑 지점에서 출발 (Router.shortestPathToAny(EdgeSnap...)와 같은 의미) */
+    public Router.RouteResult route(SpatialIndex.EdgeSnap start, Collection<String> dsts) {
+        int[] ts = Router.resolveTargets(graph, dsts);
+        int fwd = start.arc;
+        int back = graph.oppositeArc(fwd);
+        int bestSeed = -1, bestTarget = -1, bestArc = -1;
+        double bestCost = Double.POSITIVE_INFINITY, bestOffset = 0;
+        for (int k = 0; k < 2; k++) {
+            int arc = k == 0 ? fwd : back;
+            if (arc < 0 || (graph.arcFlags[arc] & block) != 0)
+                continue;
+            int seed = graph.targets[arc];
+            double offset = (k == 0 ? 1 - start.fraction : start.fraction) * graph.weights[arc];
+            for (int t : ts) {
+                double c = offset + dist[seed * n + t];
+                if (c < bestCost) {
+                    bestCost = c;
+                    bestSeed = seed;
+                    bestTarget = t;
+                    bestArc = arc;
+                    bestOffset = offset;
+                }
+            }
+        }
+        if (bestSeed < 0)
+            return null;
+        return unroll(bestSeed, bestTarget, bestOffset + start.distance, graph.arcFlags[bestArc]);
+    }
+
+    private Router.RouteResult unroll(int s, int t, double extraCost, int extraFlags) {
+        int flags = extraFlags;
+        int hops = 0;
+        for (int v = s; v != t; v = graph.targets[nextArc[v * n + t]]) {
+            flags |= graph.arcFlags[nextArc[v * n + t]];
+            hops++;
+        }
+        String[] path = new String[hops + 1];
+        int[] arcs = new int[hops];
+        int v = s;
+        for (int i = 0; i <= hops; i++) {
+            path[i] = graph.idOf(v);
+            if (i < hops) {
+                arcs[i] = nextArc[v * n + t];
+                v = graph.targets[arcs[i]];
+            }
+        }
+        return new Router.RouteResult(Arrays.asList(path), dist[s * n + t] + extraCost,
+                (flags & Graph.STAIR_ANY) != 0, (flags & Graph.CRUB_ANY) != 0, 0, 0, arcs);
+    }
+}
@@ -1,6 +1,7 @@
 package com.campus.kwangwoon.graph;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -8,16 +9,19 @@ import com.campus.kwangwoon.model.Node;
 import com.campus.kwangwoon.model.Edge;
 import com.campus.kwangwoon.model.Point;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Graph loader/holder:
  * - load(meta.json, node.json, edge.json)
  * - auto add reverse edges if directed=false
  * - validate node/edge consistency
+ * - freeze into a CSR(offsets/targets/weights/arcFlags) form with dense int ids
  */
 public class Graph {
 
@@ -27,16 +31,276 @@ public class Graph {
         public String schemaVersion = "1.0.0";
     }
 
+    /* 아크 플래그 비트: 엣지 자체 속성 + 도착 노드 속성을 한 바이트에 묶어둠 */
+    public static final int EDGE_STAIR = 1;
+    public static final int EDGE_CRUB = 2;
+    public static final int NODE_STAIR = 4;
+    public static final int NODE_CRUB = 8;
+    public static final int STAIR_ANY = EDGE_STAIR | NODE_STAIR;
+    public static final int CRUB_ANY = EDGE_CRUB | NODE_CRUB;
+    /** directed=false일 때 자동 생성된 역방향 아크 표시 (회피 마스크와는 무관) */
+    public static final int ARC_REVERSE = 16;
+    /** 입력 엣지에 geometry 필드 자체가 없었음 (/api/edges에서 빈 목록 대신 null로 보냄, 회피 마스크와는 무관) */
+    public static final int ARC_NO_GEOMETRY = 32;
+
+    /**
+     * 회피 프로필별로 막힌 아크(엣지나 도착 노드가 계단/턱)를 미리 뺀 CSR 인접 배열.
+     * 탐색 루프가 아크마다 플래그를 검사하지 않도록 로드할 때 네 프로필을 모두 만들어 둠
+     * (막히는 아크가 없는 프로필은 원본 배열을 그대로 공유)
+     */
+    static final class Adjacency {
+        final int[] offsets;
+        final int[] targets;
+        final double[] weights;
+        final int[] arcs; // i번째 아크 -> 원래 아크 번호 (prevArc, 경로 복원용)
+
+        Adjacency(int[] offsets, int[] targets, double[] weights, int[] arcs) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.arcs = arcs;
+        }
+    }
+
+    /**
+     * 기본 배열(ID, CSR, 플래그)에서 계산하는 파생 배열 묶음: ID 색인, 아크 출발 노드, 역방향 인접, 프로필별 인접.
+     * JSON에서 읽을 때는 derive()로 만들고, 이진 그래프 파일(GraphFile)은 이것까지 저장해 두었다가 그대로 넘김
+     */
+    static final class Derived {
+        final int[] idSlots;
+        final int[] sources;
+        final int[] inOffsets;
+        final int[] inArcs;
+        final Adjacency[] adjacency; // [계단 회피 1비트 | 턱 회피 2비트], 0번은 항상 원본 배열 공유
+
+        Derived(int[] idSlots, int[] sources, int[] inOffsets, int[] inArcs, Adjacency[] adjacency) {
+            this.idSlots = idSlots;
+            this.sources = sources;
+            this.inOffsets = inOffsets;
+            this.inArcs = inArcs;
+            this.adjacency = adjacency;
+        }
+    }
+
     private final Meta meta;
-    private final Map<String, Node> nodesById;
-    private final Map<String, List<Edge>> adj; // outgoing edges
 
-    private Graph(Meta meta,
-            Map<String, Node> nodesById,
-            Map<String, List<Edge>> adj) {
+    // --- CSR(compressed sparse row) 형태의 고정 그래프 ---
+    // 노드 i의 나가는 아크는 [offsets[i], offsets[i + 1]) 구간
+    private final String[] ids; // dense id -> 노드 ID
+    private final String[] names; // dense id -> 노드 이름 (없으면 null)
+    // 노드 ID -> dense id 열린 주소 해시표: 칸 값 = dense id + 1 (0은 빈 칸), String.hashCode 기준이라 파일에 저장 가능
+    private final int[] idSlots;
+    private final double[] lat; // 좌표가 없으면 NaN
+    private final double[] lng;
+    private final byte[] nodeFlags; // NODE_STAIR | NODE_CRUB
+    final int[] offsets;
+    final int[] sources; // 아크 -> 출발 노드 (경로 복원용)
+    final int[] targets;
+    final double[] weights;
+    final byte[] arcFlags; // EDGE_* | 도착 노드의 NODE_* | ARC_REVERSE | ARC_NO_GEOMETRY
+    final int[] arcTwin; // 같은 엣지에서 나온 반대 방향 아크 (없으면 -1)
+    // 역방향 인접(들어오는 아크): 노드 v로 들어오는 아크 번호는 inArcs[inOffsets[v] .. inOffsets[v + 1])
+    // meta.directed 그래프에서도 역방향 탐색이 가능하도록 아크 번호를 그대로 공유
+    final int[] inOffsets;
+    final int[] inArcs;
+    // 프로필별 인접 배열: [계단 회피 1비트 | 턱 회피 2비트]
+    private final Adjacency[] adjacency;
+    // 아크 a의 중간 좌표(geometry)는 geomLat/geomLng[geomOffsets[a] .. geomOffsets[a + 1])
+    private final int[] geomOffsets;
+    private final double[] geomLat;
+    private final double[] geomLng;
+
+    // API 응답용 Node/Edge 객체는 처음 요청될 때 배열에서 만들어 둠
+    private List<Node> nodeViews;
+    private Edge[] edgeViews;
+    // (프로필, 벌점) 별 아크 비용 배열: 최근에 쓴 것 몇 개만 보관 (잠금은 조회/등록에만, 계산은 잠금 밖)
+    private final Map<CostKey, double[]> arcCosts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CostKey, double[]> eldest) {
+            return size() > ARC_COST_CACHE_SIZE;
+        }
+    };
+    private static final int ARC_COST_CACHE_SIZE = 16;
+
+    /** 배열을 그대로 보관 (복사하지 않음). ID 색인/sources/역방향 인접/프로필별 인접은 여기서 계산 */
+    Graph(Meta meta, String[] ids, String[] names, double[] lat, double[] lng, byte[] nodeFlags,
+            int[] offsets, int[] targets, double[] weights, byte[] arcFlags, int[] arcTwin,
+            int[] geomOffsets, double[] geomLat, double[] geomLng) {
+        this(meta, ids, names, lat, lng, nodeFlags, offsets, targets, weights, arcFlags, arcTwin, geomOffsets,
+                geomLat, geomLng, derive(ids, offsets, targets, weights, arcFlags));
+    }
+
+    /** 파생 배열까지 이미 있는 경우 (GraphFile): 아무것도 다시 계산하지 않음 */
+    Graph(Meta meta, String[] ids, String[] names, double[] lat, double[] lng, byte[] nodeFlags,
+            int[] offsets, int[] targets, double[] weights, byte[] arcFlags, int[] arcTwin,
+            int[] geomOffsets, double[] geomLat, double[] geomLng, Derived derived) {
         this.meta = meta;
-        this.nodesById = nodesById;
-        this.adj = adj;
+        this.ids = ids;
+        this.names = names;
+        this.lat = lat;
+        this.lng = lng;
+        this.nodeFlags = nodeFlags;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.arcFlags = arcFlags;
+        this.arcTwin = arcTwin;
+        this.geomOffsets = geomOffsets;
+        this.geomLat = geomLat;
+        this.geomLng = geomLng;
+
+        this.idSlots = derived.idSlots;
+        this.sources = derived.sources;
+        this.inOffsets = derived.inOffsets;
+        this.inArcs = derived.inArcs;
+        this.adjacency = derived.adjacency;
+    }
+
+    static Derived derive(String[] ids, int[] offsets, int[] targets, double[] weights, byte[] arcFlags) {
+        int n = ids.length;
+        int m = targets.length;
+        int[] idSlots = new int[Integer.highestOneBit(Math.max(1, n) * 2 - 1) << 1]; // 2의 거듭제곱, 절반 이하만 채움
+        for (int i = 0; i < n; i++) {
+            int h = slot(ids[i], idSlots.length);
+            while (idSlots[h] != 0)
+                h = (h + 1) & (idSlots.length - 1);
+            idSlots[h] = i + 1;
+        }
+
+        int[] sources = new int[m];
+        for (int u = 0; u < n; u++)
+            Arrays.fill(sources, offsets[u], offsets[u + 1], u);
+
+        // 도착 노드 기준 계수 정렬로 역방향 인접 구성
+        int[] inOffsets = new int[n + 1];
+        int[] inArcs = new int[m];
+        for (int k = 0; k < m; k++)
+            inOffsets[targets[k] + 1]++;
+        for (int v = 0; v < n; v++)
+            inOffsets[v + 1] += inOffsets[v];
+        int[] fill = Arrays.copyOf(inOffsets, n);
+        for (int k = 0; k < m; k++)
+            inArcs[fill[targets[k]]++] = k;
+
+        return new Derived(idSlots, sources, inOffsets, inArcs,
+                buildAdjacency(n, offsets, targets, weights, arcFlags));
+    }
+
+    /** 이진 파일에 저장할 파생 배열 (보관 중인 배열 그대로) */
+    Derived derived() {
+        return new Derived(idSlots, sources, inOffsets, inArcs, adjacency);
+    }
+
+    /** ID 해시표에서 id의 첫 탐색 칸 (length는 2의 거듭제곱) */
+    private static int slot(String id, int length) {
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & (length - 1);
+    }
+
+    private static Adjacency[] buildAdjacency(int n, int[] offsets, int[] targets, double[] weights,
+            byte[] arcFlags) {
+        int m = targets.length;
+        int[] identity = new int[m];
+        for (int a = 0; a < m; a++)
+            identity[a] = a;
+        Adjacency all = new Adjacency(offsets, targets, weights, identity);
+        Adjacency[] views = new Adjacency[4];
+        for (int p = 0; p < views.length; p++) {
+            int block = ((p & 1) != 0 ? STAIR_ANY : 0) | ((p & 2) != 0 ? CRUB_ANY : 0);
+            int kept = 0;
+            for (int a = 0; a < m; a++)
+                if ((arcFlags[a] & block) == 0)
+                    kept++;
+            if (kept == m) {
+                views[p] = all;
+                continue;
+            }
+            int[] viewOffsets = new int[n + 1];
+            int[] viewTargets = new int[kept];
+            double[] viewWeights = new double[kept];
+            int[] viewArcs = new int[kept];
+            int k = 0;
+            for (int u = 0; u < n; u++) {
+                for (int a = offsets[u], end = offsets[u + 1]; a < end; a++) {
+                    if ((arcFlags[a] & block) != 0)
+                        continue;
+                    viewTargets[k] = targets[a];
+                    viewWeights[k] = weights[a];
+                    viewArcs[k] = a;
+                    k++;
+                }
+                viewOffsets[u + 1] = k;
+            }
+            views[p] = new Adjacency(viewOffsets, viewTargets, viewWeights, viewArcs);
+        }
+        return views;
+    }
+
+    /** 회피 마스크(Router.Options.blockMask)에 해당하는 프로필의 인접 배열 */
+    Adjacency adjacency(int block) {
+        return adjacency[profile(block)];
+    }
+
+    private static int profile(int block) {
+        return ((block & STAIR_ANY) != 0 ? 1 : 0) | ((block & CRUB_ANY) != 0 ? 2 : 0);
+    }
+
+    /**
+     * adjacency(block)과 같은 순서의 벌점 포함 아크 비용 (costs[i] = i번째 아크 비용).
+     * 벌점이 없으면 거리 배열을 그대로 반환. 같은 프로필/벌점 값이면 요청끼리 배열을 공유하고,
+     * 처음 보는 벌점 값은 O(아크 수)로 한 번 만들어서 최근 ARC_COST_CACHE_SIZE개까지만 보관
+     */
+    double[] arcCosts(int block, CostModel model) {
+        Adjacency adj = adjacency(block);
+        if (!model.hasPenalty())
+            return adj.weights;
+        CostKey key = new CostKey(profile(block), model);
+        double[] costs;
+        synchronized (arcCosts) {
+            costs = arcCosts.get(key);
+        }
+        if (costs != null)
+            return costs;
+        costs = new double[adj.arcs.length];
+        for (int i = 0; i < costs.length; i++)
+            costs[i] = model.cost(adj.weights[i], arcFlags[adj.arcs[i]]);
+        synchronized (arcCosts) {
+            double[] raced = arcCosts.putIfAbsent(key, costs);
+            return raced != null ? raced : costs;
+        }
+    }
+
+    /** 아크 비용 배열 캐시 키: 프로필 + 벌점 값 (계단/턱 수 상한은 비용과 무관하므로 제외) */
+    private static final class CostKey {
+        private final int profile;
+        private final double stairFactor;
+        private final double stairPenalty;
+        private final double crubFactor;
+        private final double crubPenalty;
+
+        CostKey(int profile, CostModel model) {
+            this.profile = profile;
+            this.stairFactor = model.stairFactor;
+            this.stairPenalty = model.stairPenalty;
+            this.crubFactor = model.crubFactor;
+            this.crubPenalty = model.crubPenalty;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CostKey))
+                return false;
+            CostKey k = (CostKey) o;
+            return profile == k.profile && Double.compare(stairFactor, k.stairFactor) == 0
+                    && Double.compare(stairPenalty, k.stairPenalty) == 0
+                    && Double.compare(crubFactor, k.crubFactor) == 0
+                    && Double.compare(crubPenalty, k.crubPenalty) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(profile, stairFactor, stairPenalty, crubFactor, crubPenalty);
+        }
     }
 
     public Meta meta() {
@@ -44,29 +308,186 @@ public class Graph {
     }
 
     public Collection<Node> nodes() {
-        return nodesById.values();
+        return nodeViews();
     }
 
     public Node getNode(String id) {
-        return nodesById.get(id);
+        int i = indexOf(id);
+        return i < 0 ? null : nodeViews().get(i);
     }
 
     public List<Edge> outgoing(String nodeId) {
-        return adj.getOrDefault(nodeId, List.of());
+        int u = indexOf(nodeId);
+        if (u < 0)
+            return List.of();
+        return Collections.unmodifiableList(Arrays.asList(edgeViews()).subList(offsets[u], offsets[u + 1]));
+    }
+
+    private synchronized List<Node> nodeViews() {
+        if (nodeViews == null) {
+            Node[] views = new Node[ids.length];
+            for (int i = 0; i < views.length; i++) {
+                Point p = Double.isNaN(lat[i]) ? null : new Point(lat[i], lng[i]);
+                views[i] = new Node(ids[i], names[i], p,
+                        (nodeFlags[i] & NODE_STAIR) != 0, (nodeFlags[i] & NODE_CRUB) != 0);
+            }
+            nodeViews = Collections.unmodifiableList(Arrays.asList(views));
+        }
+        return nodeViews;
+    }
+
+    private synchronized Edge[] edgeViews() {
+        if (edgeViews == null) {
+            Edge[] views = new Edge[targets.length];
+            for (int a = 0; a < views.length; a++) {
+                // 입력 그대로: geometry가 없던 엣지는 null, 빈 목록이던 엣지는 빈 목록 (역방향 아크는 점이 없으면 null)
+                List<Point> geometry = null;
+                int points = geomOffsets[a + 1] - geomOffsets[a];
+                if ((arcFlags[a] & ARC_NO_GEOMETRY) == 0 && (points > 0 || (arcFlags[a] & ARC_REVERSE) == 0)) {
+                    geometry = new ArrayList<>(points);
+                    for (int i = 0; i < points; i++)
+                        geometry.add(new Point(arcGeometryLat(a, i), arcGeometryLng(a, i)));
+                }
+                views[a] = new Edge(ids[sources[a]], ids[targets[a]], weights[a],
+                        (arcFlags[a] & EDGE_STAIR) != 0, (arcFlags[a] & EDGE_CRUB) != 0, geometry);
+            }
+            edgeViews = views;
+        }
+        return edgeViews;
+    }
+
+    /** 입력 엣지 목록 (무방향 그래프에서 자동으로 추가한 역방향 아크는 제외, 아크 순서) */
+    public List<Edge> edges() {
+        Edge[] views = edgeViews();
+        List<Edge> edges = new ArrayList<>(meta.directed ? views.length : views.length / 2);
+        for (int a = 0; a < views.length; a++)
+            if ((arcFlags[a] & ARC_REVERSE) == 0)
+                edges.add(views[a]);
+        return Collections.unmodifiableList(edges);
     }
 
     /** Convenience: number of edges (counting directed arcs actually stored). */
     public int edgeCount() {
-        int sum = 0;
-        for (List<Edge> list : adj.values())
-            sum += list.size();
-        return sum;
+        return targets.length;
+    }
+
+    // --- dense id 사전 ---
+
+    public int nodeCount() {
+        return ids.length;
+    }
+
+    /** 노드 ID -> dense id, 없으면 -1 */
+    public int indexOf(String id) {
+        if (id == null)
+            return -1;
+        for (int h = slot(id, idSlots.length); idSlots[h] != 0; h = (h + 1) & (idSlots.length - 1))
+            if (ids[idSlots[h] - 1].equals(id))
+                return idSlots[h] - 1;
+        return -1;
+    }
+
+    public String idOf(int index) {
+        return ids[index];
+    }
+
+    /** 노드 이름, 없으면 null */
+    public String nameOf(int index) {
+        return names[index];
+    }
+
+    public double lat(int index) {
+        return lat[index];
+    }
+
+    public double lng(int index) {
+        return lng[index];
+    }
+
+    public int nodeFlags(int index) {
+        return nodeFlags[index];
+    }
+
+    /** 아크 번호에 해당하는 Edge 객체 (API 응답용 뷰) */
+    public Edge arcEdge(int arc) {
+        return edgeViews()[arc];
+    }
+
+    /** 아크의 중간 좌표 개수 (from/to 노드 제외) */
+    public int arcGeometrySize(int arc) {
+        return geomOffsets[arc + 1] - geomOffsets[arc];
+    }
+
+    public double arcGeometryLat(int arc, int i) {
+        return geomLat[geomOffsets[arc] + i];
+    }
+
+    public double arcGeometryLng(int arc, int i) {
+        return geomLng[geomOffsets[arc] + i];
+    }
+
+    public int arcCount() {
+        return targets.length;
+    }
+
+    public int arcSource(int arc) {
+        return sources[arc];
+    }
+
+    public int arcTarget(int arc) {
+        return targets[arc];
+    }
+
+    public double arcWeight(int arc) {
+        return weights[arc];
+    }
+
+    /** EDGE_* | NODE_* | ARC_REVERSE | ARC_NO_GEOMETRY 비트 */
+    public int arcFlags(int arc) {
+        return arcFlags[arc];
+    }
+
+    /** 같은 엣지에서 나온 반대 방향 아크, 없으면 -1 */
+    public int arcTwin(int arc) {
+        return arcTwin[arc];
+    }
+
+    /**
+     * 아크 a(u -> v)와 같은 길을 반대로 가는 아크, 없으면 -1. 같은 엣지의 역방향 아크(arcTwin)가 있으면 그것이고,
+     * 유향 데이터(meta.directed)라 arcTwin이 없으면 따로 입력된 v -> u 아크. 평행 아크가 있어도 짝이 한 가지로
+     * 정해지도록 양쪽 모두 그 방향의 첫 번째 아크일 때만 짝으로 봄.
+     * 스내핑 지점에서 엣지의 from 쪽으로 출발할 수 있는지는 모든 탐색이 이것으로 판단
+     */
+    int oppositeArc(int a) {
+        if (arcTwin[a] >= 0)
+            return arcTwin[a];
+        int u = sources[a];
+        int v = targets[a];
+        int r = firstArc(v, u);
+        return r >= 0 && firstArc(u, v) == a ? r : -1;
+    }
+
+    private int firstArc(int u, int v) {
+        for (int a = offsets[u], end = offsets[u + 1]; a < end; a++)
+            if (targets[a] == v)
+                return a;
+        return -1;
     }
 
     /**
      * Load graph from a directory that contains meta.json, node.json, edge.json.
+     * node.json/edge.json은 배열 원소를 하나씩 읽어 곧바로 GraphBuilder에 넣으므로
+     * 파일 전체를 List<Node>/List<Edge>로 들고 있지 않음 (최대 힙 = 최종 배열 + 원소 하나)
      */
     public static Graph load(Path dir) throws IOException {
+        return load(dir, true);
+    }
+
+    /**
+     * parallel=true면 엣지 가중치 계산/검증과 CSR 배치를 병렬로 처리 (엣지가 적으면 자동으로 순차).
+     * 결과 그래프와 검증 오류는 순차 빌드와 동일
+     */
+    public static Graph load(Path dir, boolean parallel) throws IOException {
         ObjectMapper om = new ObjectMapper()
                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
@@ -74,78 +495,49 @@ public class Graph {
         Meta meta = readMeta(om, dir.resolve("meta.json"));
 
         // 2) nodes
-        List<Node> nodeList = om.readValue(
-                Files.newBufferedReader(dir.resolve("node.json")),
-                new TypeReference<List<Node>>() {
-                });
-        Map<String, Node> nodesById = new LinkedHashMap<>();
-        for (Node n : nodeList) {
-            if (n.getId() == null || n.getId().isBlank())
-                throw new IllegalArgumentException("Node id is missing: " + n);
-            if (nodesById.put(n.getId(), n) != null)
-                throw new IllegalArgumentException("Duplicated node id: " + n.getId());
-        }
-
-        // 3) edges
-        List<Edge> rawEdges = om.readValue(
-                Files.newBufferedReader(dir.resolve("edge.json")),
-                new TypeReference<List<Edge>>() {
-                });
-
-        // 4) build adjacency, validate and auto-add reverse if needed
-        Map<String, List<Edge>> adj = new LinkedHashMap<>();
-        for (String id : nodesById.keySet())
-            adj.put(id, new ArrayList<>());
-
-        for (Edge e : rawEdges) {
-            // basic validation
-            if (!nodesById.containsKey(e.getFrom()))
-                throw new IllegalArgumentException("Edge.from not found: " + e.getFrom());
-            if (!nodesById.containsKey(e.getTo()))
-                throw new IllegalArgumentException("Edge.to not found: " + e.getTo());
-            // 1. 노드 객체 가져오기
-            Node u = nodesById.get(e.getFrom());
-            Node v = nodesById.get(e.getTo());
-
-            /*
-             * JSON에 weight가 있든 없든 무조건 실제 물리적 거리를 계산해서 덮어씌움.
-             * 파일 내용은 변하지 않고, 메모리 상에서만 정확한 거리로 동작함.
-             */
-            double distance = calculateDistance(u, v);
-            e.setWeight(distance);
-
-            // 유효성 검사 (계산된 거리가 0 이하인지 체크)
-            if (e.getWeight() <= 0)
-                throw new IllegalArgumentException(
-                        "Calculated weight must be >0. Check coordinates: " + e.getFrom() + " -> " + e.getTo());
-            if (Double.isNaN(e.getWeight()) || e.getWeight() <= 0)
-                throw new IllegalArgumentException("Edge.weight must be >0: " + e);
-
-            adj.get(e.getFrom()).add(e);
-
-            // reverse
-            if (!meta.directed) {
-                Edge rev = new Edge();
-                rev.setFrom(e.getTo());
-                rev.setTo(e.getFrom());
-                rev.setWeight(e.getWeight());
-                rev.setStair(e.isStair());
-                rev.setCrub(e.isCrub());
-                // geometry 역방향: 단순히 뒤집기 (있으면)
-                if (e.getGeometry() != null && !e.getGeometry().isEmpty()) {
-                    List<Point> g = new ArrayList<>(e.getGeometry());
-                    Collections.reverse(g);
-                    rev.setGeometry(g);
-                }
-                adj.get(rev.getFrom()).add(rev);
-            }
+        GraphBuilder builder = new GraphBuilder(meta, parallel);
+        forEachElement(om, dir.resolve("node.json"), Node.class, builder::addNode);
+
+        // 3) edges: validate, build adjacency and auto-add reverse if needed
+        try {
+            forEachElement(om, dir.resolve("edge.json"), Edge.class, builder::addEdge);
+        } catch (IllegalArgumentException e) {
+            // 앞쪽 엣지에 가중치 오류가 있으면 순차로 읽었을 때처럼 그쪽을 먼저 보고
+            builder.validateWeights("edge.json");
+            throw e;
         }
+        builder.validateWeights("edge.json");
 
         // (선택) 경고만: 노드 좌표가 터무니없이 먼 경우 등
         // 사용자가 "GH-2MG 좌표 수정하지 말라"고 하셨으므로, 여기서는 수정하지 않고 경고만 가능.
         // validateCoordinates(nodesById); // 필요시 구현
 
-        return new Graph(meta, nodesById, adj);
+        return builder.build();
+    }
+
+    /**
+     * 최상위 JSON 배열의 원소를 하나씩 객체로 읽어 action에 전달 (JsonParser 토큰 단위 스트리밍).
+     * 검증 오류에는 파일 이름과 원소 번호를 덧붙임
+     */
+    private static <T> void forEachElement(ObjectMapper om, Path path, Class<T> type, Consumer<T> action)
+            throws IOException {
+        try (JsonParser parser = om.getFactory().createParser(Files.newBufferedReader(path))) {
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+                throw new IllegalArgumentException(path.getFileName() + " must be a JSON array");
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() == null)
+                    throw new IllegalArgumentException(path.getFileName() + " ended before the array was closed");
+                T element = om.readValue(parser, type);
+                try {
+                    action.accept(element);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(
+                            e.getMessage() + " (" + path.getFileName() + "[" + index + "])", e);
+                }
+                index++;
+            }
+        }
     }
 
     private static Meta readMeta(ObjectMapper om, Path path) throws IOException {
@@ -154,12 +546,14 @@ public class Graph {
             Meta m = new Meta();
             return m;
         }
-        return om.readValue(Files.newBufferedReader(path), Meta.class);
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            return om.readValue(reader, Meta.class);
+        }
     }
 
     /** 간단한 통계 출력용 */
     public String summary() {
-        int n = nodesById.size();
+        int n = nodeCount();
         int m = edgeCount();
         return String.format("Graph: nodes=%d, arcs=%d (directed=%s, unit=%s, schema=%s)",
                 n, m, meta.directed, meta.unit, meta.schemaVersion);
@@ -167,28 +561,11 @@ public class Graph {
 
     private static final double EARTH_RADIUS_METERS = 6_371_000.0;
 
-    /**
-     * 두 노드(Node) 간의 실제 거리(미터)를 계산하는 헬퍼 메서드
-     */
-    private static double calculateDistance(Node from, Node to) {
-        // 데이터 방어 로직: 좌표 정보가 없으면 에러
-        if (from.getLocation() == null || to.getLocation() == null) {
-            throw new IllegalArgumentException("Location missing for node: " +
-                    (from.getLocation() == null ? from.getId() : to.getId()));
-        }
-
-        // Node -> Point -> lat, lng 추출 (Point.java에 getLng() 확인됨)
-        return calculateDistance(
-                from.getLocation().getLat(),
-                from.getLocation().getLng(),
-                to.getLocation().getLat(),
-                to.getLocation().getLng());
-    }
-
     /**
      * Haversine 공식을 이용한 실제 물리적 거리 계산 엔진
+     * (A* 휴리스틱 등 graph 패키지 내부에서도 재사용)
      */
-    private static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+    static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
         double lat1Rad = Math.toRadians(lat1);
         double lat2Rad = Math.toRadians(lat2);
         double deltaLat = Math.toRadians(lat2 - lat1);
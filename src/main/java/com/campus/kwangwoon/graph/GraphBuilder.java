@@ -0,0 +1,224 @@
+package com.campus.kwangwoon.graph;
+
+import com.campus.kwangwoon.model.Edge;
+import com.campus.kwangwoon.model.Node;
+import com.campus.kwangwoon.model.Point;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 노드/엣지를 하나씩 받아 원시 배열에 쌓은 뒤 CSR Graph로 굳히는 빌더.
+ * - 노드를 모두 넣은 다음 엣지를 넣어야 함 (엣지 검증/가중치 계산에 노드 좌표 필요)
+ * - 입력 객체는 보관하지 않으므로 로더가 파일 전체를 List로 들고 있을 필요가 없음
+ * - directed=false면 엣지마다 역방향 아크를 자동으로 추가 (geometry는 뒤집어서)
+ * - parallel이면 엣지 가중치(haversine) 계산/검증, 아크 배열 채우기, geometry 배치를 ForkJoin 공용 풀에서
+ * 병렬로 처리. 아크 번호 배정(노드별 순서)만 순차로 하므로 결과와 오류 메시지는 순차 빌드와 같음
+ */
+final class GraphBuilder {
+
+    /** 이보다 엣지가 적으면 병렬 작업 분배 비용이 더 크므로 순차 처리 */
+    static final int PARALLEL_MIN_EDGES = 1 << 14;
+
+    private final Graph.Meta meta;
+    private final boolean parallel;
+
+    // --- 노드 ---
+    private final Map<String, Integer> indexById = new HashMap<>();
+    private String[] ids = new String[16];
+    private String[] names = new String[16];
+    private double[] lat = new double[16];
+    private double[] lng = new double[16];
+    private byte[] nodeFlags = new byte[16];
+    private int n;
+
+    // --- 원본 엣지 (입력 방향) ---
+    private int[] edgeFrom = new int[16];
+    private int[] edgeTo = new int[16];
+    private double[] edgeWeight; // validateWeights()에서 한꺼번에 계산
+    private byte[] edgeFlags = new byte[16]; // EDGE_STAIR | EDGE_CRUB | ARC_NO_GEOMETRY
+    private int[] edgeGeom = new int[17]; // 엣지 e의 중간 좌표는 geom[edgeGeom[e] .. edgeGeom[e + 1])
+    private int m;
+    private double[] geomLat = new double[16];
+    private double[] geomLng = new double[16];
+    private int g;
+
+    GraphBuilder(Graph.Meta meta, boolean parallel) {
+        this.meta = meta;
+        this.parallel = parallel;
+    }
+
+    void addNode(Node node) {
+        if (node.getId() == null || node.getId().isBlank())
+            throw new IllegalArgumentException("Node id is missing: " + node);
+        if (indexById.putIfAbsent(node.getId(), n) != null)
+            throw new IllegalArgumentException("Duplicated node id: " + node.getId());
+        if (n == ids.length) {
+            int cap = n * 2;
+            ids = Arrays.copyOf(ids, cap);
+            names = Arrays.copyOf(names, cap);
+            lat = Arrays.copyOf(lat, cap);
+            lng = Arrays.copyOf(lng, cap);
+            nodeFlags = Arrays.copyOf(nodeFlags, cap);
+        }
+        Point p = node.getLocation();
+        ids[n] = node.getId();
+        names[n] = node.getName();
+        lat[n] = p == null ? Double.NaN : p.getLat();
+        lng[n] = p == null ? Double.NaN : p.getLng();
+        nodeFlags[n] = (byte) ((node.isStair() ? Graph.NODE_STAIR : 0) | (node.isCrub() ? Graph.NODE_CRUB : 0));
+        n++;
+    }
+
+    void addEdge(Edge e) {
+        // basic validation
+        Integer u = indexById.get(e.getFrom());
+        if (u == null)
+            throw new IllegalArgumentException("Edge.from not found: " + e.getFrom());
+        Integer v = indexById.get(e.getTo());
+        if (v == null)
+            throw new IllegalArgumentException("Edge.to not found: " + e.getTo());
+
+        // 가중치는 좌표로 계산하므로 좌표가 없으면 에러
+        if (Double.isNaN(lat[u]) || Double.isNaN(lat[v])) {
+            throw new IllegalArgumentException("Location missing for node: " +
+                    (Double.isNaN(lat[u]) ? ids[u] : ids[v]));
+        }
+
+        if (m == edgeFrom.length) {
+            int cap = m * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, cap);
+            edgeTo = Arrays.copyOf(edgeTo, cap);
+            edgeFlags = Arrays.copyOf(edgeFlags, cap);
+            edgeGeom = Arrays.copyOf(edgeGeom, cap + 1);
+        }
+        List<Point> geometry = e.getGeometry();
+        int points = geometry == null ? 0 : geometry.size();
+        if (g + points > geomLat.length) {
+            int cap = Math.max(geomLat.length * 2, g + points);
+            geomLat = Arrays.copyOf(geomLat, cap);
+            geomLng = Arrays.copyOf(geomLng, cap);
+        }
+        for (int i = 0; i < points; i++) {
+            geomLat[g] = geometry.get(i).getLat();
+            geomLng[g] = geometry.get(i).getLng();
+            g++;
+        }
+        edgeFrom[m] = u;
+        edgeTo[m] = v;
+        edgeFlags[m] = (byte) ((e.isStair() ? Graph.EDGE_STAIR : 0) | (e.isCrub() ? Graph.EDGE_CRUB : 0)
+                | (geometry == null ? Graph.ARC_NO_GEOMETRY : 0));
+        edgeGeom[m + 1] = g;
+        m++;
+    }
+
+    /**
+     * 지금까지 넣은 모든 엣지의 가중치를 계산하고 검증.
+     * JSON에 weight가 있든 없든 무조건 실제 물리적 거리를 계산해서 덮어씌움.
+     * (파일 내용은 변하지 않고, 메모리 상에서만 정확한 거리로 동작함)
+     * 잘못된 엣지가 여럿이면 병렬이어도 항상 입력 순서상 첫 번째를 보고 (source[번호] 형태로 위치 표시)
+     */
+    void validateWeights(String source) {
+        double[] w = new double[m];
+        range(m).forEach(e -> w[e] = Graph.calculateDistance(lat[edgeFrom[e]], lng[edgeFrom[e]],
+                lat[edgeTo[e]], lng[edgeTo[e]]));
+        // 유효성 검사 (계산된 거리가 0 이하인지 체크)
+        int bad = range(m).filter(e -> !(w[e] > 0)).findFirst().orElse(-1);
+        if (bad >= 0) {
+            String from = ids[edgeFrom[bad]], to = ids[edgeTo[bad]];
+            String message = w[bad] <= 0
+                    ? "Calculated weight must be >0. Check coordinates: " + from + " -> " + to
+                    : "Edge.weight must be >0: " + new Edge(from, to, w[bad], (edgeFlags[bad] & Graph.EDGE_STAIR) != 0,
+                            (edgeFlags[bad] & Graph.EDGE_CRUB) != 0, null);
+            throw new IllegalArgumentException(message + " (" + source + "[" + bad + "])");
+        }
+        this.edgeWeight = w;
+    }
+
+    private IntStream range(int count) {
+        IntStream r = IntStream.range(0, count);
+        return parallel && count >= PARALLEL_MIN_EDGES ? r.parallel() : r;
+    }
+
+    /**
+     * CSR로 배치: 노드별 아크 순서는 입력 순서 그대로
+     * (역방향 아크는 원본 엣지가 나온 시점에 도착 노드 목록에 추가)
+     */
+    Graph build() {
+        if (edgeWeight == null)
+            validateWeights("edges");
+        boolean reverse = !meta.directed;
+        int arcs = reverse ? m * 2 : m;
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            offsets[edgeFrom[e] + 1]++;
+            if (reverse)
+                offsets[edgeTo[e] + 1]++;
+        }
+        for (int u = 0; u < n; u++)
+            offsets[u + 1] += offsets[u];
+
+        // 아크 번호 배정만 순차로 (노드별 아크 순서 = 입력 순서), 배열 채우기는 병렬
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] fwdArc = new int[m];
+        int[] revArc = reverse ? new int[m] : null;
+        for (int e = 0; e < m; e++) {
+            fwdArc[e] = next[edgeFrom[e]]++;
+            if (reverse)
+                revArc[e] = next[edgeTo[e]]++;
+        }
+
+        int[] targets = new int[arcs];
+        double[] weights = new double[arcs];
+        byte[] arcFlags = new byte[arcs];
+        int[] arcTwin = new int[arcs];
+        int[] arcEdge = new int[arcs]; // 아크 -> 원본 엣지 (geometry 배치용)
+        boolean[] flipped = new boolean[arcs];
+        range(m).forEach(e -> {
+            int u = edgeFrom[e], v = edgeTo[e];
+            int fwd = fwdArc[e];
+            targets[fwd] = v;
+            weights[fwd] = edgeWeight[e];
+            arcFlags[fwd] = (byte) (edgeFlags[e] | nodeFlags[v]);
+            arcTwin[fwd] = -1;
+            arcEdge[fwd] = e;
+            if (reverse) {
+                int rev = revArc[e];
+                targets[rev] = u;
+                weights[rev] = edgeWeight[e];
+                arcFlags[rev] = (byte) (edgeFlags[e] | nodeFlags[u] | Graph.ARC_REVERSE);
+                arcTwin[fwd] = rev;
+                arcTwin[rev] = fwd;
+                arcEdge[rev] = e;
+                flipped[rev] = true;
+            }
+        });
+
+        // 아크 순서대로 geometry 배치 (역방향 아크는 뒤집은 좌표)
+        int[] arcGeom = new int[arcs + 1];
+        for (int a = 0; a < arcs; a++)
+            arcGeom[a + 1] = arcGeom[a] + edgeGeom[arcEdge[a] + 1] - edgeGeom[arcEdge[a]];
+        double[] arcGeomLat = new double[arcGeom[arcs]];
+        double[] arcGeomLng = new double[arcGeom[arcs]];
+        range(arcs).forEach(a -> {
+            int from = edgeGeom[arcEdge[a]];
+            int count = arcGeom[a + 1] - arcGeom[a];
+            for (int i = 0; i < count; i++) {
+                int src = flipped[a] ? from + count - 1 - i : from + i;
+                arcGeomLat[arcGeom[a] + i] = geomLat[src];
+                arcGeomLng[arcGeom[a] + i] = geomLng[src];
+            }
+        });
+
+        // 빌더는 한 번만 쓰므로 Graph가 자체 색인을 만들기 전에 중간 맵/배열을 놓아서 최대 힙을 줄임
+        indexById.clear();
+        edgeFrom = edgeTo = edgeGeom = null;
+        edgeWeight = geomLat = geomLng = null;
+        return new Graph(meta, Arrays.copyOf(ids, n), Arrays.copyOf(names, n),
+                Arrays.copyOf(lat, n), Arrays.copyOf(lng, n), Arrays.copyOf(nodeFlags, n),
+                offsets, targets, weights, arcFlags, arcTwin, arcGeom, arcGeomLat, arcGeomLng);
+    }
+}
@@ -0,0 +1,428 @@
+package com.campus.kwangwoon.graph;
+
+import com.campus.kwangwoon.model.BuildingInfo;
+import com.campus.kwangwoon.model.Point;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * 미리 컴파일한 이진 그래프 파일 (graph.bin).
+ * - JSON 데이터 폴더(meta/node/edge/building.json)를 빌드 시점에 한 번 변환: main(dataDir [out])
+ * - CSR 배열, 좌표, 플래그, 문자열 표, 빌딩 게이트를 그대로 담음 (가중치/역방향 아크도 계산된 상태)
+ * - 로드 때 계산하던 파생 배열(ID 해시표, 아크 출발 노드, 역방향 인접, 회피 프로필별 인접)도 담아서
+ *   읽을 때 그래프를 다시 구성하지 않음 (Graph.Derived)
+ * - 읽을 때는 FileChannel.map으로 매핑해서 체크섬을 확인한 뒤 구역마다 힙의 int/double 배열로 통째로 복사
+ *   (JSON 파싱/원소별 객체 생성은 없지만 그래프 크기만큼 힙을 쓰고, 매핑은 읽기가 끝나면 버림)
+ *
+ * 형식 (little-endian, 모든 구역은 8바이트 정렬):
+ * 헤더 32바이트 = MAGIC, 형식 버전, 플래그(bit0: directed), 0, 본문 길이(long), 본문 CRC32C(long)
+ * 본문 = 개수들 -> 문자열 표 -> 노드 배열 -> 아크 배열 -> geometry -> 파생 배열 -> 빌딩
+ * 프로필별 인접은 (앞 프로필과 같은 배열이면 그 번호, 아니면 자기 번호, 아크 수) 다음에 자기 배열만 이어짐
+ * (0번 프로필은 원본 CSR을 공유하므로 아크 번호 배열만)
+ */
+public final class GraphFile {
+
+    public static final String FILE_NAME = "graph.bin";
+
+    private static final int MAGIC = 0x5247574B; // "KWGR"
+    private static final int FORMAT_VERSION = 2; // 2: 파생 배열 추가
+    private static final int HEADER_BYTES = 32;
+    private static final int FLAG_DIRECTED = 1;
+
+    /** 파일에서 읽은 그래프 + 빌딩 정보 */
+    public static final class Contents {
+        public final Graph graph;
+        public final List<BuildingInfo> buildings;
+
+        Contents(Graph graph, List<BuildingInfo> buildings) {
+            this.graph = graph;
+            this.buildings = buildings;
+        }
+    }
+
+    private GraphFile() {
+    }
+
+    /** 빌드 시 변환기: JSON 데이터 폴더 -> graph.bin (기본 출력 위치는 데이터 폴더 안) */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: GraphFile <dataDir> [out]");
+            return;
+        }
+        Path dataDir = Paths.get(args[0]);
+        Path out = args.length > 1 ? Paths.get(args[1]) : dataDir.resolve(FILE_NAME);
+        Graph g = Graph.load(dataDir);
+        List<BuildingInfo> buildings;
+        try (BufferedReader reader = Files.newBufferedReader(dataDir.resolve("building.json"))) {
+            buildings = new ObjectMapper().readValue(reader, new TypeReference<List<BuildingInfo>>() {
+            });
+        }
+        write(g, buildings, out);
+        System.out.println(g.summary() + ", buildings=" + buildings.size() + " -> " + out
+                + " (" + Files.size(out) + " bytes)");
+    }
+
+    /** 임시 파일에 쓴 뒤 이름을 바꿔서 교체 (읽는 쪽이 반쯤 쓴 파일을 보지 않도록) */
+    public static void write(Graph g, List<BuildingInfo> buildings, Path out) throws IOException {
+        int n = g.nodeCount();
+        int m = g.arcCount();
+        int b = buildings.size();
+
+        StringTable strings = new StringTable();
+        int unitRef = strings.ref(g.meta().unit);
+        int schemaRef = strings.ref(g.meta().schemaVersion);
+        int[] idRef = new int[n];
+        int[] nameRef = new int[n];
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        byte[] nodeFlags = new byte[n];
+        for (int i = 0; i < n; i++) {
+            idRef[i] = strings.ref(g.idOf(i));
+            nameRef[i] = strings.ref(g.nameOf(i));
+            lat[i] = g.lat(i);
+            lng[i] = g.lng(i);
+            nodeFlags[i] = (byte) g.nodeFlags(i);
+        }
+        int[] geomOffsets = new int[m + 1];
+        for (int a = 0; a < m; a++)
+            geomOffsets[a + 1] = geomOffsets[a] + g.arcGeometrySize(a);
+        double[] geomLat = new double[geomOffsets[m]];
+        double[] geomLng = new double[geomOffsets[m]];
+        for (int a = 0; a < m; a++) {
+            for (int i = 0; i < g.arcGeometrySize(a); i++) {
+                geomLat[geomOffsets[a] + i] = g.arcGeometryLat(a, i);
+                geomLng[geomOffsets[a] + i] = g.arcGeometryLng(a, i);
+            }
+        }
+        int[] bIdRef = new int[b];
+        int[] bNameRef = new int[b];
+        double[] bLat = new double[b];
+        double[] bLng = new double[b];
+        int[] gateOffsets = new int[b + 1];
+        List<Integer> gateRefs = new ArrayList<>();
+        for (int k = 0; k < b; k++) {
+            BuildingInfo info = buildings.get(k);
+            bIdRef[k] = strings.ref(info.getId());
+            bNameRef[k] = strings.ref(info.getName());
+            bLat[k] = info.getLocation() == null ? Double.NaN : info.getLocation().getLat();
+            bLng[k] = info.getLocation() == null ? Double.NaN : info.getLocation().getLng();
+            if (info.getGates() != null)
+                for (String gate : info.getGates())
+                    gateRefs.add(strings.ref(gate));
+            gateOffsets[k + 1] = gateRefs.size();
+        }
+        byte[] blob = strings.blob();
+
+        Writer w = new Writer();
+        w.ints(n, m, geomOffsets[m], b, strings.size(), blob.length, unitRef, schemaRef);
+        w.ints(strings.offsets());
+        w.bytes(blob);
+        w.ints(idRef);
+        w.ints(nameRef);
+        w.doubles(lat);
+        w.doubles(lng);
+        w.bytes(nodeFlags);
+        w.ints(g.offsets);
+        w.ints(g.targets);
+        w.doubles(g.weights);
+        w.bytes(g.arcFlags);
+        w.ints(g.arcTwin);
+        w.ints(geomOffsets);
+        w.doubles(geomLat);
+        w.doubles(geomLng);
+        writeDerived(w, g);
+        w.ints(bIdRef);
+        w.ints(bNameRef);
+        w.doubles(bLat);
+        w.doubles(bLng);
+        w.ints(gateOffsets);
+        w.ints(gateRefs.stream().mapToInt(Integer::intValue).toArray());
+        ByteBuffer payload = w.finish();
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(g.meta().directed ? FLAG_DIRECTED : 0).putInt(0);
+        header.putLong(payload.remaining()).putLong(crc.getValue());
+        header.flip();
+
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining())
+                ch.write(header);
+            while (payload.hasRemaining())
+                ch.write(payload);
+        }
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** 파일을 매핑해서 힙 배열로 복사해 읽음. 형식/버전/체크섬이 맞지 않으면 IOException */
+    public static Contents read(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES)
+                throw new IOException("Not a graph file: " + file);
+            mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        ByteBuffer buf = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.getInt(0) != MAGIC)
+            throw new IOException("Not a graph file: " + file);
+        if (buf.getInt(4) != FORMAT_VERSION)
+            throw new IOException("Unsupported graph file version " + buf.getInt(4) + ": " + file);
+        boolean directed = (buf.getInt(8) & FLAG_DIRECTED) != 0;
+        long length = buf.getLong(16);
+        if (length != buf.capacity() - HEADER_BYTES)
+            throw new IOException("Truncated graph file: " + file);
+        CRC32C crc = new CRC32C();
+        crc.update(buf.duplicate().position(HEADER_BYTES));
+        if (crc.getValue() != buf.getLong(24))
+            throw new IOException("Graph file checksum mismatch: " + file);
+
+        Reader r = new Reader(buf.position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN));
+        int[] counts = r.ints(8);
+        int n = counts[0], m = counts[1], g = counts[2], b = counts[3];
+        String[] strings = r.strings(counts[4], counts[5]);
+
+        Graph.Meta meta = new Graph.Meta();
+        meta.directed = directed;
+        meta.unit = strings[counts[6]];
+        meta.schemaVersion = strings[counts[7]];
+        String[] ids = resolve(strings, r.ints(n));
+        String[] names = resolve(strings, r.ints(n));
+        double[] lat = r.doubles(n);
+        double[] lng = r.doubles(n);
+        byte[] nodeFlags = r.bytes(n);
+        int[] offsets = r.ints(n + 1);
+        int[] targets = r.ints(m);
+        double[] weights = r.doubles(m);
+        byte[] arcFlags = r.bytes(m);
+        int[] arcTwin = r.ints(m);
+        int[] geomOffsets = r.ints(m + 1);
+        double[] geomLat = r.doubles(g);
+        double[] geomLng = r.doubles(g);
+        Graph.Derived derived = readDerived(r, n, m, offsets, targets, weights);
+        Graph graph = new Graph(meta, ids, names, lat, lng, nodeFlags, offsets, targets, weights, arcFlags,
+                arcTwin, geomOffsets, geomLat, geomLng, derived);
+
+        String[] bIds = resolve(strings, r.ints(b));
+        String[] bNames = resolve(strings, r.ints(b));
+        double[] bLat = r.doubles(b);
+        double[] bLng = r.doubles(b);
+        int[] gateOffsets = r.ints(b + 1);
+        String[] gates = resolve(strings, r.ints(gateOffsets[b]));
+        List<BuildingInfo> buildings = new ArrayList<>(b);
+        for (int k = 0; k < b; k++) {
+            BuildingInfo info = new BuildingInfo();
+            info.setId(bIds[k]);
+            info.setName(bNames[k]);
+            info.setLocation(Double.isNaN(bLat[k]) ? null : new Point(bLat[k], bLng[k]));
+            info.setGates(new ArrayList<>(Arrays.asList(gates).subList(gateOffsets[k], gateOffsets[k + 1])));
+            buildings.add(info);
+        }
+        return new Contents(graph, buildings);
+    }
+
+    private static void writeDerived(Writer w, Graph g) {
+        Graph.Derived d = g.derived();
+        w.ints(d.idSlots.length);
+        w.ints(d.idSlots);
+        w.ints(d.sources);
+        w.ints(d.inOffsets);
+        w.ints(d.inArcs);
+        if (d.adjacency[0].targets != g.targets)
+            throw new IllegalStateException("Profile 0 must share the base arrays");
+        w.ints(d.adjacency[0].arcs);
+        for (int p = 1; p < d.adjacency.length; p++) {
+            int same = p;
+            for (int q = 0; q < p && same == p; q++)
+                if (d.adjacency[q] == d.adjacency[p])
+                    same = q;
+            Graph.Adjacency adj = d.adjacency[p];
+            w.ints(same, adj.targets.length);
+            if (same != p)
+                continue;
+            w.ints(adj.offsets);
+            w.ints(adj.targets);
+            w.doubles(adj.weights);
+            w.ints(adj.arcs);
+        }
+    }
+
+    private static Graph.Derived readDerived(Reader r, int n, int m, int[] offsets, int[] targets,
+            double[] weights) throws IOException {
+        int[] idSlots = r.ints(r.ints(1)[0]);
+        int[] sources = r.ints(m);
+        int[] inOffsets = r.ints(n + 1);
+        int[] inArcs = r.ints(m);
+        Graph.Adjacency[] adjacency = new Graph.Adjacency[4];
+        adjacency[0] = new Graph.Adjacency(offsets, targets, weights, r.ints(m));
+        for (int p = 1; p < adjacency.length; p++) {
+            int[] head = r.ints(2);
+            int same = head[0], kept = head[1];
+            if (same < 0 || same > p)
+                throw new IOException("Bad adjacency profile reference: " + same);
+            adjacency[p] = same < p ? adjacency[same]
+                    : new Graph.Adjacency(r.ints(n + 1), r.ints(kept), r.doubles(kept), r.ints(kept));
+        }
+        return new Graph.Derived(idSlots, sources, inOffsets, inArcs, adjacency);
+    }
+
+    private static String[] resolve(String[] strings, int[] refs) {
+        String[] out = new String[refs.length];
+        for (int i = 0; i < refs.length; i++)
+            out[i] = refs[i] < 0 ? null : strings[refs[i]];
+        return out;
+    }
+
+    /** 중복 없는 문자열 표 (null은 -1) */
+    private static final class StringTable {
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private int bytes;
+
+        int ref(String s) {
+            if (s == null)
+                return -1;
+            return index.computeIfAbsent(s, k -> {
+                byte[] utf8 = k.getBytes(StandardCharsets.UTF_8);
+                values.add(utf8);
+                bytes += utf8.length;
+                return values.size() - 1;
+            });
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        int[] offsets() {
+            int[] offsets = new int[values.size() + 1];
+            for (int i = 0; i < values.size(); i++)
+                offsets[i + 1] = offsets[i] + values.get(i).length;
+            return offsets;
+        }
+
+        byte[] blob() {
+            byte[] blob = new byte[bytes];
+            int p = 0;
+            for (byte[] v : values) {
+                System.arraycopy(v, 0, blob, p, v.length);
+                p += v.length;
+            }
+            return blob;
+        }
+    }
+
+    /** 구역을 순서대로 이어 붙임 (각 구역 끝은 8바이트로 맞춤) */
+    private static final class Writer {
+        private final List<Object> sections = new ArrayList<>();
+        private long size;
+
+        void ints(int... values) {
+            sections.add(values);
+            size += align((long) values.length * Integer.BYTES);
+        }
+
+        void doubles(double[] values) {
+            sections.add(values);
+            size += align((long) values.length * Double.BYTES);
+        }
+
+        void bytes(byte[] values) {
+            sections.add(values);
+            size += align(values.length);
+        }
+
+        ByteBuffer finish() {
+            if (size > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Graph too large for a single graph file: " + size + " bytes");
+            ByteBuffer buf = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+            for (Object s : sections) {
+                if (s instanceof int[])
+                    buf.asIntBuffer().put((int[]) s);
+                else if (s instanceof double[])
+                    buf.asDoubleBuffer().put((double[]) s);
+                else
+                    buf.duplicate().put((byte[]) s);
+                buf.position(buf.position() + (int) align(sectionBytes(s)));
+            }
+            return buf.flip();
+        }
+
+        private static long sectionBytes(Object s) {
+            if (s instanceof int[])
+                return (long) ((int[]) s).length * Integer.BYTES;
+            if (s instanceof double[])
+                return (long) ((double[]) s).length * Double.BYTES;
+            return ((byte[]) s).length;
+        }
+    }
+
+    /** Writer와 같은 순서로 구역을 통째로 복사해 옴 */
+    private static final class Reader {
+        private final ByteBuffer buf;
+
+        Reader(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        int[] ints(int count) {
+            int[] out = new int[count];
+            buf.asIntBuffer().get(out);
+            skip((long) count * Integer.BYTES);
+            return out;
+        }
+
+        double[] doubles(int count) {
+            double[] out = new double[count];
+            buf.asDoubleBuffer().get(out);
+            skip((long) count * Double.BYTES);
+            return out;
+        }
+
+        byte[] bytes(int count) {
+            byte[] out = new byte[count];
+            buf.duplicate().get(out);
+            skip(count);
+            return out;
+        }
+
+        String[] strings(int count, int blobBytes) {
+            int[] offsets = ints(count + 1);
+            byte[] blob = bytes(blobBytes);
+            String[] out = new String[count];
+            for (int i = 0; i < count; i++)
+                out[i] = new String(blob, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+            return out;
+        }
+
+        private void skip(long bytes) {
+            buf.position(buf.position() + (int) align(bytes));
+        }
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
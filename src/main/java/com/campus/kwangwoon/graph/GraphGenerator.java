@@ -0,0 +1,292 @@
+package com.campus.kwangwoon.graph;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * 부하/규모 테스트용 합성 캠퍼스 데이터 생성기.
+ * - resources/data와 같은 형식의 meta.json, node.json, edge.json, building.json을 원하는 크기로 생성:
+ * main(outDir nodes [이름=값 ...]) 또는 generate(outDir, options)
+ * - 배치: 실제 캠퍼스 좌표를 중심으로 한 격자 + 좌표 잡음. 격자선 일부를 끊고, 칸마다 대각선은 최대 하나,
+ * 일부 엣지는 꺾인 geometry를 가짐. 잡음이 간격의 절반보다 작으므로 엣지끼리 교차하지 않는 평면 그래프
+ * - 노드/엣지의 계단·턱 비율과 빌딩 수, 빌딩별 게이트 수(칸의 네 모서리 노드 중에서 선택)를 조절 가능
+ * - 같은 옵션(seed 포함)이면 항상 같은 파일. 노드/엣지를 하나씩 스트리밍으로 쓰므로 100만 노드도 메모리 부담이 적음
+ */
+public final class GraphGenerator {
+
+    private static final double METERS_PER_DEG_LAT = 111_320.0;
+
+    private GraphGenerator() {
+    }
+
+    /** 생성 옵션. 기본값은 실제 데이터(resources/data)와 비슷한 비율 */
+    public static final class Options {
+        public int nodes = 10_000;
+        public long seed = 42;
+        // 실제 캠퍼스 노드 좌표 범위의 중심
+        public double centerLat = 37.6196;
+        public double centerLng = 127.0580;
+        public double spacingMeters = 20.0; // 격자 간격
+        public double jitter = 0.25; // 좌표 잡음 (간격 대비, 0 이상 0.5 미만)
+        public double edgeKeep = 0.9; // 격자선을 엣지로 남길 확률
+        public double diagonalRate = 0.05; // 칸마다 대각선 엣지를 추가할 확률
+        public double bendRate = 0.1; // 엣지에 꺾인 중간 좌표(geometry)를 넣을 확률
+        public double nodeStairRate = 0.05;
+        public double nodeCrubRate = 0.05;
+        public double edgeStairRate = 0.05;
+        public double edgeCrubRate = 0.05;
+        public int buildings = -1; // 음수면 노드 250개당 1개 (최소 1)
+        public int minGates = 1;
+        public int maxGates = 4; // 칸의 모서리 수보다 많을 수 없음
+    }
+
+    /** 생성 결과 요약 */
+    public static final class Summary {
+        public final int nodes;
+        public final int edges;
+        public final int buildings;
+
+        Summary(int nodes, int edges, int buildings) {
+            this.nodes = nodes;
+            this.edges = edges;
+            this.buildings = buildings;
+        }
+
+        @Override
+        public String toString() {
+            return "nodes=" + nodes + ", edges=" + edges + ", buildings=" + buildings;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: GraphGenerator <outDir> <nodes> [seed=42] [stair=0.05] [crub=0.05]"
+                    + " [buildings=N] [gates=1..4] [spacing=20] [keep=0.9]");
+            return;
+        }
+        Options opt = new Options();
+        opt.nodes = Integer.parseInt(args[1]);
+        for (int i = 2; i < args.length; i++) {
+            int eq = args[i].indexOf('=');
+            if (eq < 0)
+                throw new IllegalArgumentException("Expected name=value: " + args[i]);
+            String name = args[i].substring(0, eq), value = args[i].substring(eq + 1);
+            switch (name) {
+                case "seed" -> opt.seed = Long.parseLong(value);
+                case "stair" -> opt.nodeStairRate = opt.edgeStairRate = Double.parseDouble(value);
+                case "crub" -> opt.nodeCrubRate = opt.edgeCrubRate = Double.parseDouble(value);
+                case "buildings" -> opt.buildings = Integer.parseInt(value);
+                case "gates" -> {
+                    int dots = value.indexOf("..");
+                    opt.minGates = Integer.parseInt(dots < 0 ? value : value.substring(0, dots));
+                    opt.maxGates = Integer.parseInt(dots < 0 ? value : value.substring(dots + 2));
+                }
+                case "spacing" -> opt.spacingMeters = Double.parseDouble(value);
+                case "keep" -> opt.edgeKeep = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + name);
+            }
+        }
+        Path out = Paths.get(args[0]);
+        Summary summary = generate(out, opt);
+        System.out.println(summary + " -> " + out);
+    }
+
+    public static Summary generate(Path dir, Options opt) throws IOException {
+        validate(opt);
+        Files.createDirectories(dir);
+        Random rnd = new Random(opt.seed);
+        ObjectMapper om = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+        // 노드 k = (i, j) = (k / cols, k % cols), 마지막 행은 일부만 채움
+        int n = opt.nodes;
+        int cols = (int) Math.ceil(Math.sqrt(n));
+        int rows = (n + cols - 1) / cols;
+        double dLat = opt.spacingMeters / METERS_PER_DEG_LAT;
+        double dLng = dLat / Math.cos(Math.toRadians(opt.centerLat));
+
+        // 빌딩 = 서로 다른 칸(네 모서리가 모두 있는 칸)을 하나씩 차지, 게이트는 그 칸의 모서리 노드
+        int cellCols = cols - 1;
+        int cells = countFullCells(n, rows, cols);
+        int buildingCount = opt.buildings >= 0 ? opt.buildings : Math.max(1, n / 250);
+        if (buildingCount > cells)
+            throw new IllegalArgumentException("Too many buildings for " + n + " nodes: " + buildingCount
+                    + " > " + cells);
+        int[] buildingCell = pickCells(cells, buildingCount, rnd);
+        int[][] buildingGates = new int[buildingCount][];
+        String[] gateName = new String[n];
+        for (int b = 0; b < buildingCount; b++) {
+            int ci = buildingCell[b] / cellCols, cj = buildingCell[b] % cellCols;
+            int[] corners = { ci * cols + cj, ci * cols + cj + 1, (ci + 1) * cols + cj, (ci + 1) * cols + cj + 1 };
+            shuffle(corners, rnd);
+            int count = opt.minGates + rnd.nextInt(opt.maxGates - opt.minGates + 1);
+            buildingGates[b] = new int[count];
+            for (int g = 0; g < count; g++) {
+                buildingGates[b][g] = corners[g];
+                if (gateName[corners[g]] == null)
+                    gateName[corners[g]] = "B" + b + "-Gate" + g;
+            }
+        }
+
+        om.writeValue(dir.resolve("meta.json").toFile(), new Graph.Meta());
+
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        try (JsonGenerator out = om.getFactory().createGenerator(dir.resolve("node.json").toFile(),
+                JsonEncoding.UTF8)) {
+            out.useDefaultPrettyPrinter();
+            out.writeStartArray();
+            for (int k = 0; k < n; k++) {
+                int i = k / cols, j = k % cols;
+                lat[k] = opt.centerLat + (i - rows / 2.0) * dLat + (rnd.nextDouble() - 0.5) * 2 * opt.jitter * dLat;
+                lng[k] = opt.centerLng + (j - cols / 2.0) * dLng + (rnd.nextDouble() - 0.5) * 2 * opt.jitter * dLng;
+                out.writeStartObject();
+                out.writeStringField("id", id(k, cols));
+                out.writeStringField("name", gateName[k] != null ? gateName[k] : id(k, cols));
+                out.writeObjectFieldStart("location");
+                out.writeNumberField("lat", lat[k]);
+                out.writeNumberField("lng", lng[k]);
+                out.writeEndObject();
+                out.writeBooleanField("stair", rnd.nextDouble() < opt.nodeStairRate);
+                out.writeBooleanField("crub", rnd.nextDouble() < opt.nodeCrubRate);
+                out.writeEndObject();
+            }
+            out.writeEndArray();
+        }
+
+        int edges = 0;
+        try (JsonGenerator out = om.getFactory().createGenerator(dir.resolve("edge.json").toFile(),
+                JsonEncoding.UTF8)) {
+            out.useDefaultPrettyPrinter();
+            out.writeStartArray();
+            for (int k = 0; k < n; k++) {
+                int j = k % cols;
+                int right = j + 1 < cols && k + 1 < n ? k + 1 : -1;
+                int down = k + cols < n ? k + cols : -1;
+                if (right >= 0 && rnd.nextDouble() < opt.edgeKeep)
+                    edges += writeEdge(out, k, right, cols, lat, lng, dLat, dLng, opt, rnd);
+                if (down >= 0 && rnd.nextDouble() < opt.edgeKeep)
+                    edges += writeEdge(out, k, down, cols, lat, lng, dLat, dLng, opt, rnd);
+                // 칸의 대각선은 둘 중 하나만 (두 대각선은 서로 교차)
+                if (right >= 0 && k + cols + 1 < n && rnd.nextDouble() < opt.diagonalRate) {
+                    if (rnd.nextBoolean())
+                        edges += writeEdge(out, k, k + cols + 1, cols, lat, lng, dLat, dLng, opt, rnd);
+                    else
+                        edges += writeEdge(out, right, down, cols, lat, lng, dLat, dLng, opt, rnd);
+                }
+            }
+            out.writeEndArray();
+        }
+
+        try (JsonGenerator out = om.getFactory().createGenerator(dir.resolve("building.json").toFile(),
+                JsonEncoding.UTF8)) {
+            out.useDefaultPrettyPrinter();
+            out.writeStartArray();
+            for (int b = 0; b < buildingCount; b++) {
+                int ci = buildingCell[b] / cellCols, cj = buildingCell[b] % cellCols;
+                int a = ci * cols + cj, c = (ci + 1) * cols + cj + 1;
+                out.writeStartObject();
+                out.writeStringField("id", "B" + b);
+                out.writeStringField("name", "Building " + b);
+                out.writeObjectFieldStart("location");
+                out.writeNumberField("lat", (lat[a] + lat[c]) / 2);
+                out.writeNumberField("lng", (lng[a] + lng[c]) / 2);
+                out.writeEndObject();
+                out.writeArrayFieldStart("gates");
+                for (int gate : buildingGates[b])
+                    out.writeString(id(gate, cols));
+                out.writeEndArray();
+                out.writeEndObject();
+            }
+            out.writeEndArray();
+        }
+        return new Summary(n, edges, buildingCount);
+    }
+
+    private static void validate(Options opt) {
+        if (opt.nodes < 4)
+            throw new IllegalArgumentException("nodes must be >= 4: " + opt.nodes);
+        if (!(opt.spacingMeters > 0))
+            throw new IllegalArgumentException("spacingMeters must be >0: " + opt.spacingMeters);
+        if (!(opt.jitter >= 0 && opt.jitter < 0.5))
+            throw new IllegalArgumentException("jitter must be in [0, 0.5): " + opt.jitter);
+        double[] rates = { opt.edgeKeep, opt.diagonalRate, opt.bendRate, opt.nodeStairRate, opt.nodeCrubRate,
+                opt.edgeStairRate, opt.edgeCrubRate };
+        for (double r : rates) {
+            if (!(r >= 0 && r <= 1))
+                throw new IllegalArgumentException("Rates must be in [0, 1]: " + r);
+        }
+        if (opt.minGates < 1 || opt.minGates > opt.maxGates || opt.maxGates > 4)
+            throw new IllegalArgumentException("Gate count must satisfy 1 <= min <= max <= 4: "
+                    + opt.minGates + ".." + opt.maxGates);
+    }
+
+    /** 네 모서리 노드가 모두 있는 칸 수 (칸 번호 = ci * (cols - 1) + cj 순서의 앞부분) */
+    private static int countFullCells(int n, int rows, int cols) {
+        int fullRows = n / cols; // 꽉 찬 행 수
+        int cells = (fullRows - 1) * (cols - 1);
+        int rest = n % cols; // 마지막 행이 일부만 있으면 그 위 칸 중 rest - 1개가 완전
+        if (rest > 1 && rows > fullRows)
+            cells += rest - 1;
+        return Math.max(cells, 0);
+    }
+
+    /** 0..cells-1 중 서로 다른 count개 (부분 Fisher-Yates: count가 작으면 해시 없이 배열만 사용) */
+    private static int[] pickCells(int cells, int count, Random rnd) {
+        int[] all = new int[cells];
+        for (int c = 0; c < cells; c++)
+            all[c] = c;
+        int[] picked = new int[count];
+        for (int b = 0; b < count; b++) {
+            int r = b + rnd.nextInt(cells - b);
+            int t = all[r];
+            all[r] = all[b];
+            all[b] = t;
+            picked[b] = t;
+        }
+        return picked;
+    }
+
+    private static void shuffle(int[] a, Random rnd) {
+        for (int i = a.length - 1; i > 0; i--) {
+            int r = rnd.nextInt(i + 1);
+            int t = a[r];
+            a[r] = a[i];
+            a[i] = t;
+        }
+    }
+
+    private static int writeEdge(JsonGenerator out, int from, int to, int cols, double[] lat, double[] lng,
+            double dLat, double dLng, Options opt, Random rnd) throws IOException {
+        out.writeStartObject();
+        out.writeStringField("from", id(from, cols));
+        out.writeStringField("to", id(to, cols));
+        // weight는 로드할 때 좌표로 다시 계산되지만, 파일만 봐도 알 수 있게 직선 거리를 기록
+        out.writeNumberField("weight", Graph.calculateDistance(lat[from], lng[from], lat[to], lng[to]));
+        out.writeBooleanField("stair", rnd.nextDouble() < opt.edgeStairRate);
+        out.writeBooleanField("crub", rnd.nextDouble() < opt.edgeCrubRate);
+        out.writeArrayFieldStart("geometry");
+        if (rnd.nextDouble() < opt.bendRate) {
+            // 중점을 옆으로 조금 민 꺾인 길 (간격의 10% 이내라 이웃 엣지와 교차하지 않음)
+            double bend = (rnd.nextDouble() - 0.5) * 0.2;
+            out.writeStartObject();
+            out.writeNumberField("lat", (lat[from] + lat[to]) / 2 + bend * dLat);
+            out.writeNumberField("lng", (lng[from] + lng[to]) / 2 - bend * dLng);
+            out.writeEndObject();
+        }
+        out.writeEndArray();
+        out.writeEndObject();
+        return 1;
+    }
+
+    private static String id(int k, int cols) {
+        return "N" + (k / cols) + "_" + (k % cols);
+    }
+}
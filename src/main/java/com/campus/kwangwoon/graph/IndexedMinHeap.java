@@ -0,0 +1,110 @@
+package com.campus.kwangwoon.graph;
+
+import java.util.Arrays;
+
+/**
+ * 노드 번호(int)를 원소로 갖는 이진 최소 힙.
+ * - pos[v]로 힙 안의 위치를 추적하므로 decrease-key가 O(log n)
+ * - 힙 밖의 노드는 항상 pos == -1 (clear()는 남아있는 원소만 되돌림)
+ */
+final class IndexedMinHeap {
+
+    private int[] heap; // 힙 위치 -> 노드
+    private double[] keys; // 힙 위치 -> 키
+    private int[] pos; // 노드 -> 힙 위치 (없으면 -1)
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[Math.max(capacity, 1)];
+        keys = new double[heap.length];
+        pos = new int[heap.length];
+        Arrays.fill(pos, -1);
+    }
+
+    /** 노드 수가 늘어난 그래프를 위해 공간 확보 */
+    void ensureCapacity(int n) {
+        if (pos.length >= n)
+            return;
+        int old = pos.length;
+        heap = Arrays.copyOf(heap, n);
+        keys = Arrays.copyOf(keys, n);
+        pos = Arrays.copyOf(pos, n);
+        Arrays.fill(pos, old, n, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int v) {
+        return pos[v] >= 0;
+    }
+
+    double peekKey() {
+        return keys[0];
+    }
+
+    /** 새 원소 삽입, 이미 있으면 키를 낮춤 (decrease-key) */
+    void insertOrDecrease(int v, double key) {
+        int i = pos[v];
+        if (i < 0) {
+            i = size++;
+        } else if (keys[i] <= key) {
+            return;
+        }
+        siftUp(i, v, key);
+    }
+
+    int pop() {
+        int top = heap[0];
+        pos[top] = -1;
+        int last = --size;
+        if (last > 0)
+            siftDown(0, heap[last], keys[last]);
+        return top;
+    }
+
+    /** 남은 원소들의 pos만 되돌림: O(남은 원소 수) */
+    void clear() {
+        for (int i = 0; i < size; i++)
+            pos[heap[i]] = -1;
+        size = 0;
+    }
+
+    private void siftUp(int i, int v, double key) {
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (keys[p] <= key)
+                break;
+            place(i, heap[p], keys[p]);
+            i = p;
+        }
+        place(i, v, key);
+    }
+
+    private void siftDown(int i, int v, double key) {
+        int n = size;
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= n)
+                break;
+            if (c + 1 < n && keys[c + 1] < keys[c])
+                c++;
+            if (keys[c] >= key)
+                break;
+            place(i, heap[c], keys[c]);
+            i = c;
+        }
+        place(i, v, key);
+    }
+
+    private void place(int i, int v, double key) {
+        heap[i] = v;
+        keys[i] = key;
+        pos[v] = i;
+    }
+}
@@ -0,0 +1,236 @@
+package com.campus.kwangwoon.graph;
+
+import java.util.function.IntConsumer;
+
+/**
+ * 평면(미터 단위 투영 좌표) 2차원 k-d 트리.
+ * - 원소는 int 값(노드 번호, 선분 번호 등)이고 좌표와 함께 트리 순서로 재배열해서 보관
+ * - 구간 [lo, hi)의 중앙값이 그 서브트리의 루트 (별도 노드 객체 없음)
+ */
+final class KdTree {
+
+    private final int[] items;
+    private final double[] xs;
+    private final double[] ys;
+
+    /** 전달받은 배열을 그대로 재배열해서 사용 (복사하지 않음) */
+    KdTree(int[] items, double[] xs, double[] ys) {
+        this.items = items;
+        this.xs = xs;
+        this.ys = ys;
+        build(0, items.length, 0);
+    }
+
+    int size() {
+        return items.length;
+    }
+
+    /** 가장 가까운 원소, 비어 있으면 -1 */
+    int nearest(double qx, double qy) {
+        if (items.length == 0)
+            return -1;
+        Nearest q = new Nearest(qx, qy);
+        q.search(0, items.length, 0);
+        return items[q.best];
+    }
+
+    /** 가까운 순서대로 최대 k개의 원소 */
+    int[] nearest(double qx, double qy, int k) {
+        k = Math.min(k, items.length);
+        if (k <= 0)
+            return new int[0];
+        KNearest q = new KNearest(qx, qy, k);
+        q.search(0, items.length, 0);
+        int[] out = q.drainAscending();
+        for (int i = 0; i < out.length; i++)
+            out[i] = items[out[i]];
+        return out;
+    }
+
+    /** 반경 r 안의 모든 원소를 순서 없이 전달 */
+    void forEachWithin(double qx, double qy, double r, IntConsumer action) {
+        within(0, items.length, 0, qx, qy, r * r, action);
+    }
+
+    // --- 구성: 축을 번갈아 가며 중앙값 기준으로 분할 (quickselect) ---
+
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1)
+            return;
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, (depth & 1) == 0 ? xs : ys);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    private void select(int left, int right, int k, double[] axis) {
+        while (right > left) {
+            double pivot = axis[(left + right) >>> 1];
+            int i = left, j = right;
+            while (i <= j) {
+                while (axis[i] < pivot)
+                    i++;
+                while (axis[j] > pivot)
+                    j--;
+                if (i <= j)
+                    swap(i++, j--);
+            }
+            if (k <= j)
+                right = j;
+            else if (k >= i)
+                left = i;
+            else
+                return;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int n = items[i];
+        items[i] = items[j];
+        items[j] = n;
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+    }
+
+    private double sq(int i, double qx, double qy) {
+        double dx = xs[i] - qx;
+        double dy = ys[i] - qy;
+        return dx * dx + dy * dy;
+    }
+
+    private double axisDiff(int i, int depth, double qx, double qy) {
+        return (depth & 1) == 0 ? qx - xs[i] : qy - ys[i];
+    }
+
+    private void within(int lo, int hi, int depth, double qx, double qy, double r2, IntConsumer action) {
+        if (lo >= hi)
+            return;
+        int mid = (lo + hi) >>> 1;
+        if (sq(mid, qx, qy) <= r2)
+            action.accept(items[mid]);
+        double diff = axisDiff(mid, depth, qx, qy);
+        if (diff < 0 || diff * diff <= r2)
+            within(lo, mid, depth + 1, qx, qy, r2, action);
+        if (diff >= 0 || diff * diff <= r2)
+            within(mid + 1, hi, depth + 1, qx, qy, r2, action);
+    }
+
+    private final class Nearest {
+        final double qx, qy;
+        int best = -1;
+        double bestSq = Double.POSITIVE_INFINITY;
+
+        Nearest(double qx, double qy) {
+            this.qx = qx;
+            this.qy = qy;
+        }
+
+        void search(int lo, int hi, int depth) {
+            if (lo >= hi)
+                return;
+            int mid = (lo + hi) >>> 1;
+            double d = sq(mid, qx, qy);
+            if (d < bestSq) {
+                bestSq = d;
+                best = mid;
+            }
+            double diff = axisDiff(mid, depth, qx, qy);
+            if (diff < 0) {
+                search(lo, mid, depth + 1);
+                if (diff * diff < bestSq)
+                    search(mid + 1, hi, depth + 1);
+            } else {
+                search(mid + 1, hi, depth + 1);
+                if (diff * diff < bestSq)
+                    search(lo, mid, depth + 1);
+            }
+        }
+    }
+
+    /** 크기 k의 최대 힙으로 현재까지의 k개 최근접 후보를 유지 */
+    private final class KNearest {
+        final double qx, qy;
+        final int[] heap;
+        final double[] keys;
+        int size;
+
+        KNearest(double qx, double qy, int k) {
+            this.qx = qx;
+            this.qy = qy;
+            this.heap = new int[k];
+            this.keys = new double[k];
+        }
+
+        double bound() {
+            return size < heap.length ? Double.POSITIVE_INFINITY : keys[0];
+        }
+
+        void search(int lo, int hi, int depth) {
+            if (lo >= hi)
+                return;
+            int mid = (lo + hi) >>> 1;
+            offer(mid, sq(mid, qx, qy));
+            double diff = axisDiff(mid, depth, qx, qy);
+            if (diff < 0) {
+                search(lo, mid, depth + 1);
+                if (diff * diff < bound())
+                    search(mid + 1, hi, depth + 1);
+            } else {
+                search(mid + 1, hi, depth + 1);
+                if (diff * diff < bound())
+                    search(lo, mid, depth + 1);
+            }
+        }
+
+        void offer(int i, double key) {
+            if (size < heap.length) {
+                int c = size++;
+                while (c > 0) {
+                    int p = (c - 1) >>> 1;
+                    if (keys[p] >= key)
+                        break;
+                    heap[c] = heap[p];
+                    keys[c] = keys[p];
+                    c = p;
+                }
+                heap[c] = i;
+                keys[c] = key;
+            } else if (key < keys[0]) {
+                siftDown(i, key, size);
+            }
+        }
+
+        private void siftDown(int i, double key, int n) {
+            int c = 0;
+            while (true) {
+                int l = 2 * c + 1;
+                if (l >= n)
+                    break;
+                if (l + 1 < n && keys[l + 1] > keys[l])
+                    l++;
+                if (keys[l] <= key)
+                    break;
+                heap[c] = heap[l];
+                keys[c] = keys[l];
+                c = l;
+            }
+            heap[c] = i;
+            keys[c] = key;
+        }
+
+        /** 힙을 비우면서 가까운 순서의 트리 위치 배열을 만듦 */
+        int[] drainAscending() {
+            int[] out = new int[size];
+            for (int n = size; n > 0; n--) {
+                out[n - 1] = heap[0];
+                if (n > 1)
+                    siftDown(heap[n - 1], keys[n - 1], n - 1);
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.campus.kwangwoon.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 경로를 지도에 바로 그릴 수 있게 바꾼 응답 (format=POLYLINE).
+ * - polyline: 노드 좌표와 엣지 geometry를 이어붙인 전체 경로, Google encoded polyline (정밀도 1e-5)
+ * - segments: 지나는 엣지마다 거리와 계단/턱 여부, polyline을 풀었을 때 그 구간이 시작하는 점 번호
+ * 노드 ID만 주는 기본 응답과 달리 /api/nodes 전체를 미리 받지 않아도 그릴 수 있음.
+ * GPS 출발 경로면 첫 점은 스내핑 지점이고 첫 구간은 그 지점 -> 첫 노드 (from = null)
+ */
+public final class RouteGeometry {
+
+    /** 경로 API 응답 형식 */
+    public enum Format {
+        /** 노드 ID 목록 (Router.RouteResult 그대로) */
+        PATH,
+        /** RouteGeometry */
+        POLYLINE
+    }
+
+    public static final class Segment {
+        public final String from; // GPS 출발 구간이면 null
+        public final String to;
+        public final double distance;
+        public final boolean stair;
+        public final boolean crub;
+        public final int pointIndex;
+
+        Segment(String from, String to, double distance, int flags, int pointIndex) {
+            this.from = from;
+            this.to = to;
+            this.distance = distance;
+            this.stair = (flags & Graph.STAIR_ANY) != 0;
+            this.crub = (flags & Graph.CRUB_ANY) != 0;
+            this.pointIndex = pointIndex;
+        }
+    }
+
+    public final List<String> path;
+    public final double cost;
+    public final boolean hasStair;
+    public final boolean hasCrub;
+    public final String polyline;
+    public final int points; // polyline 점 개수
+    public final List<Segment> segments;
+
+    private RouteGeometry(Router.RouteResult route, String polyline, int points, List<Segment> segments) {
+        this.path = route.path;
+        this.cost = route.cost;
+        this.hasStair = route.hasStair;
+        this.hasCrub = route.hasCrub;
+        this.polyline = polyline;
+        this.points = points;
+        this.segments = segments;
+    }
+
+    /**
+     * 탐색이 prevArc 체인에서 복원한 아크(route.arcs)를 따라 geometry를 이어붙임 (평행 엣지가 있어도 탐색이 실제로
+     * 지난 아크). 아크를 모르는 결과면 노드 사이 아크 중 옵션 기준 비용이 가장 작은 것.
+     * start가 있으면 스내핑 지점 -> 첫 노드 구간을 앞에 붙임
+     */
+    public static RouteGeometry of(Graph g, Router.RouteResult route, SpatialIndex.EdgeSnap start,
+            Router.Options opt) {
+        int block = opt == null ? 0 : opt.blockMask();
+        Points pts = new Points();
+        List<Segment> segments = new ArrayList<>(route.path.size());
+        int first = g.indexOf(route.path.get(0));
+
+        if (start != null) {
+            // 경로는 스내핑된 엣지의 한쪽 끝 노드에서 시작하므로 그 노드로 가는 아크 방향으로 절반만 그림
+            int arc = g.targets[start.arc] == first ? start.arc : g.oppositeArc(start.arc);
+            if (arc < 0 || g.targets[arc] != first)
+                throw new IllegalStateException("Route does not start at the snapped edge: " + route.path.get(0));
+            double fraction = arc == start.arc ? start.fraction : 1 - start.fraction;
+            int index = pts.size;
+            pts.add(start.lat, start.lng);
+            double[] along = alongFractions(g, arc);
+            for (int i = 0; i < g.arcGeometrySize(arc); i++)
+                if (along[i] > fraction)
+                    pts.add(g.arcGeometryLat(arc, i), g.arcGeometryLng(arc, i));
+            segments.add(new Segment(null, route.path.get(0), (1 - fraction) * g.weights[arc], g.arcFlags[arc], index));
+        }
+        pts.add(g.lat(first), g.lng(first));
+
+        int u = first;
+        for (int i = 1; i < route.path.size(); i++) {
+            int v = g.indexOf(route.path.get(i));
+            int arc = route.arcs != null ? route.arcs[i - 1] : arcBetween(g, u, v, block, opt);
+            if (g.sources[arc] != u || g.targets[arc] != v)
+                throw new IllegalStateException("Route arc does not match its nodes: " + g.idOf(u) + " -> "
+                        + g.idOf(v));
+            int index = pts.size - 1;
+            for (int k = 0; k < g.arcGeometrySize(arc); k++)
+                pts.add(g.arcGeometryLat(arc, k), g.arcGeometryLng(arc, k));
+            pts.add(g.lat(v), g.lng(v));
+            segments.add(new Segment(g.idOf(u), g.idOf(v), g.weights[arc], g.arcFlags[arc], index));
+            u = v;
+        }
+        return new RouteGeometry(route, encode(pts.lat, pts.lng, pts.size), pts.size, segments);
+    }
+
+    /** u -> v 아크 중 옵션이 허용하고 비용(costModel이 있으면 벌점 포함)이 가장 작은 것 */
+    private static int arcBetween(Graph g, int u, int v, int block, Router.Options opt) {
+        CostModel model = opt == null ? null : opt.costModel;
+        int best = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int a = g.offsets[u], end = g.offsets[u + 1]; a < end; a++) {
+            if (g.targets[a] != v || (g.arcFlags[a] & block) != 0)
+                continue;
+            double cost = model == null ? g.weights[a] : model.cost(g.weights[a], g.arcFlags[a]);
+            if (cost < bestCost) {
+                best = a;
+                bestCost = cost;
+            }
+        }
+        if (best < 0)
+            throw new IllegalStateException("No arc between consecutive route nodes: " + g.idOf(u) + " -> "
+                    + g.idOf(v));
+        return best;
+    }
+
+    /** 아크 geometry의 각 중간 점이 출발 노드에서 얼마나 떨어져 있는지 (폴리라인 길이 대비 0~1) */
+    private static double[] alongFractions(Graph g, int arc) {
+        int n = g.arcGeometrySize(arc);
+        double[] along = new double[n];
+        double prevLat = g.lat(g.sources[arc]);
+        double prevLng = g.lng(g.sources[arc]);
+        double len = 0;
+        for (int i = 0; i < n; i++) {
+            double lat = g.arcGeometryLat(arc, i);
+            double lng = g.arcGeometryLng(arc, i);
+            len += Graph.calculateDistance(prevLat, prevLng, lat, lng);
+            along[i] = len;
+            prevLat = lat;
+            prevLng = lng;
+        }
+        len += Graph.calculateDistance(prevLat, prevLng, g.lat(g.targets[arc]), g.lng(g.targets[arc]));
+        for (int i = 0; i < n; i++)
+            along[i] = len == 0 ? 0 : along[i] / len;
+        return along;
+    }
+
+    /** Google encoded polyline (정밀도 1e-5, 이전 점과의 차이를 5비트씩 인코딩) */
+    static String encode(double[] lat, double[] lng, int n) {
+        StringBuilder sb = new StringBuilder(n * 8);
+        long prevLat = 0;
+        long prevLng = 0;
+        for (int i = 0; i < n; i++) {
+            long la = Math.round(lat[i] * 1e5);
+            long ln = Math.round(lng[i] * 1e5);
+            encodeValue(sb, la - prevLat);
+            encodeValue(sb, ln - prevLng);
+            prevLat = la;
+            prevLng = ln;
+        }
+        return sb.toString();
+    }
+
+    private static void encodeValue(StringBuilder sb, long value) {
+        long v = value < 0 ? ~(value << 1) : value << 1;
+        while (v >= 0x20) {
+            sb.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>= 5;
+        }
+        sb.append((char) (v + 63));
+    }
+
+    /** 좌표를 이어붙이는 가변 배열 (좌표가 없는 노드는 건너뜀) */
+    private static final class Points {
+        double[] lat = new double[32];
+        double[] lng = new double[32];
+        int size;
+
+        void add(double la, double ln) {
+            if (Double.isNaN(la) || Double.isNaN(ln))
+                return;
+            if (size == lat.length) {
+                lat = Arrays.copyOf(lat, size * 2);
+                lng = Arrays.copyOf(lng, size * 2);
+            }
+            lat[size] = la;
+            lng[size] = ln;
+            size++;
+        }
+    }
+}
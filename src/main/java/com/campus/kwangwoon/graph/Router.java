@@ -1,14 +1,39 @@
 package com.campus.kwangwoon.graph;
 
-import com.campus.kwangwoon.model.Edge;
-import com.campus.kwangwoon.model.Node; // [필수] Node import 추가
 import java.util.*;
+import java.util.function.Function;
 
 public class Router {
 
+    private static final int[] NO_TARGETS = new int[0];
+    /** 벌점 탐색(costModel)의 지표용 알고리즘 이름 */
+    static final String PENALTY_ALGORITHM = "PENALTY";
+    /** 계단/턱 수 상한 탐색의 상태(노드 x 층) 수 상한: 스레드마다 이만큼의 작업 공간까지 남겨 두고 재사용 */
+    static final int MAX_PENALTY_STATES = 1 << 20;
+
+    /** 탐색 알고리즘 선택 */
+    public enum Algorithm {
+        DIJKSTRA,
+        /** 목적지까지의 대원거리(haversine)를 휴리스틱으로 쓰는 A* */
+        ASTAR,
+        /** 출발지(정방향)와 목적지(역방향 인접)에서 동시에 넓혀가는 양방향 Dijkstra */
+        BIDIRECTIONAL
+    }
+
     public static final class Options {
         public boolean avoidStair = false;
         public boolean avoidCrub = false;
+        public Algorithm algorithm = Algorithm.DIJKSTRA;
+        /**
+         * (선택) 계단/턱 벌점 모델. 있으면 shortestPath/shortestPathToAny는 algorithm과 관계없이 벌점 Dijkstra
+         * (avoidStair/avoidCrub로 막은 아크는 그대로 제외). 결과 cost는 벌점이 아닌 실제 거리
+         */
+        public CostModel costModel = null;
+
+        /** 탐색에서 제외할 아크 플래그 마스크 (엣지 + 도착 노드 속성) */
+        int blockMask() {
+            return (avoidStair ? Graph.STAIR_ANY : 0) | (avoidCrub ? Graph.CRUB_ANY : 0);
+        }
     }
 
     public static final class RouteResult {
@@ -16,110 +41,802 @@ public class Router {
         public final double cost;
         public final boolean hasStair;
         public final boolean hasCrub;
+        public final int settled; // 탐색 중 확정(settle)된 노드 수
+        public final int relaxed; // 탐색 중 거리가 갱신(relax)된 횟수
+        // path 순서대로 탐색이 실제로 고른 아크 (path.size() - 1개, JSON에는 나가지 않음). 모르면 null
+        final int[] arcs;
 
         public RouteResult(List<String> path, double cost, boolean hasStair, boolean hasCrub) {
+            this(path, cost, hasStair, hasCrub, 0, 0);
+        }
+
+        public RouteResult(List<String> path, double cost, boolean hasStair, boolean hasCrub, int settled,
+                int relaxed) {
+            this(path, cost, hasStair, hasCrub, settled, relaxed, null);
+        }
+
+        RouteResult(List<String> path, double cost, boolean hasStair, boolean hasCrub, int settled, int relaxed,
+                int[] arcs) {
             this.path = path;
             this.cost = cost;
             this.hasStair = hasStair;
             this.hasCrub = hasCrub;
+            this.settled = settled;
+            this.relaxed = relaxed;
+            this.arcs = arcs;
+        }
+
+        /** 같은 경로에 settled/relaxed만 0인 결과 (캐시에서 꺼낸 결과처럼 이번에 탐색하지 않은 경우) */
+        public RouteResult withoutSearchStats() {
+            return new RouteResult(path, cost, hasStair, hasCrub, 0, 0, arcs);
+        }
+    }
+
+    /** 도보 예산 안에 도달 가능한 노드 (distance에는 입력 좌표 -> 투영점 거리도 포함) */
+    public static final class ReachedNode {
+        public final String id;
+        public final double lat;
+        public final double lng;
+        public final double distance;
+
+        ReachedNode(String id, double lat, double lng, double distance) {
+            this.id = id;
+            this.lat = lat;
+            this.lng = lng;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * 도달 가능한 엣지 구간: 아크 from -> to 위의 [startFraction, endFraction] (0 = from, 1 = to).
+     * 양방향 엣지(유향 데이터면 서로 반대 방향인 엣지 쌍)는 한쪽 아크로 한 번만 나오고, 양 끝에서 걸어 들어와도
+     * 가운데가 남으면 구간이 두 개. 계단/턱 회피 시 도착 노드가 막힌 엣지도 그 노드 앞까지는 나옴
+     */
+    public static final class ReachedEdge {
+        public final String from;
+        public final String to;
+        public final double startFraction;
+        public final double endFraction;
+
+        ReachedEdge(String from, String to, double startFraction, double endFraction) {
+            this.from = from;
+            this.to = to;
+            this.startFraction = startFraction;
+            this.endFraction = endFraction;
         }
     }
 
+    /** 도달 범위(isochrone) 결과: 노드는 거리 순, 엣지는 도달 가능한 부분만 */
+    public static final class ReachResult {
+        public final double maxMeters;
+        public final double snapDistance; // 입력 좌표 -> 투영점 (예산에서 먼저 차감)
+        public final List<ReachedNode> nodes;
+        public final List<ReachedEdge> edges;
+        public final int settled;
+        public final int relaxed;
+
+        ReachResult(double maxMeters, double snapDistance, List<ReachedNode> nodes, List<ReachedEdge> edges,
+                int settled, int relaxed) {
+            this.maxMeters = maxMeters;
+            this.snapDistance = snapDistance;
+            this.nodes = nodes;
+            this.edges = edges;
+            this.settled = settled;
+            this.relaxed = relaxed;
+        }
+    }
+
+    /**
+     * 탐색 한 번이 끝날 때마다 작업량과 단계별 소요 시간을 받는 쪽 (운영 지표 수집용).
+     * 탐색한 스레드에서 바로 호출되므로 가볍게 처리할 것. 경로가 없으면 reconstructNanos = 0
+     */
+    public interface SearchListener {
+        void searched(String algorithm, int settled, int relaxed, long searchNanos, long reconstructNanos);
+    }
+
+    private static volatile SearchListener searchListener;
+
+    /** 탐색 지표 수집기 등록 (null이면 해제) */
+    public static void setSearchListener(SearchListener listener) {
+        searchListener = listener;
+    }
+
+    /** 탐색(start ~ searched)과 경로 복원(searched ~ 지금) 시간을 등록된 수집기에 전달 */
+    static void report(String algorithm, SearchState fw, SearchState bw, long start, long searched,
+            boolean found) {
+        SearchListener listener = searchListener;
+        if (listener == null)
+            return;
+        listener.searched(algorithm, fw.settled() + (bw == null ? 0 : bw.settled()),
+                fw.relaxed() + (bw == null ? 0 : bw.relaxed()), searched - start,
+                found ? System.nanoTime() - searched : 0);
+    }
+
+    private static String algorithmName(Options opt) {
+        return (opt == null ? Algorithm.DIJKSTRA : opt.algorithm).name();
+    }
+
     public static RouteResult shortestPath(Graph g, String src, String dst, Options opt) {
-        if (g.getNode(src) == null)
+        int s = g.indexOf(src);
+        int t = g.indexOf(dst);
+        if (s < 0)
             throw new IllegalArgumentException("Unknown source");
-        if (g.getNode(dst) == null)
+        if (t < 0)
             throw new IllegalArgumentException("Unknown target");
-        if (src.equals(dst))
-            return new RouteResult(List.of(src), 0.0, false, false);
+        return search(g, s, new int[] { t }, opt);
+    }
+
+    /**
+     * 출발지 하나에서 여러 목적지 중 가장 가까운 곳까지의 경로.
+     * 처음으로 확정(settle)되는 목적지에서 탐색을 멈추므로 목적지 수와 무관하게 탐색은 한 번.
+     * 예: /api/find 에서 빌딩의 여러 게이트 중 최적 게이트 찾기
+     */
+    public static RouteResult shortestPathToAny(Graph g, String src, Collection<String> dsts, Options opt) {
+        int s = g.indexOf(src);
+        if (s < 0)
+            throw new IllegalArgumentException("Unknown source");
+        return search(g, s, resolveTargets(g, dsts), opt);
+    }
 
-        Map<String, Double> dist = new HashMap<>();
-        Map<String, String> prev = new HashMap<>();
-        for (var n : g.nodes())
-            dist.put(n.getId(), Double.POSITIVE_INFINITY);
-        dist.put(src, 0.0);
+    /**
+     * GPS 위치를 엣지 위로 스내핑한 지점(start)에서 출발하는 경로.
+     * 그래프를 복사/수정하지 않고, 스내핑된 아크의 양 끝 노드를 남은 거리만큼의 초기 비용으로
+     * 동시에 출발점으로 넣음 (역방향 아크가 없으면 진행 방향 끝만).
+     * cost에는 입력 좌표 -> 투영점 거리와 투영점 -> 첫 노드까지의 엣지 구간 거리가 포함됨.
+     */
+    public static RouteResult shortestPathToAny(Graph g, SpatialIndex.EdgeSnap start, Collection<String> dsts,
+            Options opt) {
+        int[] ts = resolveTargets(g, dsts);
+        if (opt != null && opt.costModel != null)
+            return penaltySearch(g, -1, start, ts, opt);
+        int block = opt == null ? 0 : opt.blockMask();
+        boolean astar = opt != null && opt.algorithm == Algorithm.ASTAR;
+        boolean bidirectional = opt != null && opt.algorithm == Algorithm.BIDIRECTIONAL;
 
-        PriorityQueue<String> pq = new PriorityQueue<>(Comparator.comparingDouble(dist::get));
-        pq.add(src);
+        long started = System.nanoTime();
+        SearchState st = SearchState.acquire(g.nodeCount());
+        if (!bidirectional)
+            for (int t : ts)
+                st.markTarget(t);
+        int fwd = start.arc;
+        int back = g.oppositeArc(fwd);
+        // 진행 방향: 투영점 -> to 노드
+        if ((g.arcFlags[fwd] & block) == 0)
+            seed(g, st, g.targets[fwd], (1 - start.fraction) * g.weights[fwd], ts, astar);
+        // 반대 방향: 투영점 -> from 노드 (같은 길을 반대로 가는 아크로 판단, 유향 데이터면 따로 입력된 아크)
+        if (back >= 0 && (g.arcFlags[back] & block) == 0)
+            seed(g, st, g.targets[back], start.fraction * g.weights[back], ts, astar);
 
-        while (!pq.isEmpty()) {
-            String u = pq.poll();
-            if (u.equals(dst))
-                break;
+        SearchState bw = bidirectional ? seedReverse(g, ts) : null;
+        int found = bidirectional ? meet(g, st, bw, block) : run(g, st, ts, block, astar);
+        long searched = System.nanoTime();
+        if (found < 0) {
+            report(algorithmName(opt), st, bw, started, searched, false);
+            return null;
+        }
+        // 출발 구간에서 지난 아크의 계단/턱도 결과에 반영
+        int root = root(g, st, found);
+        int startArc = root == g.targets[fwd] ? fwd : back;
+        RouteResult result = buildResult(g, found, st, bw, start.distance, g.arcFlags[startArc]);
+        report(algorithmName(opt), st, bw, started, searched, true);
+        return result;
+    }
 
-            for (Edge e : g.outgoing(u)) {
-                // ▼▼▼ [수정 1] 탐색 중 필터링 로직 강화 (노드 속성까지 검사) ▼▼▼
-                Node targetNode = g.getNode(e.getTo()); // 도착 노드 정보 가져오기
+    /**
+     * 스내핑된 지점에서 출발할 때 실제로 출발점이 되는 노드 (opt로 막히지 않은 진행/반대 방향 아크의 도착 노드).
+     * 아래 조합용 shortestPathToAny가 fromNode로 묻는 노드가 바로 이 목록
+     */
+    public static List<String> startNodes(Graph g, SpatialIndex.EdgeSnap start, Options opt) {
+        int block = opt == null ? 0 : opt.blockMask();
+        List<String> nodes = new ArrayList<>(2);
+        for (int arc : new int[] { start.arc, g.oppositeArc(start.arc) })
+            if (arc >= 0 && (g.arcFlags[arc] & block) == 0)
+                nodes.add(g.idOf(g.targets[arc]));
+        return nodes;
+    }
 
-                if (opt != null) {
-                    // 1. 엣지 자체 검사
-                    if (opt.avoidStair && e.isStair())
-                        continue;
-                    if (opt.avoidCrub && e.isCrub())
-                        continue;
+    /**
+     * shortestPathToAny(EdgeSnap...)와 같은 의미이지만, 엣지 양 끝 노드에서의 노드 출발 경로(fromNode)
+     * 두 개를 조합해서 계산. 캐시에 양 끝 노드의 결과가 모두 있을 때 GPS 출발 질의에 재사용하는 용도
+     * (하나라도 없으면 노드 출발 탐색을 두 번 하는 것보다 두 출발점을 넣은 탐색 한 번이 나음).
+     */
+    public static RouteResult shortestPathToAny(Graph g, SpatialIndex.EdgeSnap start, Options opt,
+            Function<String, RouteResult> fromNode) {
+        int block = opt == null ? 0 : opt.blockMask();
+        int fwd = start.arc;
+        int[] arcs = { fwd, g.oppositeArc(fwd) };
+        RouteResult best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestFlags = 0;
+        int settled = 0;
+        int relaxed = 0;
+        for (int arc : arcs) {
+            if (arc < 0 || (g.arcFlags[arc] & block) != 0)
+                continue;
+            // 투영점 -> 이 아크의 도착 노드까지 남은 구간
+            double offset = (arc == fwd ? 1 - start.fraction : start.fraction) * g.weights[arc];
+            RouteResult r = fromNode.apply(g.idOf(g.targets[arc]));
+            if (r == null)
+                continue;
+            settled += r.settled;
+            relaxed += r.relaxed;
+            if (offset + r.cost < bestCost) {
+                best = r;
+                bestCost = offset + r.cost;
+                bestFlags = g.arcFlags[arc];
+            }
+        }
+        if (best == null)
+            return null;
+        return new RouteResult(best.path, bestCost + start.distance,
+                best.hasStair || (bestFlags & Graph.STAIR_ANY) != 0,
+                best.hasCrub || (bestFlags & Graph.CRUB_ANY) != 0, settled, relaxed, best.arcs);
+    }
 
-                    // 2. 도착 노드 검사 (여기가 핵심!)
-                    if (targetNode != null) {
-                        if (opt.avoidStair && targetNode.isStair())
-                            continue;
-                        if (opt.avoidCrub && targetNode.isCrub())
-                            continue;
-                    }
+    /**
+     * 출발지 하나에서 여러 목적지 "각각"까지의 경로 (일대다, 배치 질의용).
+     * 모든 목적지가 확정될 때까지 한 번만 넓히므로 목적지마다 따로 탐색하는 것보다 훨씬 적게 확정함.
+     * 결과는 dsts와 같은 순서, 도달할 수 없는 목적지는 null (같은 목적지가 여러 번 있어도 됨).
+     * 여러 목적지를 한꺼번에 확정해야 하므로 opt.algorithm과 무관하게 Dijkstra 사용.
+     */
+    public static List<RouteResult> shortestPaths(Graph g, String src, List<String> dsts, Options opt) {
+        int s = g.indexOf(src);
+        if (s < 0)
+            throw new IllegalArgumentException("Unknown source");
+        int[] ts = resolveTargets(g, dsts);
+        int block = opt == null ? 0 : opt.blockMask();
+
+        long started = System.nanoTime();
+        SearchState st = SearchState.acquire(g.nodeCount());
+        int remaining = markTargets(st, ts);
+        st.relax(s, 0.0, -1);
+        runUntilSettled(g, st, remaining, block);
+        long searched = System.nanoTime();
+        List<RouteResult> results = new ArrayList<>(ts.length);
+        for (int t : ts)
+            results.add(st.reached(t) ? buildResult(g, t, st, null, 0.0, 0) : null);
+        report(Algorithm.DIJKSTRA.name(), st, null, started, searched, true);
+        return results;
+    }
+
+    /**
+     * 여러 출발지(모두 거리 0에서 동시에 출발) -> 각 목적지까지의 최단 거리만 (경로 복원 없음).
+     * 예: 빌딩 거리 행렬에서 출발 빌딩의 게이트 전체를 한 번에 출발점으로 넣음.
+     * 모든 목적지가 확정되면 멈춤. 결과는 dsts와 같은 순서, 도달할 수 없으면 +Infinity
+     */
+    public static double[] distances(Graph g, Collection<String> srcs, List<String> dsts, Options opt) {
+        int[] ss = resolveTargets(g, srcs);
+        int[] ts = resolveTargets(g, dsts);
+        int block = opt == null ? 0 : opt.blockMask();
+
+        long started = System.nanoTime();
+        SearchState st = SearchState.acquire(g.nodeCount());
+        int remaining = markTargets(st, ts);
+        for (int s : ss)
+            st.relax(s, 0.0, -1);
+        runUntilSettled(g, st, remaining, block);
+        double[] dist = new double[ts.length];
+        for (int i = 0; i < ts.length; i++)
+            dist[i] = st.dist(ts[i]);
+        report(Algorithm.DIJKSTRA.name(), st, null, started, System.nanoTime(), false);
+        return dist;
+    }
+
+    /**
+     * GPS 스내핑 지점(start)에서 maxMeters 안에 걸어서 닿는 노드와 엣지 구간 (도달 범위, isochrone).
+     * 출발은 shortestPathToAny(EdgeSnap...)와 같고, 힙 최소 거리가 예산을 넘으면 멈추는 Dijkstra라서
+     * 작업량은 그래프 전체가 아니라 도달 범위(확정 노드와 그 아크)에 비례.
+     * 입력 좌표 -> 투영점 거리는 예산에서 먼저 빼므로 그보다 예산이 작으면 빈 결과
+     */
+    public static ReachResult reach(Graph g, SpatialIndex.EdgeSnap start, double maxMeters, Options opt) {
+        int[] offsets = g.offsets;
+        int[] targets = g.targets;
+        double[] weights = g.weights;
+        byte[] arcFlags = g.arcFlags;
+        int block = opt == null ? 0 : opt.blockMask();
+        // 엣지 구간은 엣지 속성으로만 자름 (도착 노드가 계단/턱이라 들어갈 수 없어도 그 앞까지는 걸을 수 있음)
+        int edgeBlock = block & (Graph.EDGE_STAIR | Graph.EDGE_CRUB);
+        double budget = maxMeters - start.distance; // 투영점에서 그래프를 따라 걸을 수 있는 거리
+        int fwd = start.arc;
+        int back = g.oppositeArc(fwd); // 같은 길을 반대로 가는 아크
+        boolean fwdOpen = (arcFlags[fwd] & block) == 0;
+        boolean backOpen = back >= 0 && (arcFlags[back] & block) == 0;
+
+        long started = System.nanoTime();
+        SearchState st = SearchState.acquire(g.nodeCount());
+        int[] order = new int[16]; // 확정 순서 (거리 오름차순)
+        int count = 0;
+        if (budget >= 0) {
+            if (fwdOpen && (1 - start.fraction) * weights[fwd] <= budget)
+                st.relax(targets[fwd], (1 - start.fraction) * weights[fwd], -1);
+            if (backOpen && start.fraction * weights[back] <= budget)
+                st.relax(targets[back], start.fraction * weights[back], -1);
+            Graph.Adjacency adj = g.adjacency(block);
+            while (!st.isEmpty()) {
+                int u = st.pop();
+                if (count == order.length)
+                    order = Arrays.copyOf(order, count * 2);
+                order[count++] = u;
+                double du = st.dist(u);
+                for (int i = adj.offsets[u], end = adj.offsets[u + 1]; i < end; i++) {
+                    int v = adj.targets[i];
+                    double nd = du + adj.weights[i];
+                    // 예산 밖 노드는 힙에 넣지 않으므로 힙이 비면 곧 예산 경계
+                    if (nd <= budget && nd < st.dist(v))
+                        st.relax(v, nd, adj.arcs[i]);
                 }
-                // ▲▲▲ [수정 끝] ▲▲▲
-
-                String v = e.getTo();
-                double nd = dist.get(u) + e.getWeight();
-                if (nd < dist.get(v)) {
-                    dist.put(v, nd);
-                    prev.put(v, u);
-                    pq.remove(v);
-                    pq.add(v);
+            }
+        }
+        long searched = System.nanoTime();
+
+        List<ReachedNode> nodes = new ArrayList<>(count);
+        List<ReachedEdge> edges = new ArrayList<>();
+        double[] iv = new double[6];
+        for (int i = 0; i < count; i++) {
+            int u = order[i];
+            double du = st.dist(u);
+            nodes.add(new ReachedNode(g.idOf(u), g.lat(u), g.lng(u), du + start.distance));
+            for (int a = offsets[u], end = offsets[u + 1]; a < end; a++) {
+                if (a == fwd || a == back || (arcFlags[a] & edgeBlock) != 0)
+                    continue; // 출발 엣지는 아래에서 따로
+                int v = targets[a];
+                int op = g.oppositeArc(a);
+                iv[0] = 0;
+                iv[1] = (budget - du) / weights[a];
+                int n = 1;
+                if (op >= 0 && (arcFlags[op] & edgeBlock) == 0 && st.reached(v)) {
+                    // 반대쪽 노드도 확정되어 같은 길을 보게 되므로 번호가 작은 아크에서만 기록
+                    if (op < a)
+                        continue;
+                    iv[2] = 1 - (budget - st.dist(v)) / weights[op];
+                    iv[3] = 1;
+                    n = 2;
                 }
+                addCovered(g, edges, a, iv, n);
             }
         }
+        if (budget >= 0) {
+            // 출발 엣지: 투영점에서 양쪽으로 + 양 끝 노드에서 걸어 들어온 부분 (fwd 아크 기준)
+            double w = weights[fwd];
+            boolean fwdWalk = (arcFlags[fwd] & edgeBlock) == 0;
+            boolean backWalk = back >= 0 && (arcFlags[back] & edgeBlock) == 0;
+            iv[0] = backWalk ? start.fraction - budget / w : start.fraction;
+            iv[1] = fwdWalk ? start.fraction + budget / w : start.fraction;
+            int n = 1;
+            int from = g.sources[fwd];
+            if (fwdWalk && st.reached(from)) {
+                iv[2 * n] = 0;
+                iv[2 * n + 1] = (budget - st.dist(from)) / w;
+                n++;
+            }
+            if (backWalk && st.reached(targets[fwd])) {
+                iv[2 * n] = 1 - (budget - st.dist(targets[fwd])) / weights[back];
+                iv[2 * n + 1] = 1;
+                n++;
+            }
+            addCovered(g, edges, fwd, iv, n);
+        }
+        ReachResult result = new ReachResult(maxMeters, start.distance, nodes, edges, st.settled(), st.relaxed());
+        report(Algorithm.DIJKSTRA.name(), st, null, started, searched, true);
+        return result;
+    }
 
-        if (!prev.containsKey(dst))
+    /** 아크 위 구간 n개([iv[2i], iv[2i + 1]])를 0~1로 자르고 합쳐서 결과에 추가 (길이 0 구간은 버림) */
+    private static void addCovered(Graph g, List<ReachedEdge> out, int arc, double[] iv, int n) {
+        // 구간은 최대 3개라서 삽입 정렬
+        for (int i = 1; i < n; i++) {
+            for (int j = i; j > 0 && iv[2 * j] < iv[2 * j - 2]; j--) {
+                double lo = iv[2 * j], hi = iv[2 * j + 1];
+                iv[2 * j] = iv[2 * j - 2];
+                iv[2 * j + 1] = iv[2 * j - 1];
+                iv[2 * j - 2] = lo;
+                iv[2 * j - 1] = hi;
+            }
+        }
+        String from = g.idOf(g.sources[arc]);
+        String to = g.idOf(g.targets[arc]);
+        double lo = Math.max(0, iv[0]);
+        double hi = Math.min(1, iv[1]);
+        for (int i = 1; i <= n; i++) {
+            if (i < n && iv[2 * i] <= hi) {
+                hi = Math.max(hi, Math.min(1, iv[2 * i + 1]));
+                continue;
+            }
+            if (hi > lo)
+                out.add(new ReachedEdge(from, to, lo, hi));
+            if (i < n) {
+                lo = Math.max(0, iv[2 * i]);
+                hi = Math.min(1, iv[2 * i + 1]);
+            }
+        }
+    }
+
+    /** 목적지 표시, 서로 다른 목적지 수를 반환 */
+    private static int markTargets(SearchState st, int[] ts) {
+        int distinct = 0;
+        for (int t : ts) {
+            if (!st.isTarget(t)) {
+                st.markTarget(t);
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * 표시한 목적지 remaining개가 모두 확정될 때까지 (또는 더 갈 곳이 없을 때까지) 넓힘.
+     * 끝나면 힙에서 꺼낸 목적지는 거리 확정, 도달하지 못한 목적지는 st.reached() == false
+     * (힙이 비어서 끝났다면 도달한 노드는 모두 확정된 상태)
+     */
+    private static void runUntilSettled(Graph g, SearchState st, int remaining, int block) {
+        Graph.Adjacency adj = g.adjacency(block);
+        int[] offsets = adj.offsets;
+        int[] targets = adj.targets;
+        double[] weights = adj.weights;
+        int[] arcs = adj.arcs;
+        while (remaining > 0 && !st.isEmpty()) {
+            int u = st.pop();
+            if (st.isTarget(u))
+                remaining--;
+            double du = st.dist(u);
+            for (int i = offsets[u], end = offsets[u + 1]; i < end; i++) {
+                int v = targets[i];
+                double nd = du + weights[i];
+                if (nd < st.dist(v))
+                    st.relax(v, nd, arcs[i]);
+            }
+        }
+    }
+
+    static int[] resolveTargets(Graph g, Collection<String> dsts) {
+        if (dsts.isEmpty())
+            throw new IllegalArgumentException("No target");
+        int[] ts = new int[dsts.size()];
+        int i = 0;
+        for (String dst : dsts) {
+            ts[i] = g.indexOf(dst);
+            if (ts[i] < 0)
+                throw new IllegalArgumentException("Unknown target");
+            i++;
+        }
+        return ts;
+    }
+
+    private static RouteResult search(Graph g, int s, int[] ts, Options opt) {
+        for (int t : ts)
+            if (t == s)
+                return new RouteResult(List.of(g.idOf(s)), 0.0, false, false, 0, 0, new int[0]);
+        if (opt != null && opt.costModel != null)
+            return penaltySearch(g, s, null, ts, opt);
+
+        // 도착 노드 속성은 arcFlags에 이미 합쳐져 있으므로 마스크 한 번으로 엣지/노드 모두 검사
+        int block = opt == null ? 0 : opt.blockMask();
+        // A*: 모든 엣지 가중치가 haversine 거리이므로 가장 가까운 목적지까지의 대원거리는 과대추정하지 않음
+        boolean astar = opt != null && opt.algorithm == Algorithm.ASTAR;
+
+        long started = System.nanoTime();
+        // 스레드별로 풀링된 작업 공간: 요청마다 dist/prev 배열을 만들지 않음
+        SearchState st = SearchState.acquire(g.nodeCount());
+        SearchState bw = null;
+        int found;
+        if (opt != null && opt.algorithm == Algorithm.BIDIRECTIONAL) {
+            st.relax(s, 0.0, -1);
+            bw = seedReverse(g, ts);
+            found = meet(g, st, bw, block);
+        } else {
+            for (int t : ts)
+                st.markTarget(t);
+            seed(g, st, s, 0.0, ts, astar);
+            found = run(g, st, ts, block, astar);
+        }
+        long searched = System.nanoTime();
+        RouteResult result = found < 0 ? null : buildResult(g, found, st, bw, 0.0, 0);
+        report(algorithmName(opt), st, bw, started, searched, found >= 0);
+        return result;
+    }
+
+    /**
+     * costModel 탐색: 회피 프로필 인접 배열 위에서, 같은 순서로 미리 계산한 벌점 포함 비용 배열(Graph.arcCosts)로
+     * 넓히는 Dijkstra. 계단/턱 수 상한이 0이면 그 아크를 막은 프로필과 같으므로 층 없이 그 프로필을 쓰고,
+     * 상한이 1 이상이면 상태 = 노드 x 층이고 층 번호 = 지난 계단 아크 수 + stairLayers * 지난 턱 아크 수
+     * (상한이 없는 쪽은 세지 않음). 노드 s에서 출발하거나(start == null), 스내핑 지점에서 양 끝 노드로 동시에 출발
+     */
+    private static RouteResult penaltySearch(Graph g, int s, SpatialIndex.EdgeSnap start, int[] ts, Options opt) {
+        CostModel model = opt.costModel;
+        model.validate();
+        int maxStairs = model.maxStairs;
+        int maxCrubs = model.maxCrubs;
+        int block = opt.blockMask() | (maxStairs == 0 ? Graph.STAIR_ANY : 0) | (maxCrubs == 0 ? Graph.CRUB_ANY : 0);
+        if (maxStairs == 0)
+            maxStairs = -1;
+        if (maxCrubs == 0)
+            maxCrubs = -1;
+        int stairLayers = model.stairLayers();
+        int layers = stairLayers * model.crubLayers();
+        if ((long) g.nodeCount() * layers > MAX_PENALTY_STATES)
+            throw new IllegalArgumentException("Too many search states for maxStairs/maxCrubs on this graph: "
+                    + (long) g.nodeCount() * layers);
+        Graph.Adjacency adj = g.adjacency(block);
+        int[] offsets = adj.offsets;
+        int[] targets = adj.targets;
+        int[] arcs = adj.arcs;
+        double[] costs = g.arcCosts(block, model);
+        byte[] arcFlags = g.arcFlags;
+
+        long started = System.nanoTime();
+        // 층이 여러 개면 상태 배열이 노드 수의 몇 배라서 일반 탐색과 다른 스레드별 작업 공간을 씀
+        SearchState st = layers == 1 ? SearchState.acquire(g.nodeCount())
+                : SearchState.acquireLayered(g.nodeCount() * layers);
+        for (int t : ts)
+            st.markTarget(t); // 목적지 표시는 노드 번호 (층과 무관)
+        int[] seedArcs = { -1, -1 }; // 스내핑 출발이면 각 출발 상태로 들어온 출발 엣지 아크
+        if (start == null) {
+            st.relax(s * layers, 0.0, -1);
+        } else {
+            int fwd = start.arc;
+            seedArcs[0] = fwd;
+            seedArcs[1] = g.oppositeArc(fwd);
+            for (int arc : seedArcs) {
+                if (arc < 0 || (arcFlags[arc] & block) != 0)
+                    continue;
+                int layer = nextLayer(arcFlags[arc], 0, stairLayers, maxStairs, maxCrubs);
+                if (layer < 0)
+                    continue;
+                double part = arc == fwd ? 1 - start.fraction : start.fraction;
+                st.relax(g.targets[arc] * layers + layer, part * model.cost(g.weights[arc], arcFlags[arc]), -1);
+            }
+        }
+
+        int found = -1;
+        while (!st.isEmpty()) {
+            int x = st.pop();
+            int u = layers == 1 ? x : x / layers;
+            if (st.isTarget(u)) {
+                found = x;
+                break;
+            }
+            double du = st.dist(x);
+            if (layers == 1) {
+                // 상한이 없으면 일반 Dijkstra와 같은 루프 (가중치 배열만 벌점 비용 배열)
+                for (int i = offsets[u], end = offsets[u + 1]; i < end; i++) {
+                    int v = targets[i];
+                    double nd = du + costs[i];
+                    if (nd < st.dist(v))
+                        st.relax(v, nd, arcs[i]);
+                }
+                continue;
+            }
+            int layer = x - u * layers;
+            for (int i = offsets[u], end = offsets[u + 1]; i < end; i++) {
+                int next = nextLayer(arcFlags[arcs[i]], layer, stairLayers, maxStairs, maxCrubs);
+                if (next < 0)
+                    continue;
+                int y = targets[i] * layers + next;
+                double nd = du + costs[i];
+                if (nd < st.dist(y))
+                    st.relax(y, nd, arcs[i]);
+            }
+        }
+        long searched = System.nanoTime();
+        if (found < 0) {
+            report(PENALTY_ALGORITHM, st, null, started, searched, false);
             return null;
+        }
+
+        // 상태 체인을 따라 복원 (이전 층 = 이번 아크에서 센 계단/턱을 뺀 층), cost는 실제 거리
+        List<String> path = new ArrayList<>();
+        List<Integer> pathArcs = new ArrayList<>();
+        double meters = 0;
+        int flags = 0;
+        int x = found;
+        for (int a = st.prevArc(x); a >= 0; a = st.prevArc(x)) {
+            path.add(g.idOf(x / layers));
+            pathArcs.add(a);
+            meters += g.weights[a];
+            flags |= arcFlags[a];
+            int layer = x % layers;
+            int stairs = layer % stairLayers - (maxStairs >= 0 && (arcFlags[a] & Graph.STAIR_ANY) != 0 ? 1 : 0);
+            int crubs = layer / stairLayers - (maxCrubs >= 0 && (arcFlags[a] & Graph.CRUB_ANY) != 0 ? 1 : 0);
+            x = g.sources[a] * layers + stairs + stairLayers * crubs;
+        }
+        int root = x / layers;
+        path.add(g.idOf(root));
+        Collections.reverse(path);
+        int[] arcArray = new int[pathArcs.size()];
+        for (int i = 0; i < arcArray.length; i++)
+            arcArray[i] = pathArcs.get(arcArray.length - 1 - i);
+        if (start != null) {
+            int arc = g.targets[seedArcs[0]] == root ? seedArcs[0] : seedArcs[1];
+            meters += (arc == seedArcs[0] ? 1 - start.fraction : start.fraction) * g.weights[arc] + start.distance;
+            flags |= arcFlags[arc];
+        }
+        RouteResult result = new RouteResult(path, meters, (flags & Graph.STAIR_ANY) != 0,
+                (flags & Graph.CRUB_ANY) != 0, st.settled(), st.relaxed(), arcArray);
+        report(PENALTY_ALGORITHM, st, null, started, searched, true);
+        return result;
+    }
 
-        LinkedList<String> path = new LinkedList<>();
-        String cur = dst;
-        path.addFirst(cur);
-        while (!cur.equals(src)) {
-            cur = prev.get(cur);
-            path.addFirst(cur);
-        }
-
-        // ▼▼▼ [수정 2] 결과 정보 생성 로직 강화 (노드 속성까지 검사) ▼▼▼
-        boolean hasStair = false;
-        boolean hasCrub = false;
-
-        for (int i = 0; i < path.size() - 1; i++) {
-            String u = path.get(i);
-            String v = path.get(i + 1);
-
-            for (Edge e : g.outgoing(u)) {
-                if (e.getTo().equals(v)) {
-                    // 1. 엣지 검사
-                    if (e.isStair())
-                        hasStair = true;
-                    if (e.isCrub())
-                        hasCrub = true;
-
-                    // 2. 도착 노드 검사
-                    Node targetNode = g.getNode(v);
-                    if (targetNode != null) {
-                        if (targetNode.isStair())
-                            hasStair = true;
-                        if (targetNode.isCrub())
-                            hasCrub = true;
+    /** 아크를 지난 뒤의 층, 상한을 넘으면 -1 */
+    private static int nextLayer(int flags, int layer, int stairLayers, int maxStairs, int maxCrubs) {
+        int stairs = layer % stairLayers;
+        int crubs = layer / stairLayers;
+        if (maxStairs >= 0 && (flags & Graph.STAIR_ANY) != 0 && ++stairs > maxStairs)
+            return -1;
+        if (maxCrubs >= 0 && (flags & Graph.CRUB_ANY) != 0 && ++crubs > maxCrubs)
+            return -1;
+        return stairs + stairLayers * crubs;
+    }
+
+    /** s에서 도달 가능한 모든 노드를 확정할 때까지 탐색 (전처리용, 작업 공간을 그대로 반환) */
+    static SearchState explore(Graph g, int s, int block) {
+        SearchState st = SearchState.acquire(g.nodeCount());
+        st.relax(s, 0.0, -1);
+        run(g, st, NO_TARGETS, block, false);
+        return st;
+    }
+
+    private static void seed(Graph g, SearchState st, int v, double cost, int[] ts, boolean astar) {
+        st.relax(v, cost, -1, astar ? cost + heuristic(g, v, ts) : cost);
+    }
+
+    /** 출발점이 들어간 작업 공간에서 첫 목적지가 확정될 때까지 탐색, 도달 못하면 -1 */
+    private static int run(Graph g, SearchState st, int[] ts, int block, boolean astar) {
+        // 막힌 아크를 미리 뺀 프로필 인접 배열이라 루프 안에서 플래그를 검사하지 않음
+        Graph.Adjacency adj = g.adjacency(block);
+        int[] offsets = adj.offsets;
+        int[] targets = adj.targets;
+        double[] weights = adj.weights;
+        int[] arcs = adj.arcs;
+
+        while (!st.isEmpty()) {
+            int u = st.pop();
+            if (st.isTarget(u))
+                return u;
+
+            double du = st.dist(u);
+            for (int i = offsets[u], end = offsets[u + 1]; i < end; i++) {
+                int v = targets[i];
+                double nd = du + weights[i];
+                if (nd < st.dist(v))
+                    st.relax(v, nd, arcs[i], astar ? nd + heuristic(g, v, ts) : nd);
+            }
+        }
+        return -1;
+    }
+
+    /** 역방향 작업 공간: 모든 목적지를 거리 0으로 넣으므로 "가장 가까운 목적지까지의 거리"를 넓혀감 */
+    private static SearchState seedReverse(Graph g, int[] ts) {
+        SearchState bw = SearchState.acquireReverse(g.nodeCount());
+        for (int t : ts)
+            bw.relax(t, 0.0, -1);
+        return bw;
+    }
+
+    /**
+     * 양방향 Dijkstra: 힙 최소값이 작은 쪽을 한 단계씩 넓히면서, 양쪽에 모두 도달한 노드를
+     * 만날 때마다 최단 후보(best)를 갱신. 두 힙 최소값의 합이 best 이상이 되면
+     * 더 짧은 경로는 없으므로 종료 (정방향과 같은 아크 마스크를 역방향에도 그대로 적용).
+     * 만나는 노드를 반환, 연결되지 않으면 -1.
+     */
+    private static int meet(Graph g, SearchState fw, SearchState bw, int block) {
+        // 정방향은 프로필 인접 배열, 역방향은 들어오는 아크 목록에서 플래그 검사
+        Graph.Adjacency adj = g.adjacency(block);
+        int[] offsets = adj.offsets;
+        int[] targets = adj.targets;
+        double[] weights = adj.weights;
+        int[] arcs = adj.arcs;
+        int[] inOffsets = g.inOffsets;
+        int[] inArcs = g.inArcs;
+        int[] sources = g.sources;
+        double[] arcWeights = g.weights;
+        byte[] arcFlags = g.arcFlags;
+
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        while (!fw.isEmpty() && !bw.isEmpty()) {
+            if (fw.peekKey() + bw.peekKey() >= best)
+                break;
+            if (fw.peekKey() <= bw.peekKey()) {
+                int u = fw.pop();
+                double du = fw.dist(u);
+                // 출발점이 곧 목적지인 경우 등 시드끼리 겹치는 경우
+                if (bw.reached(u) && du + bw.dist(u) < best) {
+                    best = du + bw.dist(u);
+                    meet = u;
+                }
+                for (int i = offsets[u], end = offsets[u + 1]; i < end; i++) {
+                    int v = targets[i];
+                    double nd = du + weights[i];
+                    if (fw.relax(v, nd, arcs[i]) && bw.reached(v) && nd + bw.dist(v) < best) {
+                        best = nd + bw.dist(v);
+                        meet = v;
                     }
-                    break;
                 }
+            } else {
+                int v = bw.pop();
+                double dv = bw.dist(v);
+                if (fw.reached(v) && dv + fw.dist(v) < best) {
+                    best = dv + fw.dist(v);
+                    meet = v;
+                }
+                // 역방향: v로 들어오는 아크 u -> v 를 거꾸로 따라감 (prevArc[u] = u에서 나가는 아크)
+                for (int i = inOffsets[v], end = inOffsets[v + 1]; i < end; i++) {
+                    int a = inArcs[i];
+                    if ((arcFlags[a] & block) != 0)
+                        continue;
+                    int u = sources[a];
+                    double nd = dv + arcWeights[a];
+                    if (bw.relax(u, nd, a) && fw.reached(u) && nd + fw.dist(u) < best) {
+                        best = nd + fw.dist(u);
+                        meet = u;
+                    }
+                }
+            }
+        }
+        return meet;
+    }
+
+    /** prevArc 체인의 시작 노드 (출발점) */
+    private static int root(Graph g, SearchState st, int t) {
+        int v = t;
+        for (int a = st.prevArc(v); a >= 0; a = st.prevArc(v))
+            v = g.sources[a];
+        return v;
+    }
+
+    /**
+     * prevArc 체인을 따라 경로와 계단/턱 여부를 복원.
+     * 양방향 탐색이면(bw != null) t는 만나는 노드이고, 그 뒤는 역방향 체인을 따라 목적지까지 이어붙임
+     */
+    private static RouteResult buildResult(Graph g, int t, SearchState st, SearchState bw, double extraCost,
+            int extraFlags) {
+        int flags = extraFlags;
+        int hops = 0;
+        for (int a = st.prevArc(t); a >= 0; a = st.prevArc(g.sources[a])) {
+            flags |= g.arcFlags[a];
+            hops++;
+        }
+        int tail = 0;
+        if (bw != null) {
+            for (int a = bw.prevArc(t); a >= 0; a = bw.prevArc(g.targets[a])) {
+                flags |= g.arcFlags[a];
+                tail++;
+            }
+        }
+        String[] path = new String[hops + tail + 1];
+        int[] arcs = new int[hops + tail];
+        int v = t;
+        for (int i = hops; i >= 0; i--) {
+            path[i] = g.idOf(v);
+            if (i > 0) {
+                arcs[i - 1] = st.prevArc(v);
+                v = g.sources[arcs[i - 1]];
             }
         }
-        // ▲▲▲ [수정 끝] ▲▲▲
+        v = t;
+        for (int i = hops + 1; i <= hops + tail; i++) {
+            arcs[i - 1] = bw.prevArc(v);
+            v = g.targets[arcs[i - 1]];
+            path[i] = g.idOf(v);
+        }
+        double cost = st.dist(t) + (bw == null ? 0.0 : bw.dist(t));
+        int settled = st.settled() + (bw == null ? 0 : bw.settled());
+        int relaxed = st.relaxed() + (bw == null ? 0 : bw.relaxed());
+        return new RouteResult(Arrays.asList(path), cost + extraCost,
+                (flags & Graph.STAIR_ANY) != 0, (flags & Graph.CRUB_ANY) != 0, settled, relaxed, arcs);
+    }
 
-        return new RouteResult(path, dist.get(dst), hasStair, hasCrub);
+    /** 노드 v에서 가장 가까운 목적지까지의 대원거리. 좌표가 없으면 0 (항상 허용 가능) */
+    private static double heuristic(Graph g, int v, int[] ts) {
+        double lat = g.lat(v);
+        double lng = g.lng(v);
+        double best = Double.POSITIVE_INFINITY;
+        for (int t : ts) {
+            double tLat = g.lat(t);
+            if (Double.isNaN(lat) || Double.isNaN(tLat))
+                return 0.0;
+            best = Math.min(best, Graph.calculateDistance(lat, lng, tLat, g.lng(t)));
+        }
+        return best;
     }
-}
\ No newline at end of file
+}
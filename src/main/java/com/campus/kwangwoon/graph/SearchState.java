@@ -0,0 +1,134 @@
+package com.campus.kwangwoon.graph;
+
+import java.util.Arrays;
+
+/**
+ * 스레드마다 재사용하는 탐색 작업 공간 (dist/prevArc 배열 + 인덱스 힙).
+ * - 요청마다 배열을 새로 만들지 않도록 ThreadLocal로 풀링
+ * - stamp[v] == generation 인 노드만 이번 탐색에서 값이 유효하므로
+ *   초기화 비용은 전체 노드 수가 아니라 이번에 건드린 노드 수에 비례
+ */
+final class SearchState {
+
+    private static final ThreadLocal<SearchState> POOL = ThreadLocal.withInitial(SearchState::new);
+    // 양방향 탐색의 역방향 쪽 작업 공간
+    private static final ThreadLocal<SearchState> REVERSE_POOL = ThreadLocal.withInitial(SearchState::new);
+    // 계단/턱 수 상한 탐색의 (노드 x 층) 작업 공간: 일반 탐색 공간이 층 수만큼 커지지 않도록 따로 둠
+    private static final ThreadLocal<SearchState> LAYERED_POOL = ThreadLocal.withInitial(SearchState::new);
+
+    private double[] dist = new double[0];
+    private int[] prevArc = new int[0];
+    private int[] stamp = new int[0];
+    private int[] targetStamp = new int[0]; // 목적지 표시 (stamp와 같은 세대 번호 사용)
+    private int generation;
+    private int settled; // 이번 탐색에서 힙에서 꺼낸(확정한) 노드 수
+    private int relaxed; // 이번 탐색에서 거리가 갱신된 횟수 (출발점 포함)
+    private final IndexedMinHeap heap = new IndexedMinHeap(16);
+
+    private SearchState() {
+    }
+
+    /** 현재 스레드의 작업 공간을 n개 노드용으로 초기화해서 반환 */
+    static SearchState acquire(int n) {
+        SearchState st = POOL.get();
+        st.reset(n);
+        return st;
+    }
+
+    /**
+     * 층 탐색(상태 = 노드 x 층)용 작업 공간 n개. acquire()와 같은 세대 번호 방식으로 재사용하므로
+     * 요청마다 배열을 만들지 않음 (스레드당 크기는 노드 수 x 허용한 층 수에 비례)
+     */
+    static SearchState acquireLayered(int n) {
+        SearchState st = LAYERED_POOL.get();
+        st.reset(n);
+        return st;
+    }
+
+    /** 양방향 탐색에서 acquire()와 동시에 쓰는 두 번째 작업 공간 */
+    static SearchState acquireReverse(int n) {
+        SearchState st = REVERSE_POOL.get();
+        st.reset(n);
+        return st;
+    }
+
+    private void reset(int n) {
+        if (stamp.length < n) {
+            int cap = Math.max(n, stamp.length * 2);
+            dist = Arrays.copyOf(dist, cap);
+            prevArc = Arrays.copyOf(prevArc, cap);
+            stamp = Arrays.copyOf(stamp, cap);
+            targetStamp = Arrays.copyOf(targetStamp, cap);
+            heap.ensureCapacity(cap);
+        }
+        heap.clear();
+        settled = 0;
+        relaxed = 0;
+        if (++generation == Integer.MAX_VALUE) {
+            // 세대 번호가 한 바퀴 돌면 스탬프 전체를 한 번 지움
+            Arrays.fill(stamp, 0);
+            Arrays.fill(targetStamp, 0);
+            generation = 1;
+        }
+    }
+
+    double dist(int v) {
+        return stamp[v] == generation ? dist[v] : Double.POSITIVE_INFINITY;
+    }
+
+    /** v에 도달한 아크 (출발점이거나 미방문이면 -1) */
+    int prevArc(int v) {
+        return stamp[v] == generation ? prevArc[v] : -1;
+    }
+
+    boolean reached(int v) {
+        return stamp[v] == generation;
+    }
+
+    void markTarget(int v) {
+        targetStamp[v] = generation;
+    }
+
+    boolean isTarget(int v) {
+        return targetStamp[v] == generation;
+    }
+
+    /** d가 기존 거리보다 짧으면 갱신하고 힙에 넣거나 키를 낮춤 */
+    boolean relax(int v, double d, int arc) {
+        return relax(v, d, arc, d);
+    }
+
+    /** relax()와 같지만 힙 우선순위를 따로 지정 (A*의 f = g + h) */
+    boolean relax(int v, double d, int arc, double key) {
+        if (stamp[v] == generation && d >= dist[v])
+            return false;
+        stamp[v] = generation;
+        dist[v] = d;
+        prevArc[v] = arc;
+        heap.insertOrDecrease(v, key);
+        relaxed++;
+        return true;
+    }
+
+    boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    /** 힙 최소 키 (비어 있지 않을 때만) */
+    double peekKey() {
+        return heap.peekKey();
+    }
+
+    int pop() {
+        settled++;
+        return heap.pop();
+    }
+
+    int settled() {
+        return settled;
+    }
+
+    int relaxed() {
+        return relaxed;
+    }
+}
@@ -0,0 +1,321 @@
+package com.campus.kwangwoon.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GPS 스내핑용 공간 색인.
+ * - 노드 좌표 k-d 트리: 가까운 노드 / k개 / 반경 검색
+ * - 엣지 선분 k-d 트리: 가장 가까운 엣지 위의 투영점 (geometry가 있으면 중간 좌표까지 사용)
+ * - 그래프 중심 기준의 등거리 원통 투영(미터 단위 x, y)에서 탐색하고,
+ * 결과 거리는 haversine으로 다시 계산해서 돌려줌 (캠퍼스 규모에서 투영 오차는 무시할 만함)
+ * - 좌표가 없는 노드와 그 노드에 붙은 엣지는 색인하지 않음
+ */
+public final class SpatialIndex {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+
+    public static final class Hit {
+        public final int node; // dense id
+        public final String nodeId;
+        public final double distance; // 미터 (haversine)
+
+        Hit(int node, String nodeId, double distance) {
+            this.node = node;
+            this.nodeId = nodeId;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * 엣지 위로 스내핑된 위치.
+     * arc(from -> to) 위에서 from으로부터 fraction(0~1) 만큼 떨어진 지점.
+     */
+    public static final class EdgeSnap {
+        public final int arc;
+        public final String from;
+        public final String to;
+        public final double fraction;
+        public final double lat; // 투영점 좌표
+        public final double lng;
+        public final double distance; // 입력 좌표 -> 투영점 거리 (미터, haversine)
+
+        EdgeSnap(int arc, String from, String to, double fraction, double lat, double lng, double distance) {
+            this.arc = arc;
+            this.from = from;
+            this.to = to;
+            this.fraction = fraction;
+            this.lat = lat;
+            this.lng = lng;
+            this.distance = distance;
+        }
+    }
+
+    private final Graph graph;
+    private final double lat0;
+    private final double lng0;
+    private final double cosLat0;
+    private final KdTree nodeTree;
+
+    // --- 선분 색인: 선분 k는 아크 segArc[k]의 폴리라인 위 (ax, ay) -> (bx, by) ---
+    private final KdTree segTree; // 선분 중점 색인
+    private final int[] segArc;
+    private final double[] segAx, segAy, segBx, segBy;
+    private final double[] segStart; // 폴리라인 시작점에서 이 선분 시작까지의 길이
+    private final double[] arcLength; // 아크별 폴리라인 전체 길이 (투영 좌표)
+    private final double maxHalfSegment; // 가장 긴 선분 길이의 절반 (탐색 반경 보정용)
+
+    private SpatialIndex(Graph graph) {
+        this.graph = graph;
+
+        int n = graph.nodeCount();
+        int[] ids = new int[n];
+        int count = 0;
+        double sumLat = 0, sumLng = 0;
+        for (int i = 0; i < n; i++) {
+            if (Double.isNaN(graph.lat(i)))
+                continue;
+            ids[count++] = i;
+            sumLat += graph.lat(i);
+            sumLng += graph.lng(i);
+        }
+        this.lat0 = count == 0 ? 0 : sumLat / count;
+        this.lng0 = count == 0 ? 0 : sumLng / count;
+        this.cosLat0 = Math.cos(Math.toRadians(lat0));
+
+        int[] items = new int[count];
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            items[i] = ids[i];
+            xs[i] = projectX(graph.lng(ids[i]));
+            ys[i] = projectY(graph.lat(ids[i]));
+        }
+        this.nodeTree = new KdTree(items, xs, ys);
+
+        // 선분 목록: 자동 생성된 역방향 아크는 같은 선분이므로 제외
+        int m = graph.arcCount();
+        int segs = 0;
+        for (int a = 0; a < m; a++)
+            if (indexable(a))
+                segs += pointCount(a) - 1;
+        this.arcLength = new double[m];
+        this.segArc = new int[segs];
+        this.segAx = new double[segs];
+        this.segAy = new double[segs];
+        this.segBx = new double[segs];
+        this.segBy = new double[segs];
+        this.segStart = new double[segs];
+        double maxHalf = 0;
+        int k = 0;
+        for (int a = 0; a < m; a++) {
+            if (!indexable(a))
+                continue;
+            double[] poly = polyline(a);
+            double len = 0;
+            for (int p = 0; p + 3 < poly.length; p += 2, k++) {
+                segArc[k] = a;
+                segAx[k] = poly[p];
+                segAy[k] = poly[p + 1];
+                segBx[k] = poly[p + 2];
+                segBy[k] = poly[p + 3];
+                segStart[k] = len;
+                double segLen = Math.hypot(segBx[k] - segAx[k], segBy[k] - segAy[k]);
+                maxHalf = Math.max(maxHalf, segLen / 2);
+                len += segLen;
+            }
+            arcLength[a] = len;
+        }
+        this.maxHalfSegment = maxHalf;
+
+        int[] segItems = new int[segs];
+        double[] mx = new double[segs];
+        double[] my = new double[segs];
+        for (int i = 0; i < segs; i++) {
+            segItems[i] = i;
+            mx[i] = (segAx[i] + segBx[i]) / 2;
+            my[i] = (segAy[i] + segBy[i]) / 2;
+        }
+        this.segTree = new KdTree(segItems, mx, my);
+    }
+
+    public static SpatialIndex build(Graph g) {
+        return new SpatialIndex(g);
+    }
+
+    public int size() {
+        return nodeTree.size();
+    }
+
+    /** 가장 가까운 노드, 색인된 노드가 없으면 null */
+    public Hit nearest(double lat, double lng) {
+        int v = nodeTree.nearest(projectX(lng), projectY(lat));
+        return v < 0 ? null : hit(v, lat, lng);
+    }
+
+    /** 가까운 순서대로 최대 k개 */
+    public List<Hit> nearest(double lat, double lng, int k) {
+        List<Hit> hits = new ArrayList<>();
+        for (int v : nodeTree.nearest(projectX(lng), projectY(lat), k))
+            hits.add(hit(v, lat, lng));
+        return hits;
+    }
+
+    /** 반경(미터) 안의 모든 노드, 가까운 순서 */
+    public List<Hit> withinRadius(double lat, double lng, double meters) {
+        List<Hit> hits = new ArrayList<>();
+        if (!(meters >= 0))
+            return hits;
+        // 투영 오차를 감안해 약간 넓게 모은 뒤 haversine 거리로 다시 거름
+        nodeTree.forEachWithin(projectX(lng), projectY(lat), meters * 1.0001 + 1e-3,
+                v -> hits.add(hit(v, lat, lng)));
+        hits.removeIf(h -> h.distance > meters);
+        hits.sort((a, b) -> Double.compare(a.distance, b.distance));
+        return hits;
+    }
+
+    /**
+     * 가장 가까운 엣지 위의 투영점, 색인된 엣지가 없으면 null.
+     * 어떤 선분까지의 거리도 (중점까지의 거리 - 가장 긴 선분 길이의 절반) 이상이므로
+     * 가장 가까운 중점의 선분 거리 d0를 구한 뒤 반경 d0 + maxHalfSegment 안의 선분만 검사하면 충분.
+     */
+    public EdgeSnap nearestEdge(double lat, double lng) {
+        double qx = projectX(lng);
+        double qy = projectY(lat);
+        int first = segTree.nearest(qx, qy);
+        if (first < 0)
+            return null;
+        double[] best = { segmentDistanceSq(first, qx, qy), first };
+        segTree.forEachWithin(qx, qy, Math.sqrt(best[0]) + maxHalfSegment, k -> {
+            double d = segmentDistanceSq(k, qx, qy);
+            if (d < best[0]) {
+                best[0] = d;
+                best[1] = k;
+            }
+        });
+        return snap((int) best[1], qx, qy, lat, lng);
+    }
+
+    /**
+     * nearestEdge()와 같지만 옵션(계단/턱 회피)으로 양방향 모두 막힌 엣지는 건너뜀.
+     * 가장 가까운 엣지가 계단이어도 걸어서 출발할 수 있는 엣지로 스내핑 (한쪽 아크만 막히면 그대로 사용).
+     * 반경 r 안의 선분만 보고 찾은 거리 d가 d + maxHalfSegment <= r 이면 확정, 아니면 반경을 두 배로 늘림
+     */
+    public EdgeSnap nearestEdge(double lat, double lng, Router.Options opt) {
+        int block = opt == null ? 0 : opt.blockMask();
+        if (block == 0)
+            return nearestEdge(lat, lng);
+        double qx = projectX(lng);
+        double qy = projectY(lat);
+        int first = segTree.nearest(qx, qy);
+        if (first < 0)
+            return null;
+        double radius = Math.sqrt(segmentDistanceSq(first, qx, qy)) + maxHalfSegment;
+        while (true) {
+            double[] best = { Double.POSITIVE_INFINITY, -1, 0 }; // 거리², 선분, 이번 반경에서 본 선분 수
+            segTree.forEachWithin(qx, qy, radius, k -> {
+                best[2]++;
+                if (!walkable(segArc[k], block))
+                    return;
+                double d = segmentDistanceSq(k, qx, qy);
+                if (d < best[0]) {
+                    best[0] = d;
+                    best[1] = k;
+                }
+            });
+            boolean all = best[2] >= segArc.length; // 모든 선분을 봤으면 더 늘려도 같음
+            if (best[1] >= 0 && (all || Math.sqrt(best[0]) + maxHalfSegment <= radius))
+                return snap((int) best[1], qx, qy, lat, lng);
+            if (all)
+                return null;
+            radius = radius * 2 + 1;
+        }
+    }
+
+    /** 아크나 같은 길을 반대로 가는 아크(Graph.oppositeArc) 중 하나라도 옵션으로 막히지 않았는지 */
+    private boolean walkable(int a, int block) {
+        int back = graph.oppositeArc(a);
+        return (graph.arcFlags(a) & block) == 0 || (back >= 0 && (graph.arcFlags(back) & block) == 0);
+    }
+
+    // --- 투영 ---
+
+    double projectX(double lng) {
+        return Math.toRadians(lng - lng0) * cosLat0 * EARTH_RADIUS_METERS;
+    }
+
+    double projectY(double lat) {
+        return Math.toRadians(lat - lat0) * EARTH_RADIUS_METERS;
+    }
+
+    private double unprojectLng(double x) {
+        return lng0 + Math.toDegrees(x / (cosLat0 * EARTH_RADIUS_METERS));
+    }
+
+    private double unprojectLat(double y) {
+        return lat0 + Math.toDegrees(y / EARTH_RADIUS_METERS);
+    }
+
+    private Hit hit(int v, double lat, double lng) {
+        return new Hit(v, graph.idOf(v), Graph.calculateDistance(lat, lng, graph.lat(v), graph.lng(v)));
+    }
+
+    private boolean indexable(int a) {
+        return (graph.arcFlags(a) & Graph.ARC_REVERSE) == 0
+                && !Double.isNaN(graph.lat(graph.arcSource(a)))
+                && !Double.isNaN(graph.lat(graph.arcTarget(a)));
+    }
+
+    private int pointCount(int a) {
+        return graph.arcGeometrySize(a) + 2;
+    }
+
+    /** 아크의 폴리라인 [x0, y0, x1, y1, ...] = from 노드 + geometry + to 노드 */
+    private double[] polyline(int a) {
+        int u = graph.arcSource(a);
+        int v = graph.arcTarget(a);
+        int points = graph.arcGeometrySize(a);
+        double[] poly = new double[(points + 2) * 2];
+        int k = 0;
+        poly[k++] = projectX(graph.lng(u));
+        poly[k++] = projectY(graph.lat(u));
+        for (int i = 0; i < points; i++) {
+            poly[k++] = projectX(graph.arcGeometryLng(a, i));
+            poly[k++] = projectY(graph.arcGeometryLat(a, i));
+        }
+        poly[k++] = projectX(graph.lng(v));
+        poly[k] = projectY(graph.lat(v));
+        return poly;
+    }
+
+    /** 선분 위 최근접점의 매개변수 t (0~1) */
+    private double segmentParam(int k, double qx, double qy) {
+        double dx = segBx[k] - segAx[k];
+        double dy = segBy[k] - segAy[k];
+        double len2 = dx * dx + dy * dy;
+        if (len2 == 0)
+            return 0;
+        double t = ((qx - segAx[k]) * dx + (qy - segAy[k]) * dy) / len2;
+        return t < 0 ? 0 : (t > 1 ? 1 : t);
+    }
+
+    private double segmentDistanceSq(int k, double qx, double qy) {
+        double t = segmentParam(k, qx, qy);
+        double px = segAx[k] + t * (segBx[k] - segAx[k]) - qx;
+        double py = segAy[k] + t * (segBy[k] - segAy[k]) - qy;
+        return px * px + py * py;
+    }
+
+    private EdgeSnap snap(int k, double qx, double qy, double lat, double lng) {
+        int a = segArc[k];
+        double t = segmentParam(k, qx, qy);
+        double px = segAx[k] + t * (segBx[k] - segAx[k]);
+        double py = segAy[k] + t * (segBy[k] - segAy[k]);
+        double along = segStart[k] + t * Math.hypot(segBx[k] - segAx[k], segBy[k] - segAy[k]);
+        double fraction = arcLength[a] == 0 ? 0 : Math.min(1, along / arcLength[a]);
+        double snapLat = unprojectLat(py);
+        double snapLng = unprojectLng(px);
+        return new EdgeSnap(a, graph.idOf(graph.arcSource(a)), graph.idOf(graph.arcTarget(a)), fraction,
+                snapLat, snapLng, Graph.calculateDistance(lat, lng, snapLat, snapLng));
+    }
+}
@@ -0,0 +1,68 @@
+package com.campus.kwangwoon.model;
+
+/**
+ * 경로 API의 계단/턱 벌점 쿼리 파라미터 (/api/route, /api/route/gps, /api/find).
+ * 하나도 없으면 벌점 없이 기존 탐색. 예: ?stairPenalty=100&maxStairs=1
+ */
+public class RoutePenalty {
+    private Double stairFactor; // 계단 아크 거리 배수 (>=1)
+    private Double stairPenalty; // 계단 아크마다 더하는 비용 (미터, >=0)
+    private Double crubFactor;
+    private Double crubPenalty;
+    private Integer maxStairs; // 경로가 지나는 계단 아크 수 상한
+    private Integer maxCrubs;
+
+    /** 벌점/상한 파라미터가 하나라도 있는지 */
+    public boolean isPresent() {
+        return stairFactor != null || stairPenalty != null || crubFactor != null || crubPenalty != null
+                || maxStairs != null || maxCrubs != null;
+    }
+
+    public Double getStairFactor() {
+        return stairFactor;
+    }
+
+    public void setStairFactor(Double stairFactor) {
+        this.stairFactor = stairFactor;
+    }
+
+    public Double getStairPenalty() {
+        return stairPenalty;
+    }
+
+    public void setStairPenalty(Double stairPenalty) {
+        this.stairPenalty = stairPenalty;
+    }
+
+    public Double getCrubFactor() {
+        return crubFactor;
+    }
+
+    public void setCrubFactor(Double crubFactor) {
+        this.crubFactor = crubFactor;
+    }
+
+    public Double getCrubPenalty() {
+        return crubPenalty;
+    }
+
+    public void setCrubPenalty(Double crubPenalty) {
+        this.crubPenalty = crubPenalty;
+    }
+
+    public Integer getMaxStairs() {
+        return maxStairs;
+    }
+
+    public void setMaxStairs(Integer maxStairs) {
+        this.maxStairs = maxStairs;
+    }
+
+    public Integer getMaxCrubs() {
+        return maxCrubs;
+    }
+
+    public void setMaxCrubs(Integer maxCrubs) {
+        this.maxCrubs = maxCrubs;
+    }
+}
@@ -0,0 +1,41 @@
+package com.campus.kwangwoon.model;
+
+/** 배치 경로 질의(/api/route/batch) 한 건: 노드 -> 노드, 회피 옵션 */
+public class RouteQuery {
+    private String start; // 출발 노드 ID
+    private String end; // 도착 노드 ID
+    private boolean avoidStair;
+    private boolean avoidCrub;
+
+    public String getStart() {
+        return start;
+    }
+
+    public void setStart(String start) {
+        this.start = start;
+    }
+
+    public String getEnd() {
+        return end;
+    }
+
+    public void setEnd(String end) {
+        this.end = end;
+    }
+
+    public boolean isAvoidStair() {
+        return avoidStair;
+    }
+
+    public void setAvoidStair(boolean avoidStair) {
+        this.avoidStair = avoidStair;
+    }
+
+    public boolean isAvoidCrub() {
+        return avoidCrub;
+    }
+
+    public void setAvoidCrub(boolean avoidCrub) {
+        this.avoidCrub = avoidCrub;
+    }
+}
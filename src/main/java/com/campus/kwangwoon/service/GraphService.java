@@ -1,6 +1,11 @@
 package com.campus.kwangwoon.service;
 
+import com.campus.kwangwoon.graph.ContractionHierarchy;
+import com.campus.kwangwoon.graph.DistanceTable;
 import com.campus.kwangwoon.graph.Graph;
+import com.campus.kwangwoon.graph.GraphFile;
+import com.campus.kwangwoon.graph.Router;
+import com.campus.kwangwoon.graph.SpatialIndex;
 import com.campus.kwangwoon.model.BuildingInfo;
 
 // pom.xml의 Spring Boot 버전에 맞춰 jakarta.annotation을 사용합니다.
@@ -8,11 +13,23 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Map;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -20,16 +37,50 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.ClosedWatchServiceException;
 
 @Service // Spring Boot에게 이 클래스를 '서비스'로 등록하라고 알림
 public class GraphService {
 
-    // 로드된 그래프 객체를 보관할 변수
-    private Graph graph;
-    // 프론트엔드 제공용 '빌딩 정보 리스트'
-    private List<BuildingInfo> buildingInfoList;
-    // /api/find 로직에서 사용할 '내부용 게이트 맵'
-    private Map<String, List<String>> buildingGateMap;
+    private static final Logger log = LoggerFactory.getLogger(GraphService.class);
+
+    // 파일 변경 이벤트가 이 시간 동안 없으면 저장이 끝난 것으로 보고 다시 로드
+    private static final long WATCH_QUIET_MILLIS = 500;
+
+    // 현재 서비스 중인 그래프 + 빌딩 정보 + 파생 색인 묶음
+    // 다시 로드할 때는 새 스냅샷을 완성한 뒤 한 번에 교체하므로 읽는 쪽은 잠금 없이 사용
+    private final AtomicReference<GraphSnapshot> current = new AtomicReference<>();
+    // 동시에 두 번 다시 로드하지 않도록 (읽기 요청과는 무관)
+    private final Object reloadLock = new Object();
+    private Path dataDir;
+    private Thread watcher;
+
+    // 데이터 폴더 경로 (비어 있으면 classpath의 resources/data)
+    @Value("${campus.graph.data-dir:}")
+    private String dataDirProperty;
+    // 데이터 폴더의 json 파일이 바뀌면 자동으로 다시 로드
+    @Value("${campus.graph.watch.enabled:false}")
+    private boolean watchEnabled;
+    // 작은 그래프에서만 전체 쌍 거리표를 미리 계산 (n^2 메모리)
+    @Value("${campus.router.precompute.enabled:false}")
+    private boolean precomputeEnabled;
+    // 4개 프로필 표 전체의 메모리 상한, 넘으면 실시간 탐색으로 대체
+    @Value("${campus.router.precompute.max-bytes:67108864}")
+    private long precomputeMaxBytes;
+    // 큰 그래프(통합 캠퍼스, 도시 블록)에서 Contraction Hierarchies 전처리 사용
+    @Value("${campus.router.ch.enabled:false}")
+    private boolean chEnabled;
+    // 로드 소요 시간(campus.graph.load)과 다시 로드 실패 횟수 기록 (Spring 밖에서 만들면 null)
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+    // 미리 만드는 JSON 응답 직렬화용 (Spring이 설정한 ObjectMapper, Spring 밖에서 만들면 기본 ObjectMapper)
+    @Autowired(required = false)
+    private ObjectMapper objectMapper;
 
     /**
      * @PostConstruct 어노테이션:
@@ -38,33 +89,64 @@ public class GraphService {
      */
     @PostConstruct
     public void init() throws IOException, URISyntaxException {
-        System.out.println("...[GraphService] 그래프 데이터 로딩을 시작합니다...");
-
         // Demo.java에 있던 데이터 폴더 찾는 로직을 그대로 가져옵니다.
-        Path dataDir = resolveDataDir();
-
-        // Graph.load()를 호출해 그래프를 로드하고 멤버 변수에 저장합니다.
-        this.graph = Graph.load(dataDir); //
-        System.out.println(this.graph.summary());
+        this.dataDir = dataDirProperty.isBlank() ? resolveDataDir() : Paths.get(dataDirProperty);
+        reload();
+        if (watchEnabled)
+            startWatcher();
+    }
 
-        System.out.println("...[GraphService] 빌딩 정보 로딩 시작...");
-        ObjectMapper om = new ObjectMapper();
-        Path buildingPath = dataDir.resolve("building.json");
+    /**
+     * Spring 밖(벤치마크, 데이터 생성기 검증 등)에서 쓰기 위한 생성: 설정 기본값으로 dataDir을 바로 로드
+     * (거리표/CH 전처리와 파일 감시는 꺼진 상태)
+     */
+    public static GraphService load(Path dataDir) throws IOException {
+        GraphService service = new GraphService();
+        service.dataDir = dataDir;
+        service.precomputeMaxBytes = 67108864L;
+        service.reload();
+        return service;
+    }
 
-        // 1. 'buildings.json'을 List<BuildingInfo>로 파싱
-        this.buildingInfoList = om.readValue(
-                Files.newBufferedReader(buildingPath),
-                new TypeReference<List<BuildingInfo>>() {
-                });
+    @PreDestroy
+    public void shutdown() {
+        if (watcher != null)
+            watcher.interrupt();
+    }
 
-        // 2. 파싱한 리스트에서 Map<id, gates> 형태의 내부용 맵을 생성
-        this.buildingGateMap = this.buildingInfoList.stream()
-                .collect(Collectors.toMap(
-                        BuildingInfo::getId, // Key = "BimaHall"
-                        BuildingInfo::getGates // Value = ["BH-MG", "BH-SG", ...]
-                ));
+    /**
+     * 데이터 폴더를 다시 읽어 새 스냅샷을 만들고 교체.
+     * 만드는 동안과 교체 후에도 기존 요청은 이전 스냅샷으로 끝까지 처리됨.
+     * 로드에 실패하면 예외를 던지고 기존 스냅샷을 그대로 유지.
+     */
+    public GraphSnapshot reload() throws IOException {
+        synchronized (reloadLock) {
+            GraphSnapshot old = current.get();
+            GraphSnapshot next;
+            try {
+                next = load(dataDir, old == null ? 1 : old.version + 1);
+            } catch (IOException | RuntimeException e) {
+                if (meterRegistry != null)
+                    Counter.builder("campus.graph.reload.failures").register(meterRegistry).increment();
+                throw e;
+            }
+            current.set(next);
+            log.info("그래프 스냅샷 교체 완료: version={}", next.version);
+            return next;
+        }
+    }
 
-        System.out.println("...[GraphService] 빌딩 정보 로딩 완료: " + this.buildingInfoList.size() + "개 빌딩");
+    /**
+     * 현재 스냅샷. 한 요청 안에서는 이 값을 한 번만 받아서 계속 사용할 것
+     * (중간에 다시 로드되어도 노드 번호가 섞이지 않음)
+     */
+    public GraphSnapshot snapshot() {
+        GraphSnapshot snap = current.get();
+        if (snap == null) {
+            // 서버 시작 시 init()이 실패했을 경우의 방어 코드
+            throw new IllegalStateException("그래프가 정상적으로 로드되지 않았습니다.");
+        }
+        return snap;
     }
 
     /**
@@ -72,27 +154,203 @@ public class GraphService {
      * 가져다 쓸 수 있도록 제공(return)하는 메소드
      */
     public Graph getGraph() {
-        if (this.graph == null) {
-            // 서버 시작 시 init()이 실패했을 경우의 방어 코드
-            throw new IllegalStateException("그래프가 정상적으로 로드되지 않았습니다.");
-        }
-        return this.graph;
+        return snapshot().graph;
+    }
+
+    /** 현재 그래프의 버전 (로드할 때마다 증가) */
+    public long getGraphVersion() {
+        return snapshot().version;
+    }
+
+    /** 로드된 그래프의 노드 좌표로 만든 공간 색인 */
+    public SpatialIndex getSpatialIndex() {
+        return snapshot().spatialIndex;
+    }
+
+    /** 옵션(계단/턱 회피)에 해당하는 전체 쌍 거리표, 없으면 null */
+    public DistanceTable getDistanceTable(Router.Options opt) {
+        return snapshot().distanceTable(opt);
+    }
+
+    /** 옵션(계단/턱 회피)에 해당하는 Contraction Hierarchy, 꺼져 있으면 null */
+    public ContractionHierarchy getContractionHierarchy(Router.Options opt) {
+        return snapshot().hierarchy(opt);
     }
 
     // 1. (수정) /api/find 로직이 사용할 Getter
     public Map<String, List<String>> getBuildingGateMap() {
-        if (this.buildingGateMap == null) {
-            throw new IllegalStateException("빌딩-게이트 맵이 로드되지 않았습니다.");
-        }
-        return this.buildingGateMap;
+        return snapshot().buildingGateMap;
     }
 
     // 2. (추가) 프론트엔드가 사용할 Getter
     public List<BuildingInfo> getBuildingInfoList() {
-        if (this.buildingInfoList == null) {
-            throw new IllegalStateException("빌딩 정보 리스트가 로드되지 않았습니다.");
+        return snapshot().buildingInfoList;
+    }
+
+    /** 그래프 + 빌딩 정보를 읽고 색인/전처리까지 마친 새 스냅샷 */
+    private GraphSnapshot load(Path dataDir, long version) throws IOException {
+        log.info("그래프 데이터 로딩 시작: dataDir={}", dataDir);
+
+        long started = System.nanoTime();
+        Graph graph;
+        List<BuildingInfo> buildingInfoList;
+        Path binary = dataDir.resolve(GraphFile.FILE_NAME);
+        boolean fromBinary = isFresh(binary, dataDir);
+        if (fromBinary) {
+            // 미리 컴파일한 이진 파일: 매핑해서 배열만 복사 (JSON 파싱 없음)
+            GraphFile.Contents contents = GraphFile.read(binary);
+            graph = contents.graph;
+            buildingInfoList = contents.buildings;
+            log.info("이진 그래프 파일 사용: {}", binary);
+        } else {
+            // Graph.load()를 호출해 그래프를 로드합니다.
+            graph = Graph.load(dataDir); //
+            buildingInfoList = loadBuildings(dataDir);
+        }
+        log.info("{}", graph.summary());
+        long read = System.nanoTime();
+        SpatialIndex spatialIndex = SpatialIndex.build(graph);
+        DistanceTable[] distanceTables = precompute(graph);
+        ContractionHierarchy[] hierarchies = distanceTables == null ? buildHierarchies(graph) : null;
+        // /api/nodes, /api/edges 응답을 교체 전에 미리 직렬화/압축 (첫 요청들이 직렬화를 기다리지 않도록)
+        ObjectMapper om = objectMapper != null ? objectMapper : new ObjectMapper();
+        JsonPayload nodesPayload = JsonPayload.of(om, graph.nodes());
+        JsonPayload edgesPayload = JsonPayload.of(om, graph.edges());
+        recordLoad(fromBinary ? "binary" : "json", read - started, System.nanoTime() - read);
+
+        // 파싱한 리스트에서 Map<id, gates> 형태의 내부용 맵을 생성
+        Map<String, List<String>> buildingGateMap = buildingInfoList.stream()
+                .collect(Collectors.toMap(
+                        BuildingInfo::getId, // Key = "BimaHall"
+                        BuildingInfo::getGates // Value = ["BH-MG", "BH-SG", ...]
+                ));
+
+        log.info("빌딩 정보 로딩 완료: buildings={}", buildingInfoList.size());
+        return new GraphSnapshot(version, graph, buildingInfoList, buildingGateMap, spatialIndex,
+                distanceTables, hierarchies, nodesPayload, edgesPayload);
+    }
+
+    /** 파일 읽기(read)와 색인/전처리(index) 단계 소요 시간 */
+    private void recordLoad(String source, long readNanos, long indexNanos) {
+        if (meterRegistry == null)
+            return;
+        Timer.builder("campus.graph.load").tags("source", source, "phase", "read")
+                .register(meterRegistry).record(readNanos, TimeUnit.NANOSECONDS);
+        Timer.builder("campus.graph.load").tags("source", source, "phase", "index")
+                .register(meterRegistry).record(indexNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static List<BuildingInfo> loadBuildings(Path dataDir) throws IOException {
+        ObjectMapper om = new ObjectMapper();
+        Path buildingPath = dataDir.resolve("building.json");
+
+        // 'buildings.json'을 List<BuildingInfo>로 파싱
+        try (BufferedReader reader = Files.newBufferedReader(buildingPath)) {
+            return om.readValue(reader, new TypeReference<List<BuildingInfo>>() {
+            });
+        }
+    }
+
+    /** 이진 그래프 파일이 있고 어떤 JSON 파일보다도 오래되지 않았으면 true (JSON을 고친 뒤 다시 컴파일 안 한 경우 대비) */
+    private static boolean isFresh(Path binary, Path dataDir) throws IOException {
+        if (!Files.exists(binary))
+            return false;
+        FileTime compiled = Files.getLastModifiedTime(binary);
+        for (String name : List.of("meta.json", "node.json", "edge.json", "building.json")) {
+            Path json = dataDir.resolve(name);
+            if (Files.exists(json) && Files.getLastModifiedTime(json).compareTo(compiled) > 0) {
+                log.info("{}이(가) {}보다 최신이므로 JSON에서 로드", name, binary.getFileName());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 데이터 폴더 감시 스레드: json 파일 변경이 잠잠해지면(편집기가 여러 번 저장하는 경우 대비) 다시 로드.
+     * 반쯤 저장된 파일 등으로 로드에 실패하면 로그만 남기고 이전 스냅샷을 유지.
+     */
+    private void startWatcher() throws IOException {
+        WatchService ws = dataDir.getFileSystem().newWatchService();
+        dataDir.register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher = new Thread(() -> {
+            try (ws) {
+                while (!Thread.currentThread().isInterrupted()) {
+                    WatchKey key = ws.take();
+                    boolean changed = drain(key);
+                    // 더 이상 이벤트가 없을 때까지 기다림
+                    while ((key = ws.poll(WATCH_QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null)
+                        changed |= drain(key);
+                    if (!changed)
+                        continue;
+                    try {
+                        reload();
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("다시 로드 실패, 이전 그래프 유지: {}", e.getMessage(), e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | ClosedWatchServiceException e) {
+                // 종료
+            }
+        }, "graph-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("데이터 폴더 감시 시작: {}", dataDir);
+    }
+
+    /** 이벤트를 비우고 json 파일 또는 이진 그래프 파일 변경이 있었는지 반환 */
+    private static boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (context == null || context.toString().endsWith(".json")
+                    || context.toString().equals(GraphFile.FILE_NAME))
+                changed = true;
+        }
+        key.reset();
+        return changed;
+    }
+
+    /** 4개 회피 프로필(없음/계단/턱/둘 다)의 거리표 생성, 조건이 안 맞으면 null */
+    private DistanceTable[] precompute(Graph g) {
+        if (!precomputeEnabled)
+            return null;
+        long bytes = DistanceTable.estimateBytes(g.nodeCount()) * 4;
+        if (g.nodeCount() > DistanceTable.MAX_NODES || bytes > precomputeMaxBytes) {
+            log.info("거리표 사전 계산 생략 (필요 메모리 {} bytes > 상한 {}), 실시간 탐색 사용",
+                    bytes, precomputeMaxBytes);
+            return null;
+        }
+        DistanceTable[] tables = new DistanceTable[4];
+        for (int p = 0; p < tables.length; p++) {
+            Router.Options opt = new Router.Options();
+            opt.avoidStair = (p & 1) != 0;
+            opt.avoidCrub = (p & 2) != 0;
+            tables[p] = DistanceTable.build(g, opt);
+        }
+        log.info("거리표 사전 계산 완료: 4개 프로필, 약 {} bytes", bytes);
+        return tables;
+    }
+
+    /** 4개 회피 프로필별 CH 전처리, 꺼져 있으면 null (거리표가 있으면 더 빠르므로 만들지 않음) */
+    private ContractionHierarchy[] buildHierarchies(Graph g) {
+        if (!chEnabled)
+            return null;
+        long start = System.nanoTime();
+        ContractionHierarchy[] chs = new ContractionHierarchy[4];
+        int shortcuts = 0;
+        for (int p = 0; p < chs.length; p++) {
+            Router.Options opt = new Router.Options();
+            opt.avoidStair = (p & 1) != 0;
+            opt.avoidCrub = (p & 2) != 0;
+            chs[p] = ContractionHierarchy.build(g, opt);
+            shortcuts += chs[p].shortcutCount();
         }
-        return this.buildingInfoList;
+        log.info("CH 전처리 완료: 4개 프로필, 지름길 {}개, {}ms", shortcuts,
+                (System.nanoTime() - start) / 1_000_000);
+        return chs;
     }
 
     /**
@@ -0,0 +1,69 @@
+package com.campus.kwangwoon.service;
+
+import com.campus.kwangwoon.graph.ContractionHierarchy;
+import com.campus.kwangwoon.graph.DistanceTable;
+import com.campus.kwangwoon.graph.Graph;
+import com.campus.kwangwoon.graph.Router;
+import com.campus.kwangwoon.graph.SpatialIndex;
+import com.campus.kwangwoon.model.BuildingInfo;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 한 번 로드한 그래프 데이터와 파생 색인을 묶은 불변 스냅샷.
+ * - GraphService가 AtomicReference로 통째로 교체하므로, 요청 처리 중에는 처음 받은 스냅샷 하나만 사용할 것
+ * (그래프와 공간 색인/거리표의 노드 번호가 서로 다른 버전에서 섞이지 않도록)
+ */
+public final class GraphSnapshot {
+
+    public final long version; // 로드할 때마다 1씩 증가
+    public final Graph graph;
+    // 프론트엔드 제공용 '빌딩 정보 리스트'
+    public final List<BuildingInfo> buildingInfoList;
+    // /api/find 로직에서 사용할 '내부용 게이트 맵'
+    public final Map<String, List<String>> buildingGateMap;
+    // GPS 좌표 -> 가까운 엣지 스내핑용 공간 색인 (k-d 트리)
+    public final SpatialIndex spatialIndex;
+    // (선택) 회피 프로필별 전체 쌍 거리표: [계단 회피 1비트 | 턱 회피 2비트] -> 표
+    private final DistanceTable[] distanceTables;
+    // (선택) 회피 프로필별 Contraction Hierarchies: 큰 그래프용
+    private final ContractionHierarchy[] hierarchies;
+    // 미리 직렬화/압축한 응답 (/api/nodes, /api/edges): 스냅샷을 만들 때 같이 만들어서 요청 쪽은 읽기만 함
+    public final JsonPayload nodesPayload;
+    public final JsonPayload edgesPayload;
+
+    GraphSnapshot(long version, Graph graph, List<BuildingInfo> buildingInfoList,
+            Map<String, List<String>> buildingGateMap, SpatialIndex spatialIndex,
+            DistanceTable[] distanceTables, ContractionHierarchy[] hierarchies, JsonPayload nodesPayload,
+            JsonPayload edgesPayload) {
+        this.version = version;
+        this.graph = graph;
+        this.buildingInfoList = List.copyOf(buildingInfoList);
+        this.buildingGateMap = Map.copyOf(buildingGateMap);
+        this.spatialIndex = spatialIndex;
+        this.distanceTables = distanceTables;
+        this.hierarchies = hierarchies;
+        this.nodesPayload = nodesPayload;
+        this.edgesPayload = edgesPayload;
+    }
+
+    /**
+     * 옵션(계단/턱 회피)에 해당하는 전체 쌍 거리표.
+     * 사전 계산이 꺼져 있거나 메모리 상한을 넘는 그래프면 null (실시간 탐색 사용).
+     */
+    public DistanceTable distanceTable(Router.Options opt) {
+        return distanceTables == null ? null : distanceTables[profileIndex(opt)];
+    }
+
+    /** 옵션(계단/턱 회피)에 해당하는 Contraction Hierarchy, 꺼져 있으면 null */
+    public ContractionHierarchy hierarchy(Router.Options opt) {
+        return hierarchies == null ? null : hierarchies[profileIndex(opt)];
+    }
+
+    static int profileIndex(Router.Options opt) {
+        if (opt == null)
+            return 0;
+        return (opt.avoidStair ? 1 : 0) | (opt.avoidCrub ? 2 : 0);
+    }
+}
@@ -0,0 +1,88 @@
+package com.campus.kwangwoon.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 미리 직렬화해 둔 JSON 응답 (원본 + gzip + ETag).
+ * 스냅샷마다 한 번만 만들어 두고 같은 바이트를 그대로 내보내므로 반복 요청에 직렬화/압축 비용이 없음.
+ * ETag는 내용 해시라서 다시 로드해도 데이터가 같으면 그대로 (브라우저 캐시 유지).
+ * 원본과 gzip은 바이트가 다른 표현이므로 강한 ETag도 따로 (gzip은 "<해시>-gz")
+ */
+public final class JsonPayload {
+
+    public final byte[] json;
+    public final byte[] gzip;
+    public final String etag; // 원본(json)의 ETag, 따옴표 포함 ("...")
+    public final String gzipEtag; // 압축본(gzip)의 ETag ("...-gz")
+
+    private JsonPayload(byte[] json, byte[] gzip, String hash) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = "\"" + hash + "\"";
+        this.gzipEtag = "\"" + hash + "-gz\"";
+    }
+
+    /** 보낼 표현(gzip 여부)의 ETag */
+    public String etag(boolean gzip) {
+        return gzip ? gzipEtag : etag;
+    }
+
+    public static JsonPayload of(ObjectMapper objectMapper, Object value) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new JsonPayload(json, gzip(json), hash(json));
+    }
+
+    /** If-None-Match 헤더(쉼표 목록, W/ 약한 비교 허용)가 보낼 표현(gzip 여부)의 ETag와 맞는지 */
+    public boolean matches(String ifNoneMatch, boolean gzip) {
+        String etag = etag(gzip);
+        if (ifNoneMatch == null)
+            return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag))
+                return true;
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        // 한 번만 압축하므로 최고 압축률 사용
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes, 1 << 16) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.campus.kwangwoon.service;
+
+import com.campus.kwangwoon.graph.Router;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 노드 출발 경로 결과의 LRU 캐시 (수업 교대 시간처럼 같은 출발지/건물 질의가 몰릴 때용).
+ * - 키: (그래프 버전, 출발 노드, 목적지 목록, 계단 회피, 턱 회피)
+ * - 그래프 버전이 바뀌면 이전 버전 키는 다시 맞지 않고, 처음 보는 버전에서 한 번 전체를 비움
+ * - "경로 없음"(null)도 캐시 (같은 질의가 반복되면 탐색을 다시 하지 않음)
+ * - 키 해시로 16개 구간에 나누고 구간마다 access-order LinkedHashMap을 따로 잠금 (요청 스레드끼리 한 잠금에
+ *   줄 서지 않음). 교체 순서는 구간 안에서의 LRU라서 전체 LRU와 조금 다를 수 있음
+ */
+public final class RouteCache {
+
+    /** 캐시 상태 (API 응답용) */
+    public static final class Stats {
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final int size;
+        public final int capacity;
+        public final long graphVersion;
+        public final double hitRate;
+
+        Stats(long hits, long misses, long evictions, int size, int capacity, long graphVersion) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.capacity = capacity;
+            this.graphVersion = graphVersion;
+            long total = hits + misses;
+            this.hitRate = total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private static final class Key {
+        final long version;
+        final String source;
+        final List<String> targets;
+        final boolean avoidStair;
+        final boolean avoidCrub;
+        final int hash;
+
+        Key(long version, String source, List<String> targets, boolean avoidStair, boolean avoidCrub) {
+            this.version = version;
+            this.source = source;
+            this.targets = targets;
+            this.avoidStair = avoidStair;
+            this.avoidCrub = avoidCrub;
+            this.hash = Objects.hash(version, source, targets, avoidStair, avoidCrub);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return version == k.version && avoidStair == k.avoidStair && avoidCrub == k.avoidCrub
+                    && source.equals(k.source) && targets.equals(k.targets);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // null(경로 없음)을 저장하기 위한 표시용 값
+    private static final Router.RouteResult NO_ROUTE = new Router.RouteResult(List.of(), Double.NaN, false, false);
+    private static final int SEGMENTS = 16;
+
+    /** 키 해시로 나눈 구간 하나: 구간마다 따로 잠그는 access-order LinkedHashMap (구간 안에서 LRU) */
+    private final class Segment extends LinkedHashMap<Key, Router.RouteResult> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Router.RouteResult> eldest) {
+            if (size() <= capacity)
+                return false;
+            evictions.increment();
+            return true;
+        }
+    }
+
+    private final int capacity;
+    private final Segment[] segments;
+    private final AtomicLong version = new AtomicLong(-1);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    RouteCache(int capacity) {
+        this.capacity = capacity;
+        int count = capacity <= 0 ? 0 : Math.min(SEGMENTS, capacity);
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++)
+            segments[i] = new Segment(capacity / count + (i < capacity % count ? 1 : 0)); // 합계 = capacity
+    }
+
+    boolean enabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * 캐시된 결과를 반환하거나, 없으면 compute로 계산해서 넣음.
+     * 계산은 잠금 밖에서 하므로 같은 키를 동시에 처음 요청하면 중복 계산될 수 있음 (결과는 같음).
+     * 캐시에서 꺼낸 결과의 settled/relaxed는 0 (이번 요청은 탐색하지 않음)
+     */
+    Router.RouteResult get(long graphVersion, String source, List<String> targets, Router.Options opt,
+            Supplier<Router.RouteResult> compute) {
+        if (!enabled())
+            return compute.get();
+        advance(graphVersion);
+        Key key = new Key(graphVersion, source, targets, opt != null && opt.avoidStair,
+                opt != null && opt.avoidCrub);
+        Segment segment = segments[Math.floorMod(key.hash, segments.length)];
+        Router.RouteResult cached;
+        synchronized (segment) {
+            // 교체 직전 버전으로 들어온 늦은 요청은 캐시를 건드리지 않음
+            cached = graphVersion == version.get() ? segment.get(key) : null;
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached == NO_ROUTE ? null : cached;
+        }
+        misses.increment();
+        Router.RouteResult res = compute.get();
+        Router.RouteResult entry = res == null ? NO_ROUTE : res.withoutSearchStats();
+        synchronized (segment) {
+            // 버전을 올린 쪽은 올린 뒤에 구간을 비우므로, 여기서 같은 버전을 봤다면 넣은 값은 그 뒤에 지워짐
+            if (graphVersion == version.get())
+                segment.put(key, entry);
+        }
+        return res;
+    }
+
+    /**
+     * 출발 노드들의 결과가 모두 캐시에 있으면 (출발 노드 -> 결과, 경로 없음은 null) 맵, 하나라도 없으면 null.
+     * 계산하지 않음 (GPS 출발 질의가 노드 출발 결과를 조합할 수 있을 때만 쓰고, 아니면 탐색 한 번으로 처리).
+     * 모두 있으면 출발 노드마다 hit, 아니면 miss 한 번으로 셈
+     */
+    Map<String, Router.RouteResult> getAllIfPresent(long graphVersion, Collection<String> sources,
+            List<String> targets, Router.Options opt) {
+        if (!enabled())
+            return null;
+        advance(graphVersion);
+        Map<String, Router.RouteResult> found = new HashMap<>();
+        for (String source : sources) {
+            Key key = new Key(graphVersion, source, targets, opt != null && opt.avoidStair,
+                    opt != null && opt.avoidCrub);
+            Segment segment = segments[Math.floorMod(key.hash, segments.length)];
+            Router.RouteResult cached;
+            synchronized (segment) {
+                cached = graphVersion == version.get() ? segment.get(key) : null;
+            }
+            if (cached == null) {
+                misses.increment();
+                return null;
+            }
+            found.put(source, cached == NO_ROUTE ? null : cached);
+        }
+        hits.add(found.size());
+        return found;
+    }
+
+    /** 처음 보는(더 새로운) 그래프 버전이면 버전을 올리고 모든 구간을 비움 */
+    private void advance(long graphVersion) {
+        long current = version.get();
+        while (graphVersion > current) {
+            if (version.compareAndSet(current, graphVersion)) {
+                for (Segment segment : segments) {
+                    synchronized (segment) {
+                        segment.clear();
+                    }
+                }
+                return;
+            }
+            current = version.get();
+        }
+    }
+
+    Stats stats() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size, capacity, version.get());
+    }
+}
@@ -0,0 +1,128 @@
+package com.campus.kwangwoon.service;
+
+import com.campus.kwangwoon.graph.Router;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 경로 탐색 운영 지표 (Micrometer, /actuator/prometheus 로 노출).
+ * - campus.route.phase{endpoint, phase}: API별 단계 소요 시간 (snap, gate_filter, search)
+ * - campus.route.no_route{endpoint}: 경로 없음(404) 응답 수
+ * - campus.router.search{algorithm, phase}: Router/CH 탐색 한 번의 탐색(search)과 경로 복원(reconstruct) 시간
+ * - campus.router.settled, campus.router.relaxed{algorithm}: 탐색 한 번의 확정 노드 수, 거리 갱신 횟수
+ * - campus.route.cache.*: 경로 캐시 적중/실패/제거 횟수와 크기
+ * - campus.graph.version, campus.graph.nodes: 현재 스냅샷 (로드 시간은 GraphService의 campus.graph.load)
+ * 거리표나 캐시로 응답한 요청은 Router 탐색을 하지 않으므로 campus.router.* 에는 잡히지 않음
+ */
+@Component
+public class RouteMetrics {
+
+    // endpoint 태그
+    public static final String ROUTE = "route";
+    public static final String ROUTE_GPS = "route_gps";
+    public static final String FIND = "find";
+    public static final String ROUTE_BATCH = "route_batch";
+    public static final String MATRIX = "matrix";
+    public static final String REACH = "reach";
+
+    // phase 태그
+    public static final String SNAP = "snap";
+    public static final String GATE_FILTER = "gate_filter";
+    public static final String SEARCH = "search";
+
+    /** 알고리즘별 탐색 지표 묶음 (탐색마다 레지스트리를 조회하지 않도록 한 번만 등록) */
+    private static final class SearchMeters {
+        final Timer search;
+        final Timer reconstruct;
+        final DistributionSummary settled;
+        final DistributionSummary relaxed;
+
+        SearchMeters(MeterRegistry registry, String algorithm) {
+            search = Timer.builder("campus.router.search")
+                    .tags("algorithm", algorithm, "phase", "search")
+                    .publishPercentileHistogram()
+                    .register(registry);
+            reconstruct = Timer.builder("campus.router.search")
+                    .tags("algorithm", algorithm, "phase", "reconstruct")
+                    .publishPercentileHistogram()
+                    .register(registry);
+            settled = DistributionSummary.builder("campus.router.settled")
+                    .description("탐색 한 번에 확정된 노드 수")
+                    .tag("algorithm", algorithm)
+                    .baseUnit("nodes")
+                    .register(registry);
+            relaxed = DistributionSummary.builder("campus.router.relaxed")
+                    .description("탐색 한 번에 거리가 갱신된 횟수")
+                    .tag("algorithm", algorithm)
+                    .baseUnit("edges")
+                    .register(registry);
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> noRouteCounters = new ConcurrentHashMap<>();
+    private final Map<String, SearchMeters> searchMeters = new ConcurrentHashMap<>();
+
+    public RouteMetrics(MeterRegistry registry, RouteService routeService, GraphService graphService) {
+        this.registry = registry;
+
+        FunctionCounter.builder("campus.route.cache.hits", routeService, s -> s.cacheStats().hits)
+                .register(registry);
+        FunctionCounter.builder("campus.route.cache.misses", routeService, s -> s.cacheStats().misses)
+                .register(registry);
+        FunctionCounter.builder("campus.route.cache.evictions", routeService, s -> s.cacheStats().evictions)
+                .register(registry);
+        Gauge.builder("campus.route.cache.size", routeService, s -> s.cacheStats().size)
+                .register(registry);
+        Gauge.builder("campus.graph.version", graphService, GraphService::getGraphVersion)
+                .register(registry);
+        Gauge.builder("campus.graph.nodes", graphService, s -> s.getGraph().nodeCount())
+                .register(registry);
+
+        Router.setSearchListener(this::searched);
+    }
+
+    @PreDestroy
+    public void close() {
+        Router.setSearchListener(null);
+    }
+
+    /** API 처리 단계 하나의 소요 시간 */
+    public void recordPhase(String endpoint, String phase, long nanos) {
+        phaseTimers.computeIfAbsent(endpoint + "/" + phase, k -> Timer.builder("campus.route.phase")
+                .tags("endpoint", endpoint, "phase", phase)
+                .publishPercentileHistogram()
+                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** 경로 없음(404) 응답 */
+    public void noRoute(String endpoint) {
+        noRouteCounters.computeIfAbsent(endpoint, k -> Counter.builder("campus.route.no_route")
+                .tag("endpoint", endpoint)
+                .register(registry))
+                .increment();
+    }
+
+    private void searched(String algorithm, int settled, int relaxed, long searchNanos, long reconstructNanos) {
+        SearchMeters m = searchMeters.computeIfAbsent(algorithm, a -> new SearchMeters(registry, a));
+        m.search.record(searchNanos, TimeUnit.NANOSECONDS);
+        if (reconstructNanos > 0)
+            m.reconstruct.record(reconstructNanos, TimeUnit.NANOSECONDS);
+        m.settled.record(settled);
+        m.relaxed.record(relaxed);
+    }
+}
@@ -0,0 +1,398 @@
+package com.campus.kwangwoon.service;
+
+import com.campus.kwangwoon.graph.ContractionHierarchy;
+import com.campus.kwangwoon.graph.DistanceTable;
+import com.campus.kwangwoon.graph.Graph;
+import com.campus.kwangwoon.graph.Router;
+import com.campus.kwangwoon.graph.SpatialIndex;
+import com.campus.kwangwoon.model.BuildingInfo;
+import com.campus.kwangwoon.model.RouteQuery;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * 경로 질의 창구: 사전 계산된 거리표 -> (캐시) Contraction Hierarchy -> Router 실시간 탐색 순으로 사용.
+ * - 거리표가 없으면 노드 출발 결과를 RouteCache에 보관하고, GPS 출발 질의는 스내핑된 엣지 양 끝 노드의
+ * 캐시된 결과를 조합해서 응답
+ * (algorithm=ASTAR 처럼 탐색 방식을 직접 지정한 요청은 비교 목적이므로 항상 실시간 탐색)
+ */
+@Service
+public class RouteService {
+
+    /** 배치 질의 결과 한 건 (NDJSON 한 줄). 경로가 없으면 result = null, 잘못된 질의면 error */
+    public static final class BatchResult {
+        public final int index; // 요청 배열에서의 위치 (결과는 끝난 순서대로 나감)
+        public final String start;
+        public final String end;
+        public final Router.RouteResult result;
+        public final String error;
+
+        BatchResult(int index, RouteQuery q, Router.RouteResult result, String error) {
+            this.index = index;
+            this.start = q == null ? null : q.getStart();
+            this.end = q == null ? null : q.getEnd();
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    /** 빌딩 간 도보 거리/시간 행렬 (API 응답용). 도달할 수 없거나 쓸 수 있는 게이트가 없으면 null */
+    public static final class DistanceMatrix {
+        public final long graphVersion;
+        public final List<String> origins; // 행: 출발 빌딩 ID
+        public final List<String> destinations; // 열: 도착 빌딩 ID
+        public final Double[][] distances; // 미터 (게이트 쌍 중 최소)
+        public final Double[][] durations; // 초 (distances / walkingSpeed)
+        public final double walkingSpeed; // m/s
+
+        DistanceMatrix(long graphVersion, List<String> origins, List<String> destinations, Double[][] distances,
+                double walkingSpeed) {
+            this.graphVersion = graphVersion;
+            this.origins = origins;
+            this.destinations = destinations;
+            this.distances = distances;
+            this.walkingSpeed = walkingSpeed;
+            this.durations = new Double[distances.length][];
+            for (int i = 0; i < distances.length; i++) {
+                durations[i] = new Double[distances[i].length];
+                for (int j = 0; j < distances[i].length; j++)
+                    durations[i][j] = distances[i][j] == null ? null : distances[i][j] / walkingSpeed;
+            }
+        }
+    }
+
+    /** 출발지와 회피 프로필이 같은 질의 묶음 (탐색 한 번으로 처리) */
+    private static final class BatchGroup {
+        final String start;
+        final Router.Options opt;
+        final List<Integer> indices = new ArrayList<>();
+
+        BatchGroup(String start, Router.Options opt) {
+            this.start = start;
+            this.opt = opt;
+        }
+    }
+
+    private static final int DEFAULT_MATRIX_MAX_ORIGINS = 100;
+
+    private final GraphService graphService;
+    private final RouteCache cache;
+    // 배치 질의처럼 여러 탐색을 나눠 돌리는 전용 스레드 풀 (ForkJoin 공용 풀을 다른 작업과 나눠 쓰지 않도록)
+    private final ExecutorService searchPool;
+    private final int parallelism;
+    private final int matrixMaxOrigins; // 빌딩 행렬 한 번에 받을 수 있는 출발 빌딩 수 (출발 빌딩마다 탐색 한 번)
+
+    /** 스프링 밖(벤치마크 등)에서 쓰는 생성자: 병렬 탐색 스레드 수 = 코어 수 */
+    public RouteService(GraphService graphService, int cacheMaxEntries) {
+        this(graphService, cacheMaxEntries, 0, DEFAULT_MATRIX_MAX_ORIGINS);
+    }
+
+    @Autowired
+    public RouteService(GraphService graphService,
+            @Value("${campus.router.cache.max-entries:10000}") int cacheMaxEntries,
+            @Value("${campus.router.parallelism:0}") int parallelism,
+            @Value("${campus.router.matrix.max-origins:100}") int matrixMaxOrigins) {
+        this.graphService = graphService;
+        this.cache = new RouteCache(cacheMaxEntries);
+        this.matrixMaxOrigins = matrixMaxOrigins;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threads = new AtomicInteger();
+        this.searchPool = Executors.newFixedThreadPool(this.parallelism, r -> {
+            Thread t = new Thread(r, "route-search-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searchPool.shutdownNow();
+    }
+
+    /** 노드 -> 노드 최단 경로 (현재 스냅샷), 경로가 없으면 null */
+    public Router.RouteResult route(String start, String end, Router.Options opt) {
+        return route(graphService.snapshot(), start, end, opt);
+    }
+
+    /** 노드 -> 노드 최단 경로, 경로가 없으면 null */
+    public Router.RouteResult route(GraphSnapshot snap, String start, String end, Router.Options opt) {
+        if (!isDefault(opt))
+            return Router.shortestPath(snap.graph, start, end, opt);
+        DistanceTable table = snap.distanceTable(opt);
+        if (table != null)
+            return table.route(start, List.of(end));
+        return cached(snap, start, List.of(end), opt);
+    }
+
+    /**
+     * 스내핑된 GPS 지점 -> 목적지 후보 중 가장 가까운 곳, 경로가 없으면 null.
+     * start는 반드시 같은 스냅샷의 공간 색인(snap.spatialIndex)에서 얻은 값이어야 함
+     */
+    public Router.RouteResult route(GraphSnapshot snap, SpatialIndex.EdgeSnap start, Collection<String> targets,
+            Router.Options opt) {
+        if (!isDefault(opt))
+            return Router.shortestPathToAny(snap.graph, start, targets, opt);
+        DistanceTable table = snap.distanceTable(opt);
+        if (table != null)
+            return table.route(start, targets);
+        if (!cache.enabled())
+            return compute(snap, start, targets, opt);
+        // 양 끝 노드의 결과가 모두 캐시에 있을 때만 조합, 아니면 두 출발점을 넣은 탐색 한 번 (결과는 캐시하지 않음)
+        Map<String, Router.RouteResult> ends = cache.getAllIfPresent(snap.version,
+                Router.startNodes(snap.graph, start, opt), List.copyOf(targets), opt);
+        if (ends == null)
+            return compute(snap, start, targets, opt);
+        return Router.shortestPathToAny(snap.graph, start, opt, ends::get);
+    }
+
+    /**
+     * 배치 경로 질의: (출발지, 회피 프로필)이 같은 질의를 묶어서 묶음마다 한 번만 탐색 (Router.shortestPaths).
+     * 묶음은 전용 탐색 풀(campus.router.parallelism)에서 병렬로 처리하고, 끝난 묶음의 결과를 바로 sink로 넘김
+     * (sink는 여러 스레드에서 동시에 호출될 수 있음). 거리표나 CH가 있으면 질의마다 그쪽을 사용.
+     * 배치 결과는 경로 캐시에 넣지 않음 (한 번에 많이 들어와서 자주 쓰는 항목을 밀어내지 않도록)
+     */
+    public void routeBatch(GraphSnapshot snap, List<RouteQuery> queries, Consumer<List<BatchResult>> sink) {
+        Router.Options[] profiles = new Router.Options[4];
+        for (int p = 0; p < profiles.length; p++) {
+            profiles[p] = new Router.Options();
+            profiles[p].avoidStair = (p & 1) != 0;
+            profiles[p].avoidCrub = (p & 2) != 0;
+        }
+        List<BatchResult> invalid = new ArrayList<>();
+        Map<String, BatchGroup> groups = new LinkedHashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            RouteQuery q = queries.get(i);
+            if (q == null || q.getStart() == null || q.getEnd() == null) {
+                invalid.add(new BatchResult(i, q, null, "start and end are required"));
+                continue;
+            }
+            int p = (q.isAvoidStair() ? 1 : 0) | (q.isAvoidCrub() ? 2 : 0);
+            groups.computeIfAbsent(p + ":" + q.getStart(), k -> new BatchGroup(q.getStart(), profiles[p]))
+                    .indices.add(i);
+        }
+        if (!invalid.isEmpty())
+            sink.accept(invalid);
+        List<BatchGroup> list = new ArrayList<>(groups.values());
+        runParallel(list.size(), k -> sink.accept(routeGroup(snap, queries, list.get(k))));
+    }
+
+    /**
+     * task(0 .. count - 1)을 전용 탐색 풀에서 나눠 실행하고 모두 끝날 때까지 기다림.
+     * 요청 하나가 풀에 넣는 작업은 최대 parallelism개 (각 작업이 남은 번호를 차례로 가져감)라서
+     * 큰 요청이 큐를 채우지 않고, 하나가 실패하면 나머지는 새 번호를 가져가지 않고 끝남 (첫 예외를 다시 던짐)
+     */
+    private void runParallel(int count, IntConsumer task) {
+        int workers = Math.min(parallelism, count);
+        if (workers <= 1) {
+            for (int k = 0; k < count; k++)
+                task.accept(k);
+            return;
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            futures.add(searchPool.submit(() -> {
+                try {
+                    for (int k; !failed.get() && (k = next.getAndIncrement()) < count;)
+                        task.accept(k);
+                } catch (RuntimeException | Error e) {
+                    failed.set(true);
+                    throw e;
+                }
+            }));
+        }
+        RuntimeException error = null;
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                failed.set(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for route searches", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error)
+                    throw (Error) e.getCause();
+                if (error == null)
+                    error = (RuntimeException) e.getCause();
+            }
+        }
+        if (error != null)
+            throw error;
+    }
+
+    private List<BatchResult> routeGroup(GraphSnapshot snap, List<RouteQuery> queries, BatchGroup group) {
+        Graph g = snap.graph;
+        List<BatchResult> out = new ArrayList<>(group.indices.size());
+        if (g.indexOf(group.start) < 0) {
+            for (int i : group.indices)
+                out.add(new BatchResult(i, queries.get(i), null, "Unknown source"));
+            return out;
+        }
+        List<Integer> valid = new ArrayList<>(group.indices.size());
+        List<String> ends = new ArrayList<>(group.indices.size());
+        for (int i : group.indices) {
+            String end = queries.get(i).getEnd();
+            if (g.indexOf(end) < 0) {
+                out.add(new BatchResult(i, queries.get(i), null, "Unknown target"));
+                continue;
+            }
+            valid.add(i);
+            ends.add(end);
+        }
+        if (valid.isEmpty())
+            return out;
+
+        DistanceTable table = snap.distanceTable(group.opt);
+        ContractionHierarchy ch = snap.hierarchy(group.opt);
+        List<Router.RouteResult> results;
+        if (table != null || ch != null) {
+            results = new ArrayList<>(ends.size());
+            for (String end : ends) {
+                List<String> target = List.of(end);
+                results.add(table != null ? table.route(group.start, target) : ch.route(group.start, target));
+            }
+        } else {
+            results = Router.shortestPaths(g, group.start, ends, group.opt);
+        }
+        for (int k = 0; k < valid.size(); k++)
+            out.add(new BatchResult(valid.get(k), queries.get(valid.get(k)), results.get(k), null));
+        return out;
+    }
+
+    /**
+     * 출발 빌딩(origins) x 전체 빌딩 도보 거리 행렬. 빌딩 간 거리 = 옵션을 만족하는 게이트 쌍 중 최소.
+     * 출발 빌딩마다 그 빌딩의 게이트 전체를 출발점으로 한 번만 탐색 (Router.distances: 모든 목적지 게이트가
+     * 확정되면 멈춤), 거리표가 있으면 표 조회만. 출발 빌딩들은 전용 탐색 풀에서 병렬로 처리하고,
+     * 출발 빌딩(생략하면 전체 빌딩)이 campus.router.matrix.max-origins보다 많으면 IllegalArgumentException.
+     * 게이트 필터링은 /api/find와 같음 (계단/턱 회피 시 그 속성을 가진 게이트 노드는 제외)
+     */
+    public DistanceMatrix buildingMatrix(GraphSnapshot snap, List<String> origins, Router.Options opt,
+            double walkingSpeed) {
+        if (!(walkingSpeed > 0))
+            throw new IllegalArgumentException("walkingSpeed must be >0: " + walkingSpeed);
+        List<String> destinations = new ArrayList<>(snap.buildingInfoList.size());
+        for (BuildingInfo b : snap.buildingInfoList)
+            destinations.add(b.getId());
+        if (origins == null || origins.isEmpty())
+            origins = destinations;
+        if (origins.size() > matrixMaxOrigins)
+            throw new IllegalArgumentException("Too many origins: " + origins.size() + " > " + matrixMaxOrigins);
+        for (String origin : origins)
+            if (!snap.buildingGateMap.containsKey(origin))
+                throw new IllegalArgumentException("Unknown building: " + origin);
+
+        // 목적지 게이트를 한 목록으로 펼치고, 빌딩 j의 게이트는 [gateStart[j], gateStart[j + 1]) 구간
+        List<String> targetGates = new ArrayList<>();
+        int[] gateStart = new int[destinations.size() + 1];
+        for (int j = 0; j < destinations.size(); j++) {
+            targetGates.addAll(usableGates(snap, destinations.get(j), opt));
+            gateStart[j + 1] = targetGates.size();
+        }
+
+        Double[][] distances = new Double[origins.size()][];
+        DistanceTable table = snap.distanceTable(opt);
+        List<String> rows = origins;
+        runParallel(rows.size(), i -> {
+            double[] gateDist = new double[targetGates.size()];
+            List<String> sources = usableGates(snap, rows.get(i), opt);
+            if (sources.isEmpty() || targetGates.isEmpty())
+                Arrays.fill(gateDist, Double.POSITIVE_INFINITY);
+            else if (table != null)
+                fillFromTable(snap.graph, table, sources, targetGates, gateDist);
+            else
+                gateDist = Router.distances(snap.graph, sources, targetGates, opt);
+            Double[] row = new Double[destinations.size()];
+            for (int j = 0; j < row.length; j++) {
+                double best = Double.POSITIVE_INFINITY;
+                for (int k = gateStart[j]; k < gateStart[j + 1]; k++)
+                    best = Math.min(best, gateDist[k]);
+                row[j] = Double.isInfinite(best) ? null : best;
+            }
+            distances[i] = row;
+        });
+        return new DistanceMatrix(snap.version, List.copyOf(rows), destinations, distances, walkingSpeed);
+    }
+
+    /** 스내핑 지점에서 maxMeters 안에 걸어서 닿는 범위 (거리표/CH는 경로 단위라 쓰지 않고 항상 제한 Dijkstra) */
+    public Router.ReachResult reach(GraphSnapshot snap, SpatialIndex.EdgeSnap start, double maxMeters,
+            Router.Options opt) {
+        return Router.reach(snap.graph, start, maxMeters, opt);
+    }
+
+    /** 빌딩의 게이트 중 그래프에 있고 옵션(계단/턱 회피)을 만족하는 것 */
+    private static List<String> usableGates(GraphSnapshot snap, String building, Router.Options opt) {
+        Graph g = snap.graph;
+        List<String> gates = new ArrayList<>();
+        for (String gateId : snap.buildingGateMap.getOrDefault(building, List.of())) {
+            int v = g.indexOf(gateId);
+            if (v < 0)
+                continue;
+            int flags = g.nodeFlags(v);
+            if ((opt.avoidStair && (flags & Graph.NODE_STAIR) != 0) || (opt.avoidCrub && (flags & Graph.NODE_CRUB) != 0))
+                continue;
+            gates.add(gateId);
+        }
+        return gates;
+    }
+
+    private static void fillFromTable(Graph g, DistanceTable table, List<String> sources, List<String> targets,
+            double[] out) {
+        for (int k = 0; k < out.length; k++) {
+            int t = g.indexOf(targets.get(k));
+            double best = Double.POSITIVE_INFINITY;
+            for (String source : sources)
+                best = Math.min(best, table.distance(g.indexOf(source), t));
+            out[k] = best;
+        }
+    }
+
+    /** 캐시 적중/실패/제거 횟수 */
+    public RouteCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
+    private Router.RouteResult cached(GraphSnapshot snap, String source, List<String> targets,
+            Router.Options opt) {
+        return cache.get(snap.version, source, targets, opt, () -> compute(snap, source, targets, opt));
+    }
+
+    private Router.RouteResult compute(GraphSnapshot snap, String source, Collection<String> targets,
+            Router.Options opt) {
+        ContractionHierarchy ch = snap.hierarchy(opt);
+        if (ch != null)
+            return ch.route(source, targets);
+        return Router.shortestPathToAny(snap.graph, source, targets, opt);
+    }
+
+    private Router.RouteResult compute(GraphSnapshot snap, SpatialIndex.EdgeSnap start, Collection<String> targets,
+            Router.Options opt) {
+        ContractionHierarchy ch = snap.hierarchy(opt);
+        if (ch != null)
+            return ch.route(start, targets);
+        return Router.shortestPathToAny(snap.graph, start, targets, opt);
+    }
+
+    /** 기본 탐색(DIJKSTRA, 벌점 없음) 요청만 거리표/CH/캐시 사용 */
+    private static boolean isDefault(Router.Options opt) {
+        return opt == null || (opt.algorithm == Router.Algorithm.DIJKSTRA && opt.costModel == null);
+    }
+}
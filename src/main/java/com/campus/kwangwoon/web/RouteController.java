@@ -1,37 +1,106 @@
 package com.campus.kwangwoon.web;
 
+import com.campus.kwangwoon.graph.CostModel;
 import com.campus.kwangwoon.graph.Graph;
+import com.campus.kwangwoon.graph.RouteGeometry;
 import com.campus.kwangwoon.graph.Router;
+import com.campus.kwangwoon.graph.SpatialIndex;
 import com.campus.kwangwoon.model.Node;
-import com.campus.kwangwoon.model.Point;
 import com.campus.kwangwoon.model.BuildingInfo;
-import com.campus.kwangwoon.model.Edge;
 import com.campus.kwangwoon.model.Feedback; // [추가] Entity
 import com.campus.kwangwoon.model.FeedbackRequest; // [추가] DTO
+import com.campus.kwangwoon.model.RoutePenalty;
+import com.campus.kwangwoon.model.RouteQuery;
 import com.campus.kwangwoon.repository.FeedbackRepository; // [추가] Repository
 import com.campus.kwangwoon.service.GraphService;
+import com.campus.kwangwoon.service.GraphSnapshot;
+import com.campus.kwangwoon.service.JsonPayload;
+import com.campus.kwangwoon.service.RouteCache;
+import com.campus.kwangwoon.service.RouteMetrics;
+import com.campus.kwangwoon.service.RouteService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Collections;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 
 @RestController // 이 클래스가 JSON을 반환하는 API 컨트롤러임을 선언
 @RequestMapping("/api") // 이 클래스의 모든 API 주소는 "/api"로 시작
 public class RouteController {
 
+    // 비동기 appender(logback-spring.xml)로 나가므로 요청 스레드는 콘솔 출력을 기다리지 않음
+    // 게이트 필터링 같은 세부 추적은 DEBUG (꺼져 있으면 문자열을 만들지 않음)
+    private static final Logger log = LoggerFactory.getLogger(RouteController.class);
+
+    private static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
     // @Autowired: Spring Boot가 2단계에서 만든 GraphService를 여기에 자동으로 연결
     @Autowired
     private GraphService graphService;
 
+    // 경로 질의 (거리표 조회 또는 실시간 탐색)
+    @Autowired
+    private RouteService routeService;
+
+    // 단계별 소요 시간 / 경로 없음 지표 (/actuator/prometheus)
+    @Autowired
+    private RouteMetrics routeMetrics;
+
     @Autowired
     private FeedbackRepository feedbackRepository;
 
+    // 배치 응답(NDJSON) 직렬화용 (Spring이 설정한 ObjectMapper)
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // /api/route/batch 한 번에 받을 수 있는 최대 질의 수
+    @Value("${campus.router.batch.max-queries:1000}")
+    private int batchMaxQueries;
+
+    // /api/reach 에서 받을 수 있는 최대 도보 예산 (미터, 탐색량 상한)
+    @Value("${campus.router.reach.max-meters:3000}")
+    private double reachMaxMeters;
+
+    // 요청 하나가 쓸 수 있는 계단/턱 수 상한 층 수 (maxStairs + 1) * (maxCrubs + 1), 넘으면 400
+    // 층 수만큼 스레드별 탐색 공간이 커지므로 CostModel.MAX_LAYERS보다 낮게 둠
+    @Value("${campus.router.penalty.max-layers:4}")
+    private int penaltyMaxLayers;
+
+    // 빌딩 거리 행렬의 소요 시간(초) 계산에 쓰는 기본 보행 속도 (m/s)
+    @Value("${campus.router.walking-speed-mps:1.3}")
+    private double walkingSpeed;
+
+    // POST /api/admin/reload 사용 여부 (기본 꺼짐) 와 요청 헤더 X-Admin-Token 으로 보내야 하는 토큰
+    @Value("${campus.admin.reload.enabled:false}")
+    private boolean adminReloadEnabled;
+
+    @Value("${campus.admin.token:}")
+    private String adminToken;
+
+    // 성공한 경로 요청의 요약 로그(INFO)는 N건 중 1건만 남김 (1이면 전부, 0이면 끔)
+    @Value("${campus.log.route-sample-every:100}")
+    private int routeLogSampleEvery;
+
     // 1. [사용자용] 불편 신고 접수 (DB에 저장)
     @PostMapping("/feedback")
     public ResponseEntity<String> receiveFeedback(@RequestBody FeedbackRequest req) {
@@ -45,7 +114,8 @@ public class RouteController {
         // DB 저장 (INSERT)
         feedbackRepository.save(feedback);
 
-        System.out.println("📢 DB 저장됨: " + feedback.getContent());
+        log.info("피드백 저장: category={}", feedback.getCategory());
+        log.debug("피드백 내용: {}", feedback.getContent());
         return ResponseEntity.ok("접수 완료");
     }
 
@@ -69,47 +139,152 @@ public class RouteController {
         return graphService.getBuildingInfoList();
     }
 
+    /**
+     * 빌딩 간 도보 거리/시간 행렬 API (출발 빌딩 x 전체 빌딩, 게이트 쌍 중 최단)
+     * 예: http://localhost:8080/api/buildings/matrix?origins=BimaHall,SaebitHall&avoidStair=true
+     * origins를 생략하면 전체 빌딩, speed(m/s)를 생략하면 campus.router.walking-speed-mps.
+     * 도달할 수 없는 칸은 null, 없는 빌딩 ID나 잘못된 speed, campus.router.matrix.max-origins를 넘는 출발 빌딩 수는 400
+     */
+    @GetMapping("/buildings/matrix")
+    public ResponseEntity<RouteService.DistanceMatrix> getBuildingMatrix(
+            @RequestParam(required = false) List<String> origins,
+            @RequestParam(defaultValue = "false") boolean avoidStair,
+            @RequestParam(defaultValue = "false") boolean avoidCrub,
+            @RequestParam(required = false) Double speed) {
+        Router.Options opt = new Router.Options();
+        opt.avoidStair = avoidStair;
+        opt.avoidCrub = avoidCrub;
+
+        long searchStart = System.nanoTime();
+        RouteService.DistanceMatrix matrix;
+        try {
+            matrix = routeService.buildingMatrix(graphService.snapshot(), origins, opt,
+                    speed == null ? walkingSpeed : speed);
+        } catch (IllegalArgumentException e) {
+            log.debug("빌딩 행렬 요청 거부: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        routeMetrics.recordPhase(RouteMetrics.MATRIX, RouteMetrics.SEARCH, System.nanoTime() - searchStart);
+        if (sampled())
+            log.info("buildings/matrix origins={} avoidStair={} avoidCrub={} version={}",
+                    matrix.origins.size(), avoidStair, avoidCrub, matrix.graphVersion);
+        return ResponseEntity.ok(matrix);
+    }
+
     /**
      * 경로 탐색 API
      * 예: http://localhost:8080/api/route?start=BH-MG&end=CH-MG&avoidStair=true
+     * (algorithm=ASTAR 로 A*, BIDIRECTIONAL 로 양방향 Dijkstra 사용, 응답의 settled로 탐색량 비교 가능)
+     * (format=POLYLINE 이면 노드 ID 대신 인코딩된 경로 좌표와 구간별 거리/계단/턱을 담은 RouteGeometry)
      */
     @GetMapping("/route") // GET 방식의 /api/route 주소 요청을 이 메소드가 처리
-    public ResponseEntity<Router.RouteResult> findRoute(
+    public ResponseEntity<?> findRoute(
             // @RequestParam: URL의 파라미터(물음표 뒤) 값을 읽어옴
             @RequestParam String start,
             @RequestParam String end,
             @RequestParam(defaultValue = "false") boolean avoidStair,
-            @RequestParam(defaultValue = "false") boolean avoidCrub) {
+            @RequestParam(defaultValue = "false") boolean avoidCrub,
+            @RequestParam(defaultValue = "DIJKSTRA") Router.Algorithm algorithm,
+            @RequestParam(defaultValue = "PATH") RouteGeometry.Format format,
+            RoutePenalty penalty) {
 
-        // 1. 2단계에서 만든 서비스로부터 로드된 그래프를 가져옴
-        Graph g = graphService.getGraph();
-
-        // 2. Demo.java의 main 메소드와 동일한 로직 수행
+        // 1. Demo.java의 main 메소드와 동일한 로직 수행
         Router.Options opt = new Router.Options(); //
         opt.avoidStair = avoidStair; //
         opt.avoidCrub = avoidCrub; //
+        opt.algorithm = algorithm; // DIJKSTRA, ASTAR, BIDIRECTIONAL
+        if (!applyPenalty(opt, penalty))
+            return ResponseEntity.badRequest().build();
 
-        Router.RouteResult res = Router.shortestPath(g, start, end, opt); //
+        // 2. 거리표(사전 계산) 또는 실시간 탐색으로 경로 계산
+        long searchStart = System.nanoTime();
+        GraphSnapshot snap = graphService.snapshot(); // 경로와 geometry를 같은 그래프에서
+        Router.RouteResult res = routeService.route(snap, start, end, opt); //
+        routeMetrics.recordPhase(RouteMetrics.ROUTE, RouteMetrics.SEARCH, System.nanoTime() - searchStart);
 
         // 3. 결과 반환
         if (res == null) {
             // Router.shortestPath가 null을 반환하면 "경로 없음" (404 Not Found)
+            routeMetrics.noRoute(RouteMetrics.ROUTE);
             return ResponseEntity.notFound().build();
         } else {
+            if (sampled())
+                log.info("route start={} end={} avoidStair={} avoidCrub={} algorithm={} cost={} settled={}",
+                        start, end, avoidStair, avoidCrub, algorithm, res.cost, res.settled);
             // RouteResult 객체를 반환하면 Spring Boot가 자동으로 JSON으로 변환
             // 예: { "path": ["BH-MG", "...", "CH-MG"], "cost": 3.0 }
-            return ResponseEntity.ok(res);
+            return routeResponse(snap, res, null, opt, format);
+        }
+    }
+
+    /**
+     * 배치 경로 탐색 API: 여러 (출발, 도착, 회피 옵션)을 한 번에 계산
+     * 예: POST http://localhost:8080/api/route/batch
+     * [ { "start": "BH-MG", "end": "CH-MG", "avoidStair": true }, ... ]
+     * 출발지/옵션이 같은 질의는 탐색 한 번으로 처리하고, 출발지 묶음들은 전용 탐색 풀에서 병렬로 처리.
+     * 응답은 NDJSON(한 줄에 결과 하나)이고 끝난 묶음부터 바로 전송하므로 순서는 요청과 다름 (index로 매칭).
+     * 경로가 없으면 result가 null, 없는 노드 ID 등은 error에 사유
+     */
+    @PostMapping("/route/batch")
+    public ResponseEntity<StreamingResponseBody> findRoutes(@RequestBody List<RouteQuery> queries) {
+        if (queries.size() > batchMaxQueries) {
+            log.debug("배치 질의 수 초과: {} > {}", queries.size(), batchMaxQueries);
+            return ResponseEntity.badRequest().build();
+        }
+        // 응답을 다 보낼 때까지 같은 스냅샷 사용
+        GraphSnapshot snap = graphService.snapshot();
+        StreamingResponseBody body = out -> {
+            long searchStart = System.nanoTime();
+            try {
+                routeService.routeBatch(snap, queries, results -> writeLines(out, results));
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); // 클라이언트 연결 끊김 등: 남은 묶음은 처리하지 않음
+            }
+            routeMetrics.recordPhase(RouteMetrics.ROUTE_BATCH, RouteMetrics.SEARCH, System.nanoTime() - searchStart);
+            if (sampled())
+                log.info("route/batch queries={} version={}", queries.size(), snap.version);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /** 결과 묶음을 줄 단위 JSON으로 씀 (여러 스레드에서 호출되므로 직렬화는 밖에서, 쓰기만 잠금) */
+    private void writeLines(OutputStream out, List<RouteService.BatchResult> results) {
+        try {
+            byte[][] lines = new byte[results.size()][];
+            for (int i = 0; i < lines.length; i++)
+                lines[i] = objectMapper.writeValueAsBytes(results.get(i));
+            synchronized (out) {
+                for (byte[] line : lines) {
+                    out.write(line);
+                    out.write('\n');
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
+    /**
+     * 경로 캐시 상태 (적중/실패/제거 횟수, 적중률)
+     * 예: http://localhost:8080/api/route/cache
+     */
+    @GetMapping("/route/cache")
+    public RouteCache.Stats getRouteCacheStats() {
+        return routeService.cacheStats();
+    }
+
     /**
      * 모든 노드 목록 반환 API (프론트엔드에서 드롭다운 메뉴 만들 때 사용)
      * 예: http://localhost:8080/api/nodes
      */
     @GetMapping("/nodes")
-    public Collection<Node> getAllNodes() {
-        // 그래프의 모든 노드 정보를 반환
-        return graphService.getGraph().nodes();
+    public ResponseEntity<byte[]> getAllNodes(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // 그래프의 모든 노드 정보를 반환 (스냅샷마다 한 번 직렬화/압축해 둔 바이트)
+        GraphSnapshot snap = graphService.snapshot();
+        return payloadResponse(snap.nodesPayload, ifNoneMatch, acceptEncoding);
     }
 
     /* GPS 좌표를 그래프에 존재하는 가까운 node로 mapping하는 method 2개 */
@@ -117,71 +292,106 @@ public class RouteController {
     /**
      * GPS 좌표 기반 경로 탐색 API
      * 예:
-     * http://localhost:8080/api/route/gps?startLat=37.619550&startLng=127.059400&end=CH-MG
+     * http://localhost:8080/api/route/gps?startLat=37.619550&startLng=127.059400&end=CH-MG&format=POLYLINE
      */
     @GetMapping("/route/gps")
-    public ResponseEntity<Router.RouteResult> findRouteFromGps(
+    public ResponseEntity<?> findRouteFromGps(
             @RequestParam double startLat, // 사용자의 현재 위도
             @RequestParam double startLng, // 사용자의 현재 경도
             @RequestParam String end, // 목적지 노드 ID
             @RequestParam(defaultValue = "false") boolean avoidStair,
-            @RequestParam(defaultValue = "false") boolean avoidCrub) {
-
-        Graph g = graphService.getGraph();
-
-        // 1. 사용자의 GPS 좌표와 가장 가까운 노드를 찾음
-        String nearestStartNodeId = findNearestNode(g, startLat, startLng);
-        if (nearestStartNodeId == null) {
-            // 그래프에 노드가 하나도 없는 예외 상황
+            @RequestParam(defaultValue = "false") boolean avoidCrub,
+            @RequestParam(defaultValue = "DIJKSTRA") Router.Algorithm algorithm,
+            @RequestParam(defaultValue = "PATH") RouteGeometry.Format format,
+            RoutePenalty penalty) {
+
+        // 요청 처리 중 그래프가 다시 로드되어도 이 스냅샷으로 끝까지 처리
+        GraphSnapshot snap = graphService.snapshot();
+
+        // 1. 사용자의 GPS 좌표를 가장 가까운 엣지 위의 지점으로 스내핑
+        long snapStart = System.nanoTime();
+        SpatialIndex.EdgeSnap startSnap = snapToEdge(snap, startLat, startLng, avoidStair, avoidCrub);
+        routeMetrics.recordPhase(RouteMetrics.ROUTE_GPS, RouteMetrics.SNAP, System.nanoTime() - snapStart);
+        if (startSnap == null) {
+            // 그래프에 (좌표가 있는) 엣지가 하나도 없는 예외 상황
             return ResponseEntity.badRequest().build();
         }
 
-        System.out.println("GPS(" + startLat + "," + startLng + ") -> 가장 가까운 노드: " + nearestStartNodeId);
+        log.debug("route/gps 스내핑: lat={} lng={} edge={}->{}", startLat, startLng, startSnap.from, startSnap.to);
 
-        // 2. 찾은 노드를 '출발지'로 사용하여 경로 탐색 실행
+        // 2. 스내핑 지점을 '출발지'로 사용하여 경로 탐색 실행
+        // (엣지 양 끝 노드까지 남은 거리와 내 위치 ~ 엣지 거리가 비용에 포함됨)
         Router.Options opt = new Router.Options();
         opt.avoidStair = avoidStair;
         opt.avoidCrub = avoidCrub;
-        Router.RouteResult res = Router.shortestPath(g, nearestStartNodeId, end, opt);
+        opt.algorithm = algorithm;
+        if (!applyPenalty(opt, penalty))
+            return ResponseEntity.badRequest().build();
+        long searchStart = System.nanoTime();
+        Router.RouteResult res = routeService.route(snap, startSnap, List.of(end), opt);
+        routeMetrics.recordPhase(RouteMetrics.ROUTE_GPS, RouteMetrics.SEARCH, System.nanoTime() - searchStart);
 
         if (res == null) {
+            routeMetrics.noRoute(RouteMetrics.ROUTE_GPS);
             return ResponseEntity.notFound().build();
         } else {
-            // (개선) 여기서 res.cost에 "내 위치 ~ nearestStartNode"까지의 실제 거리를 더해주면
-            // 더 정확한 총 비용(거리)을 사용자에게 알려줄 수 있습니다.
-            return ResponseEntity.ok(res);
+            if (sampled())
+                log.info("route/gps lat={} lng={} end={} avoidStair={} avoidCrub={} algorithm={} cost={} settled={}",
+                        startLat, startLng, end, avoidStair, avoidCrub, algorithm, res.cost, res.settled);
+            return routeResponse(snap, res, startSnap, opt, format);
         }
     }
 
-    // 2. [헬퍼 메소드] 가장 가까운 노드 ID를 찾는 로직
     /**
-     * 주어진 좌표(userLat, userLng)에서 가장 가까운 노드를 찾아 ID를 반환합니다.
+     * 도달 범위(isochrone) API: GPS 위치에서 maxMeters 안에 걸어서 닿는 노드와 엣지 구간
+     * 예: http://localhost:8080/api/reach?lat=37.619550&lng=127.059400&maxMeters=300&avoidStair=true
+     * (대피 동선, 휠체어 접근 범위 지도용. 내 위치 ~ 엣지 거리도 예산에 포함)
+     * maxMeters가 0 이하이거나 campus.router.reach.max-meters를 넘으면 400
      */
-    private String findNearestNode(Graph g, double userLat, double userLng) {
-        String bestNodeId = null;
-        double minDistanceSq = Double.POSITIVE_INFINITY; // 최소 거리의 '제곱' (성능 최적화)
-
-        // 그래프의 모든 노드를 순회
-        for (Node node : g.nodes()) {
-            Point location = node.getLocation();
-            if (location == null)
-                continue;
+    @GetMapping("/reach")
+    public ResponseEntity<Router.ReachResult> findReach(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam double maxMeters,
+            @RequestParam(defaultValue = "false") boolean avoidStair,
+            @RequestParam(defaultValue = "false") boolean avoidCrub) {
+        if (!(maxMeters > 0) || maxMeters > reachMaxMeters) {
+            log.debug("reach 예산 범위 밖: {} (최대 {})", maxMeters, reachMaxMeters);
+            return ResponseEntity.badRequest().build();
+        }
+        GraphSnapshot snap = graphService.snapshot();
 
-            double nodeLat = location.getLat();
-            double nodeLng = location.getLng();
+        long snapStart = System.nanoTime();
+        SpatialIndex.EdgeSnap startSnap = snapToEdge(snap, lat, lng, avoidStair, avoidCrub);
+        routeMetrics.recordPhase(RouteMetrics.REACH, RouteMetrics.SNAP, System.nanoTime() - snapStart);
+        if (startSnap == null)
+            return ResponseEntity.badRequest().build();
 
-            // 위도/경도 차이를 이용한 간단한 유클리드 거리 제곱 계산
-            // (정확한 계산을 위해서는 Haversine 공식을 써야 하지만,
-            // 캠퍼스처럼 좁은 범위에서는 이 방식으로도 충분히 가장 '가까운' 노드를 찾을 수 있습니다.)
-            double distSq = (userLat - nodeLat) * (userLat - nodeLat) +
-                    (userLng - nodeLng) * (userLng - nodeLng);
+        Router.Options opt = new Router.Options();
+        opt.avoidStair = avoidStair;
+        opt.avoidCrub = avoidCrub;
+        long searchStart = System.nanoTime();
+        Router.ReachResult res = routeService.reach(snap, startSnap, maxMeters, opt);
+        routeMetrics.recordPhase(RouteMetrics.REACH, RouteMetrics.SEARCH, System.nanoTime() - searchStart);
+        if (sampled())
+            log.info("reach lat={} lng={} maxMeters={} avoidStair={} avoidCrub={} nodes={} settled={}",
+                    lat, lng, maxMeters, avoidStair, avoidCrub, res.nodes.size(), res.settled);
+        return ResponseEntity.ok(res);
+    }
 
-            if (distSq < minDistanceSq) {
-                minDistanceSq = distSq;
-                bestNodeId = node.getId();
-            }
-        }
-        return bestNodeId;
+    // 2. [헬퍼 메소드] GPS 좌표를 가장 가까운 엣지 위로 스내핑
+    /**
+     * 주어진 좌표(userLat, userLng)를 가장 가까운 엣지(geometry 포함) 위의 지점으로 투영합니다.
+     * 노드로만 스내핑하면 이미 서 있는 엣지를 거꾸로 돌아가는 경로가 나올 수 있어서
+     * 엣지 위 지점에서 양 끝 노드로 동시에 출발합니다.
+     * 계단/턱 회피 시 양방향 모두 막힌 엣지(예: 계단 엣지)는 건너뛰고 걸을 수 있는 가장 가까운 엣지로 스내핑합니다.
+     */
+    private SpatialIndex.EdgeSnap snapToEdge(GraphSnapshot snap, double userLat, double userLng,
+            boolean avoidStair, boolean avoidCrub) {
+        Router.Options opt = new Router.Options();
+        opt.avoidStair = avoidStair;
+        opt.avoidCrub = avoidCrub;
+        return snap.spatialIndex.nearestEdge(userLat, userLng, opt);
     }
 
     /**
@@ -190,37 +400,47 @@ public class RouteController {
      * 가장 가까운 게이트로 안내합니다.
      *
      * 예: /api/find?lat=37.619550&lng=127.059400&building=BimaHall&avoidStair=true
+     * (format=POLYLINE 이면 스내핑 지점부터의 경로 좌표를 담은 RouteGeometry)
+     * 계단을 전부 막으면 404인 경우 avoidStair 대신 stairPenalty=200&maxStairs=1 처럼 벌점/상한을 줄 수 있음
+     * (stairFactor, stairPenalty, crubFactor, crubPenalty, maxStairs, maxCrubs: /api/route, /api/route/gps도 동일)
      */
     @GetMapping("/find")
-    public ResponseEntity<Router.RouteResult> findOptimalRoute(
+    public ResponseEntity<?> findOptimalRoute(
             @RequestParam double lat, // GPS 위도
             @RequestParam double lng, // GPS 경도
             @RequestParam String building, // "BimaHall" 같은 빌딩 이름
             @RequestParam(defaultValue = "false") boolean avoidStair,
-            @RequestParam(defaultValue = "false") boolean avoidCrub) {
-
-        Graph g = graphService.getGraph();
-
-        // --- 1. 출발지 처리 (GPS -> 가장 가까운 노드) ---
-        // (이것은 파일에 이미 있는 findNearestNode 헬퍼 메소드를 사용합니다)
-        String startNodeId = findNearestNode(g, lat, lng);
-        if (startNodeId == null) {
-            return ResponseEntity.badRequest().build(); // 그래프에 노드 없음
+            @RequestParam(defaultValue = "false") boolean avoidCrub,
+            @RequestParam(defaultValue = "DIJKSTRA") Router.Algorithm algorithm,
+            @RequestParam(defaultValue = "PATH") RouteGeometry.Format format,
+            RoutePenalty penalty) {
+
+        // 요청 처리 중 그래프가 다시 로드되어도 이 스냅샷으로 끝까지 처리
+        GraphSnapshot snap = graphService.snapshot();
+        Graph g = snap.graph;
+
+        // --- 1. 출발지 처리 (GPS -> 가장 가까운 엣지 위 지점) ---
+        long snapStart = System.nanoTime();
+        SpatialIndex.EdgeSnap startSnap = snapToEdge(snap, lat, lng, avoidStair, avoidCrub);
+        routeMetrics.recordPhase(RouteMetrics.FIND, RouteMetrics.SNAP, System.nanoTime() - snapStart);
+        if (startSnap == null) {
+            return ResponseEntity.badRequest().build(); // 그래프에 엣지 없음
         }
-        System.out.println("GPS -> 시작 노드: " + startNodeId);
+        log.debug("find 스내핑: lat={} lng={} edge={}->{}", lat, lng, startSnap.from, startSnap.to);
 
         // --- 2. 목적지 처리 (빌딩 이름 -> 유효한 게이트 목록) ---
         // [중요] 하드코딩 대신 GraphService에서 빌딩 정보를 가져옵니다.
-        Map<String, List<String>> buildingGatesMap = graphService.getBuildingGateMap();
+        Map<String, List<String>> buildingGatesMap = snap.buildingGateMap;
         List<String> targetGateIds = buildingGatesMap.get(building);
 
         if (targetGateIds == null || targetGateIds.isEmpty()) {
-            System.out.println("요청한 빌딩(" + building + ")을 building.json에서 찾을 수 없음");
+            log.debug("요청한 빌딩을 building.json에서 찾을 수 없음: building={}", building);
             return ResponseEntity.badRequest().build(); // building.json에 없는 빌딩 이름
         }
 
         // --- 3. [핵심] 목적지 게이트 필터링 (사용자 옵션 반영) ---
         // "비마관"의 모든 게이트("BH-MG", "BH-SG", "BH-BG")를 하나씩 검사
+        long filterStart = System.nanoTime();
         List<String> validTargetIds = new ArrayList<>();
         for (String gateId : targetGateIds) {
             Node node = g.getNode(gateId);
@@ -229,66 +449,187 @@ public class RouteController {
 
             // 사용자가 "계단 회피"를 원했는데, 이 게이트(노드) 자체가 계단이면
             if (avoidStair && node.isStair()) {
-                System.out.println("목적지 필터링: " + gateId + " (계단 O) 탈락");
+                log.debug("목적지 필터링: gate={} (계단) 탈락", gateId);
                 continue; // 이 게이트는 사용 못함 (탈락)
             }
             // 사용자가 "턱 회피"를 원했는데, 이 게이트(노드) 자체가 턱이면
             if (avoidCrub && node.isCrub()) {
-                System.out.println("목적지 필터링: " + gateId + " (턱 O) 탈락");
+                log.debug("목적지 필터링: gate={} (턱) 탈락", gateId);
                 continue; // 이 게이트는 사용 못함 (탈락)
             }
 
             // 위 조건을 통과한 게이트만 "유효한 목적지"가 됨
             validTargetIds.add(gateId);
         }
+        routeMetrics.recordPhase(RouteMetrics.FIND, RouteMetrics.GATE_FILTER, System.nanoTime() - filterStart);
 
         if (validTargetIds.isEmpty()) {
             // 예: "계단 없는" 게이트를 원했지만, "비마관"의 모든 게이트가 계단일 경우
-            System.out.println("옵션을 만족하는 목적지 게이트가 없음");
+            log.debug("옵션을 만족하는 목적지 게이트가 없음: building={}", building);
+            routeMetrics.noRoute(RouteMetrics.FIND);
             return ResponseEntity.notFound().build();
         }
-        System.out.println("유효한 목적지 게이트 후보: " + validTargetIds);
+        log.debug("유효한 목적지 게이트 후보: {}", validTargetIds);
 
-        // --- 4. 모든 유효한 게이트까지의 경로를 각각 탐색 ---
+        // --- 4. 유효한 게이트 전체를 목적지 집합으로 한 번만 탐색 ---
+        // (가장 먼저 확정되는 게이트가 곧 가장 가까운 게이트)
         Router.Options edgeOptions = new Router.Options();
         edgeOptions.avoidStair = avoidStair; // (경로상 '엣지'의 계단/턱도 피함)
         edgeOptions.avoidCrub = avoidCrub; //
+        edgeOptions.algorithm = algorithm;
+        if (!applyPenalty(edgeOptions, penalty))
+            return ResponseEntity.badRequest().build();
 
-        Router.RouteResult bestResult = null;
-
-        for (String targetId : validTargetIds) {
-            // (예) "BH-SG"까지의 최단 경로 탐색
-            Router.RouteResult currentResult = Router.shortestPath(g, startNodeId, targetId, edgeOptions);
-
-            if (currentResult != null) {
-                // (예) "BH-BG"까지의 경로와 비교
-                if (bestResult == null || currentResult.cost < bestResult.cost) {
-                    bestResult = currentResult; // "BH-SG"보다 "BH-BG"가 더 가까우면 교체
-                }
-            }
-        }
+        long searchStart = System.nanoTime();
+        Router.RouteResult bestResult = routeService.route(snap, startSnap, validTargetIds, edgeOptions);
+        routeMetrics.recordPhase(RouteMetrics.FIND, RouteMetrics.SEARCH, System.nanoTime() - searchStart);
 
         // --- 5. 가장 짧은 경로 반환 ---
         if (bestResult == null) {
             // 유효한 게이트는 있었지만, 가는 '길(edge)'이 모두 막혔을 경우
-            System.out.println("유효한 게이트는 있으나, 경로(Edge)를 찾을 수 없음");
+            log.debug("유효한 게이트는 있으나 경로를 찾을 수 없음: building={} gates={}", building, validTargetIds);
+            routeMetrics.noRoute(RouteMetrics.FIND);
+            return ResponseEntity.notFound().build();
+        }
+
+        if (sampled())
+            log.info("find lat={} lng={} building={} avoidStair={} avoidCrub={} gate={} cost={} settled={}",
+                    lat, lng, building, avoidStair, avoidCrub, bestResult.path.get(bestResult.path.size() - 1),
+                    bestResult.cost, bestResult.settled);
+        return routeResponse(snap, bestResult, startSnap, edgeOptions, format);
+    }
+
+    /**
+     * 벌점 파라미터가 있으면 opt.costModel로 설정 (계단/턱을 막는 대신 비용을 더 매김).
+     * 값이 잘못되었거나 층 수가 campus.router.penalty.max-layers를 넘으면 false (400 응답)
+     */
+    private boolean applyPenalty(Router.Options opt, RoutePenalty penalty) {
+        if (penalty == null || !penalty.isPresent())
+            return true;
+        CostModel model = new CostModel();
+        if (penalty.getStairFactor() != null)
+            model.stairFactor = penalty.getStairFactor();
+        if (penalty.getStairPenalty() != null)
+            model.stairPenalty = penalty.getStairPenalty();
+        if (penalty.getCrubFactor() != null)
+            model.crubFactor = penalty.getCrubFactor();
+        if (penalty.getCrubPenalty() != null)
+            model.crubPenalty = penalty.getCrubPenalty();
+        if (penalty.getMaxStairs() != null)
+            model.maxStairs = penalty.getMaxStairs();
+        if (penalty.getMaxCrubs() != null)
+            model.maxCrubs = penalty.getMaxCrubs();
+        try {
+            model.validate();
+        } catch (IllegalArgumentException e) {
+            log.debug("벌점 파라미터 거부: {}", e.getMessage());
+            return false;
+        }
+        if (model.layers() > penaltyMaxLayers) {
+            log.debug("벌점 파라미터 거부: 층 수 {} > {}", model.layers(), penaltyMaxLayers);
+            return false;
+        }
+        opt.costModel = model;
+        return true;
+    }
+
+    /** 요청한 형식의 경로 응답 (POLYLINE이면 같은 스냅샷 그래프에서 geometry를 이어붙임) */
+    private ResponseEntity<?> routeResponse(GraphSnapshot snap, Router.RouteResult res, SpatialIndex.EdgeSnap start,
+            Router.Options opt, RouteGeometry.Format format) {
+        if (format == RouteGeometry.Format.POLYLINE)
+            return ResponseEntity.ok(RouteGeometry.of(snap.graph, res, start, opt));
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * [운영자용] 데이터 폴더(node.json/edge.json/building.json)를 다시 읽어 그래프 교체 (재시작 불필요)
+     * 새 그래프를 다 만든 뒤 한 번에 교체하므로 처리 중인 요청은 이전 그래프로 끝남
+     * campus.admin.reload.enabled=true 이고 토큰이 설정된 경우에만 열림 (아니면 404), 토큰이 다르면 403
+     * 예: POST http://localhost:8080/api/admin/reload (헤더 X-Admin-Token: 설정한 토큰)
+     */
+    @PostMapping("/admin/reload")
+    public ResponseEntity<String> reloadGraph(
+            @RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token) {
+        if (!adminReloadEnabled || adminToken == null || adminToken.isBlank())
             return ResponseEntity.notFound().build();
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                adminToken.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("관리자 토큰이 맞지 않아 다시 로드 거부");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        try {
+            GraphSnapshot snap = graphService.reload();
+            return ResponseEntity.ok("버전 " + snap.version + ": " + snap.graph.summary());
+        } catch (IOException | RuntimeException e) {
+            // 로드 실패 시 기존 그래프를 그대로 사용
+            log.warn("다시 로드 실패, 이전 그래프 유지: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("다시 로드 실패: " + e.getMessage());
+        }
+    }
 
-        System.out
-                .println("최종 안내 게이트: " + bestResult.path.get(bestResult.path.size() - 1) + ", 비용: " + bestResult.cost);
-        return ResponseEntity.ok(bestResult);
+    /** 이번 요청의 요약 로그를 남길지 (INFO가 꺼져 있으면 난수도 뽑지 않음) */
+    private boolean sampled() {
+        int every = routeLogSampleEvery;
+        return every > 0 && log.isInfoEnabled() && (every == 1 || ThreadLocalRandom.current().nextInt(every) == 0);
     }
 
+    /**
+     * 모든 엣지 목록 반환 API (디버그 모드 지도 표시용)
+     * 무방향 그래프의 역방향 아크는 같은 선이므로 빼고 입력 엣지만 보냄
+     */
     @GetMapping("/edges")
-    public List<Edge> getAllEdges() {
-        Graph g = graphService.getGraph();
-        List<Edge> allEdges = new ArrayList<>();
+    public ResponseEntity<byte[]> getAllEdges(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        GraphSnapshot snap = graphService.snapshot();
+        return payloadResponse(snap.edgesPayload, ifNoneMatch, acceptEncoding);
+    }
 
-        // 그래프의 모든 노드를 돌면서, 연결된 모든 간선을 수집
-        for (Node node : g.nodes()) {
-            allEdges.addAll(g.outgoing(node.getId()));
+    /**
+     * 미리 직렬화한 JSON 응답: 보낼 표현(원본/gzip)의 ETag가 같으면 304 (본문 없음), 클라이언트가 gzip을 받으면
+     * 압축본 그대로.
+     * Cache-Control: no-cache 라서 브라우저는 매번 If-None-Match로 재검증 (다시 로드하면 바로 반영)
+     */
+    private ResponseEntity<byte[]> payloadResponse(JsonPayload payload, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        if (payload.matches(ifNoneMatch, gzip)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(payload.etag(gzip))
+                    .cacheControl(CacheControl.noCache())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder res = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(payload.etag(gzip))
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip)
+            res.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return res.body(gzip ? payload.gzip : payload.json);
+    }
+
+    /** Accept-Encoding에 gzip(q=0 제외)이 있는지 */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*"))
+                continue;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2).trim()) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
         }
-        return allEdges;
+        return false;
     }
 }
\ No newline at end of file
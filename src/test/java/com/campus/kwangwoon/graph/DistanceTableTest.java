@@ -0,0 +1,69 @@
+package com.campus.kwangwoon.graph;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.campus.kwangwoon.graph.TestGraphs.BLOCKS;
+import static com.campus.kwangwoon.graph.TestGraphs.assertRoute;
+import static com.campus.kwangwoon.graph.TestGraphs.options;
+import static com.campus.kwangwoon.graph.TestGraphs.referenceCost;
+
+/** 표 조회 + next-hop 복원 결과가 단순 Dijkstra와 같은지 (회피 프로필 네 개, 목적지 하나와 여러 개) */
+class DistanceTableTest {
+
+    @TempDir
+    static Path tempDir;
+
+    private static Graph campus;
+    private static Graph generated;
+
+    @BeforeAll
+    static void loadGraphs() throws IOException {
+        campus = TestGraphs.campus();
+        generated = TestGraphs.generated(tempDir, 900, 7);
+    }
+
+    @Test
+    void singleTargetMatchesReference() {
+        for (Graph g : List.of(campus, generated)) {
+            for (int block : BLOCKS) {
+                Router.Options opt = options(block);
+                DistanceTable table = DistanceTable.build(g, opt);
+                Random rnd = new Random(block + 2);
+                for (int q = 0; q < 100; q++) {
+                    int s = rnd.nextInt(g.nodeCount());
+                    int t = rnd.nextInt(g.nodeCount());
+                    assertRoute(g, referenceCost(g, s, t, block, null), table.route(g.idOf(s), List.of(g.idOf(t))),
+                            block, g.idOf(s) + " -> " + g.idOf(t) + " block=" + block);
+                }
+            }
+        }
+    }
+
+    @Test
+    void nearestOfSeveralTargetsMatchesReference() {
+        for (Graph g : List.of(campus, generated)) {
+            int block = Graph.STAIR_ANY;
+            DistanceTable table = DistanceTable.build(g, options(block));
+            Random rnd = new Random(5);
+            for (int q = 0; q < 50; q++) {
+                int s = rnd.nextInt(g.nodeCount());
+                List<String> dsts = new ArrayList<>();
+                double expected = Double.POSITIVE_INFINITY;
+                for (int i = 0; i < 3; i++) {
+                    int t = rnd.nextInt(g.nodeCount());
+                    dsts.add(g.idOf(t));
+                    expected = Math.min(expected, referenceCost(g, s, t, block, null));
+                }
+                assertRoute(g, expected, table.route(g.idOf(s), dsts), block, g.idOf(s) + " -> " + dsts);
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.campus.kwangwoon.graph;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static com.campus.kwangwoon.graph.TestGraphs.BLOCKS;
+import static com.campus.kwangwoon.graph.TestGraphs.EPS;
+import static com.campus.kwangwoon.graph.TestGraphs.options;
+import static com.campus.kwangwoon.graph.TestGraphs.referenceDistances;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GPS 지점을 엣지 위로 스내핑해서 출발하는 모든 탐색(Router, 노드 결과 조합, 거리표, CH, 벌점)이
+ * 스내핑 지점에서 엣지 양 끝으로 출발하는 기준 Dijkstra와 같은지.
+ * 유향 데이터에서는 반대 방향이 같은 엣지의 역방향 아크가 아니라 따로 입력된 엣지이므로 그쪽으로도 출발해야 함
+ */
+class EdgeSnapRoutingTest {
+
+    @TempDir
+    static Path generatedDir;
+    @TempDir
+    static Path directedDir;
+
+    private static Graph campus;
+    private static Graph generated;
+    private static Graph directed;
+
+    @BeforeAll
+    static void loadGraphs() throws IOException {
+        campus = TestGraphs.campus();
+        generated = TestGraphs.generated(generatedDir, 900, 7);
+        directed = TestGraphs.directed(directedDir, 900, 11);
+    }
+
+    @Test
+    void snappedStartsMatchReference() {
+        for (Graph g : List.of(campus, generated, directed)) {
+            SpatialIndex index = SpatialIndex.build(g);
+            Random rnd = new Random(21);
+            int fromSide = 0;
+            for (int block : BLOCKS) {
+                Router.Options base = options(block);
+                DistanceTable table = DistanceTable.build(g, base);
+                ContractionHierarchy ch = ContractionHierarchy.build(g, base);
+                for (int q = 0; q < 60; q++) {
+                    SpatialIndex.EdgeSnap snap = randomSnap(g, index, rnd, base);
+                    List<String> dsts = randomTargets(g, rnd);
+                    double expected = referenceCost(g, snap, dsts, block);
+                    String what = snap.from + " -> " + snap.to + " @" + snap.fraction + " to " + dsts + " block=" + block;
+
+                    for (Router.Algorithm algorithm : Router.Algorithm.values()) {
+                        Router.Options opt = options(block);
+                        opt.algorithm = algorithm;
+                        Router.RouteResult res = Router.shortestPathToAny(g, snap, dsts, opt);
+                        assertSnapped(g, snap, expected, res, block, algorithm + " " + what);
+                        if (res != null && g.indexOf(res.path.get(0)) != g.arcTarget(snap.arc))
+                            fromSide++;
+                        if (res != null) // 출발 구간 geometry도 같은 반대 방향 아크를 찾아야 함
+                            assertEquals(res.path, RouteGeometry.of(g, res, snap, opt).path, what);
+                    }
+                    Function<String, Router.RouteResult> fromNode = id -> Router.shortestPathToAny(g, id, dsts, base);
+                    assertSnapped(g, snap, expected, Router.shortestPathToAny(g, snap, base, fromNode), block,
+                            "from nodes " + what);
+                    assertSnapped(g, snap, expected, table.route(snap, dsts), block, "table " + what);
+                    assertSnapped(g, snap, expected, ch.route(snap, dsts), block, "CH " + what);
+
+                    // 벌점이 없는 모델도 벌점 탐색 경로를 타므로 같은 출발 규칙인지 확인
+                    Router.Options penalty = options(block);
+                    penalty.costModel = new CostModel();
+                    assertSnapped(g, snap, expected, Router.shortestPathToAny(g, snap, dsts, penalty), block,
+                            "penalty " + what);
+                }
+            }
+            // 스내핑 엣지의 from 쪽으로 출발한 경로가 실제로 있었는지 (유향 데이터 포함)
+            assertTrue(fromSide > 0, "no route left toward the edge's from node");
+        }
+    }
+
+    @Test
+    void avoidanceSnapsToEdgeWalkableInOppositeDirection(@TempDir Path dir) throws IOException {
+        // 유향 데이터: A -> B는 곧은 계단 엣지, B -> A는 계단이 아니고 북쪽으로 꺾인 엣지, A -> C는 일반 엣지.
+        // 계단 회피여도 A-B 위 지점은 B -> A 방향으로 걸을 수 있으므로 그 자리(A -> B 아크)에 스내핑하고 A로 출발
+        Files.writeString(dir.resolve("meta.json"), "{ \"directed\": true, \"unit\": \"meter\", \"schemaVersion\": \"1.0.0\" }");
+        Files.writeString(dir.resolve("node.json"), "[" + node("A", 37.6190, 127.0590) + ","
+                + node("B", 37.6190, 127.0600) + "," + node("C", 37.6180, 127.0590) + "]");
+        Files.writeString(dir.resolve("edge.json"), "["
+                + "{\"from\":\"A\",\"to\":\"B\",\"stair\":true,\"crub\":false,\"geometry\":[]},"
+                + "{\"from\":\"B\",\"to\":\"A\",\"stair\":false,\"crub\":false,"
+                + "\"geometry\":[{\"lat\":37.6200,\"lng\":127.0595}]},"
+                + "{\"from\":\"A\",\"to\":\"C\",\"stair\":false,\"crub\":false,\"geometry\":[]}]");
+        Files.writeString(dir.resolve("building.json"), "[]");
+        Graph g = Graph.load(dir);
+        SpatialIndex index = SpatialIndex.build(g);
+
+        Router.Options opt = options(Graph.STAIR_ANY);
+        SpatialIndex.EdgeSnap snap = index.nearestEdge(37.61901, 127.0595, opt);
+        assertNotNull(snap);
+        assertEquals("A", snap.from);
+        assertEquals("B", snap.to);
+        assertTrue(snap.distance < 2, "distance=" + snap.distance);
+
+        Router.RouteResult res = Router.shortestPathToAny(g, snap, List.of("C"), opt);
+        assertNotNull(res);
+        assertEquals(List.of("A", "C"), res.path);
+        assertEquals(false, res.hasStair);
+    }
+
+    private static String node(String id, double lat, double lng) {
+        return "{\"id\":\"" + id + "\",\"name\":\"" + id + "\",\"location\":{\"lat\":" + lat + ",\"lng\":" + lng
+                + "},\"stair\":false,\"crub\":false}";
+    }
+
+    private static SpatialIndex.EdgeSnap randomSnap(Graph g, SpatialIndex index, Random rnd, Router.Options opt) {
+        int v = rnd.nextInt(g.nodeCount());
+        while (Double.isNaN(g.lat(v)))
+            v = rnd.nextInt(g.nodeCount());
+        // 노드 주변 약 ±20m
+        return index.nearestEdge(g.lat(v) + (rnd.nextDouble() - 0.5) * 0.0004,
+                g.lng(v) + (rnd.nextDouble() - 0.5) * 0.0005, opt);
+    }
+
+    private static List<String> randomTargets(Graph g, Random rnd) {
+        List<String> dsts = new ArrayList<>();
+        for (int i = 1 + rnd.nextInt(3); i > 0; i--)
+            dsts.add(g.idOf(rnd.nextInt(g.nodeCount())));
+        return dsts;
+    }
+
+    /** 스내핑 지점 -> 엣지 양 끝(막히지 않은 방향만) -> 가장 가까운 목적지, 입력 좌표 -> 투영점 거리 포함 */
+    private static double referenceCost(Graph g, SpatialIndex.EdgeSnap snap, List<String> dsts, int block) {
+        int fwd = snap.arc;
+        int back = reverseOf(g, fwd);
+        List<Integer> seeds = new ArrayList<>();
+        List<Double> initial = new ArrayList<>();
+        if ((g.arcFlags(fwd) & block) == 0) {
+            seeds.add(g.arcTarget(fwd));
+            initial.add((1 - snap.fraction) * g.arcWeight(fwd));
+        }
+        if (back >= 0 && (g.arcFlags(back) & block) == 0) {
+            seeds.add(g.arcTarget(back));
+            initial.add(snap.fraction * g.arcWeight(back));
+        }
+        if (seeds.isEmpty())
+            return Double.POSITIVE_INFINITY;
+        double[] dist = referenceDistances(g, seeds.stream().mapToInt(Integer::intValue).toArray(),
+                initial.stream().mapToDouble(Double::doubleValue).toArray(), block, null);
+        double best = Double.POSITIVE_INFINITY;
+        for (String id : dsts)
+            best = Math.min(best, dist[g.indexOf(id)]);
+        return best + snap.distance;
+    }
+
+    /** 같은 길을 반대로 가는 아크: 역방향 쌍둥이, 없으면 서로 첫 번째인 v -> u 아크 (공개 접근자만 사용) */
+    private static int reverseOf(Graph g, int a) {
+        if (g.arcTwin(a) >= 0)
+            return g.arcTwin(a);
+        int u = g.arcSource(a);
+        int v = g.arcTarget(a);
+        int first = -1;
+        int back = -1;
+        for (int b = 0; b < g.arcCount(); b++) {
+            if (first < 0 && g.arcSource(b) == u && g.arcTarget(b) == v)
+                first = b;
+            if (back < 0 && g.arcSource(b) == v && g.arcTarget(b) == u)
+                back = b;
+        }
+        return first == a ? back : -1;
+    }
+
+    private static void assertSnapped(Graph g, SpatialIndex.EdgeSnap snap, double expected, Router.RouteResult res,
+            int block, String what) {
+        if (Double.isInfinite(expected)) {
+            assertNull(res, what);
+            return;
+        }
+        assertNotNull(res, what);
+        assertEquals(expected, res.cost, EPS * Math.max(1, expected), what);
+        // 경로는 스내핑 엣지의 한쪽 끝에서 시작하고, 그 뒤 아크는 이어지며 막히지 않음
+        int first = g.indexOf(res.path.get(0));
+        assertTrue(first == g.arcTarget(snap.arc) || first == g.arcSource(snap.arc), what);
+        assertEquals(res.path.size() - 1, res.arcs.length, what);
+        for (int i = 0; i < res.arcs.length; i++) {
+            assertEquals(res.path.get(i), g.idOf(g.arcSource(res.arcs[i])), what);
+            assertEquals(res.path.get(i + 1), g.idOf(g.arcTarget(res.arcs[i])), what);
+            assertEquals(0, g.arcFlags(res.arcs[i]) & block, what);
+        }
+    }
+}
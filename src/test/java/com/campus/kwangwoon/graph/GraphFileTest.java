@@ -0,0 +1,142 @@
+package com.campus.kwangwoon.graph;
+
+import com.campus.kwangwoon.model.BuildingInfo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** graph.bin 쓰기 -> 읽기 결과가 JSON에서 읽은 그래프/빌딩(파생 배열 포함)과 같은지 */
+class GraphFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripKeepsGraphAndBuildings() throws IOException {
+        GraphGenerator.Options opt = new GraphGenerator.Options();
+        opt.nodes = 500;
+        opt.bendRate = 0.5; // geometry가 있는 엣지를 충분히
+        GraphGenerator.generate(dir, opt);
+        Graph g = Graph.load(dir);
+        List<BuildingInfo> buildings = new ObjectMapper().readValue(dir.resolve("building.json").toFile(),
+                new TypeReference<List<BuildingInfo>>() {
+                });
+
+        Path file = dir.resolve(GraphFile.FILE_NAME);
+        GraphFile.write(g, buildings, file);
+        GraphFile.Contents read = GraphFile.read(file);
+        Graph r = read.graph;
+
+        assertEquals(g.meta().directed, r.meta().directed);
+        assertEquals(g.nodeCount(), r.nodeCount());
+        for (int v = 0; v < g.nodeCount(); v++) {
+            assertEquals(g.idOf(v), r.idOf(v));
+            assertEquals(g.nameOf(v), r.nameOf(v));
+            assertEquals(g.lat(v), r.lat(v));
+            assertEquals(g.lng(v), r.lng(v));
+            assertEquals(g.nodeFlags(v), r.nodeFlags(v));
+            assertEquals(v, r.indexOf(g.idOf(v)));
+        }
+        assertArrayEquals(g.offsets, r.offsets);
+        assertArrayEquals(g.sources, r.sources);
+        assertArrayEquals(g.targets, r.targets);
+        assertArrayEquals(g.weights, r.weights);
+        assertArrayEquals(g.arcFlags, r.arcFlags);
+        assertArrayEquals(g.arcTwin, r.arcTwin);
+        assertArrayEquals(g.inOffsets, r.inOffsets);
+        assertArrayEquals(g.inArcs, r.inArcs);
+        for (int block : TestGraphs.BLOCKS) {
+            Graph.Adjacency expected = g.adjacency(block);
+            Graph.Adjacency actual = r.adjacency(block);
+            assertArrayEquals(expected.offsets, actual.offsets);
+            assertArrayEquals(expected.targets, actual.targets);
+            assertArrayEquals(expected.weights, actual.weights);
+            assertArrayEquals(expected.arcs, actual.arcs);
+        }
+        assertEquals(-1, r.indexOf("no-such-node"));
+        for (int a = 0; a < g.arcCount(); a++) {
+            assertEquals(g.arcGeometrySize(a), r.arcGeometrySize(a));
+            for (int i = 0; i < g.arcGeometrySize(a); i++) {
+                assertEquals(g.arcGeometryLat(a, i), r.arcGeometryLat(a, i));
+                assertEquals(g.arcGeometryLng(a, i), r.arcGeometryLng(a, i));
+            }
+        }
+
+        assertEquals(buildings.size(), read.buildings.size());
+        for (int b = 0; b < buildings.size(); b++) {
+            assertEquals(buildings.get(b).getId(), read.buildings.get(b).getId());
+            assertEquals(buildings.get(b).getName(), read.buildings.get(b).getName());
+            assertEquals(buildings.get(b).getGates(), read.buildings.get(b).getGates());
+        }
+    }
+
+    @Test
+    void derivedArraysKeepSharingAfterRead() throws IOException {
+        // 턱이 없는 그래프: 턱 회피 프로필은 원본 인접을 그대로 공유 (읽은 뒤에도 복사본을 따로 만들지 않아야 함)
+        GraphGenerator.Options opt = new GraphGenerator.Options();
+        opt.nodes = 400;
+        opt.nodeStairRate = opt.edgeStairRate = 0.2;
+        opt.nodeCrubRate = opt.edgeCrubRate = 0.0;
+        GraphGenerator.generate(dir, opt);
+        Path file = dir.resolve(GraphFile.FILE_NAME);
+        Graph g = Graph.load(dir);
+        GraphFile.write(g, List.of(), file);
+        Graph r = GraphFile.read(file).graph;
+
+        assertSame(r.targets, r.adjacency(0).targets);
+        assertSame(r.weights, r.adjacency(0).weights);
+        assertSame(r.adjacency(0), r.adjacency(Graph.CRUB_ANY));
+        assertNotSame(r.adjacency(0), r.adjacency(Graph.STAIR_ANY));
+        assertTrue(r.adjacency(Graph.STAIR_ANY).arcs.length < r.arcCount());
+
+        // 읽은 그래프로 탐색해도 JSON에서 읽은 그래프와 같은 결과
+        Router.Options avoid = TestGraphs.options(Graph.STAIR_ANY);
+        for (int q = 0; q < 50; q++) {
+            String src = g.idOf(q * 7 % g.nodeCount());
+            String dst = g.idOf((q * 131 + 17) % g.nodeCount());
+            Router.RouteResult expected = Router.shortestPath(g, src, dst, avoid);
+            Router.RouteResult actual = Router.shortestPath(r, src, dst, avoid);
+            assertEquals(expected == null, actual == null);
+            if (expected != null) {
+                assertEquals(expected.cost, actual.cost);
+                assertEquals(expected.path, actual.path);
+            }
+        }
+    }
+
+    @Test
+    void corruptedFileIsRejected() throws IOException {
+        GraphGenerator.Options opt = new GraphGenerator.Options();
+        opt.nodes = 100;
+        GraphGenerator.generate(dir, opt);
+        Path file = dir.resolve(GraphFile.FILE_NAME);
+        GraphFile.write(Graph.load(dir), List.of(), file);
+
+        // 본문 한 바이트를 바꾸면 체크섬이 맞지 않아야 함
+        long size = Files.size(file);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            ch.read(b, size / 2);
+            b.put(0, (byte) (b.get(0) ^ 0x5A));
+            b.rewind();
+            ch.write(b, size / 2);
+        }
+        assertThrows(IOException.class, () -> GraphFile.read(file));
+    }
+}
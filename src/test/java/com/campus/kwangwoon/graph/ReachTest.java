@@ -0,0 +1,198 @@
+package com.campus.kwangwoon.graph;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static com.campus.kwangwoon.graph.TestGraphs.BLOCKS;
+import static com.campus.kwangwoon.graph.TestGraphs.EPS;
+import static com.campus.kwangwoon.graph.TestGraphs.options;
+import static com.campus.kwangwoon.graph.TestGraphs.referenceDistances;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 도달 범위(Router.reach): 노드는 예산 안의 것만 기준 Dijkstra와 같은 거리로, 엣지 구간은 예산 경계에서 잘리고
+ * 같은 길(양방향 엣지의 두 아크, 유향 데이터의 서로 반대 방향 엣지 쌍)은 한 번만 나오는지.
+ * 엣지마다 여러 지점을 찍어서 "예산 안이면 덮이고, 밖이면 덮이지 않음"을 확인
+ */
+class ReachTest {
+
+    private static final int SAMPLES = 40;
+
+    @TempDir
+    static Path generatedDir;
+    @TempDir
+    static Path directedDir;
+
+    private static Graph generated;
+    private static Graph directed;
+
+    @BeforeAll
+    static void loadGraphs() throws IOException {
+        generated = TestGraphs.generated(generatedDir, 900, 5);
+        directed = TestGraphs.directed(directedDir, 900, 13);
+    }
+
+    @Test
+    void reachIsClippedAtTheBudgetAndListsEachEdgeOnce() {
+        for (Graph g : List.of(generated, directed)) {
+            SpatialIndex index = SpatialIndex.build(g);
+            Map<String, Integer> arcOf = new HashMap<>();
+            for (int a = 0; a < g.arcCount(); a++)
+                arcOf.putIfAbsent(g.arcSource(a) + ">" + g.arcTarget(a), a);
+            Random rnd = new Random(3);
+            for (int block : BLOCKS) {
+                Router.Options opt = options(block);
+                for (int q = 0; q < 30; q++) {
+                    int v = rnd.nextInt(g.nodeCount());
+                    SpatialIndex.EdgeSnap snap = index.nearestEdge(g.lat(v) + (rnd.nextDouble() - 0.5) * 0.0004,
+                            g.lng(v) + (rnd.nextDouble() - 0.5) * 0.0005, opt);
+                    assertNotNull(snap);
+                    double maxMeters = snap.distance + 20 + rnd.nextDouble() * 230;
+                    String what = snap.from + " -> " + snap.to + " @" + snap.fraction + " max=" + maxMeters
+                            + " block=" + block;
+                    assertReach(g, arcOf, snap, maxMeters, block, Router.reach(g, snap, maxMeters, opt), what);
+                }
+            }
+        }
+    }
+
+    @Test
+    void budgetBelowSnapDistanceReachesNothing() {
+        SpatialIndex index = SpatialIndex.build(generated);
+        SpatialIndex.EdgeSnap snap = index.nearestEdge(generated.lat(0) + 0.0002, generated.lng(0) + 0.0002);
+        assertTrue(snap.distance > 1, "distance=" + snap.distance);
+        Router.ReachResult res = Router.reach(generated, snap, snap.distance / 2, null);
+        assertTrue(res.nodes.isEmpty());
+        assertTrue(res.edges.isEmpty());
+        assertEquals(snap.distance, res.snapDistance, EPS);
+    }
+
+    private static void assertReach(Graph g, Map<String, Integer> arcOf, SpatialIndex.EdgeSnap snap,
+            double maxMeters, int block, Router.ReachResult res, String what) {
+        double budget = maxMeters - snap.distance;
+        double[] dist = seededDistances(g, snap, block);
+
+        // 노드: 예산 안의 노드 전부, 거리 순, 거리에는 입력 좌표 -> 투영점 거리 포함
+        Set<String> expected = new HashSet<>();
+        for (int v = 0; v < g.nodeCount(); v++)
+            if (dist[v] <= budget)
+                expected.add(g.idOf(v));
+        Set<String> actual = new HashSet<>();
+        double last = 0;
+        for (Router.ReachedNode node : res.nodes) {
+            assertTrue(actual.add(node.id), "duplicate node " + node.id + " " + what);
+            assertEquals(dist[g.indexOf(node.id)] + snap.distance, node.distance, EPS * Math.max(1, maxMeters), what);
+            assertTrue(node.distance <= maxMeters + EPS, what);
+            assertTrue(node.distance >= last - EPS, "not in distance order " + what);
+            last = node.distance;
+        }
+        // 예산 경계에 딱 걸친 노드는 반올림 차이로 갈릴 수 있으므로 그 외만 비교
+        for (int v = 0; v < g.nodeCount(); v++)
+            if (Math.abs(dist[v] - budget) > EPS)
+                assertEquals(expected.contains(g.idOf(v)), actual.contains(g.idOf(v)), g.idOf(v) + " " + what);
+
+        // 엣지: 아크마다 정렬되고 겹치지 않는 구간, 같은 길의 반대 방향 아크로 또 나오지 않음
+        Map<Integer, List<double[]>> covered = new HashMap<>();
+        for (Router.ReachedEdge edge : res.edges) {
+            Integer a = arcOf.get(g.indexOf(edge.from) + ">" + g.indexOf(edge.to));
+            assertNotNull(a, edge.from + " -> " + edge.to + " " + what);
+            assertTrue(0 <= edge.startFraction && edge.startFraction < edge.endFraction && edge.endFraction <= 1,
+                    edge.from + " -> " + edge.to + " [" + edge.startFraction + ", " + edge.endFraction + "] " + what);
+            List<double[]> intervals = covered.computeIfAbsent(a, k -> new ArrayList<>());
+            if (!intervals.isEmpty())
+                assertTrue(intervals.get(intervals.size() - 1)[1] < edge.startFraction, "overlapping " + what);
+            intervals.add(new double[] { edge.startFraction, edge.endFraction });
+        }
+        for (int a : covered.keySet()) {
+            int op = g.oppositeArc(a);
+            assertFalse(op >= 0 && covered.containsKey(op),
+                    "both directions of " + g.idOf(g.arcSource(a)) + " - " + g.idOf(g.arcTarget(a)) + " " + what);
+        }
+
+        // 예산 안의 지점은 (한쪽 아크에서) 덮이고, 예산 밖의 지점은 덮이지 않음 (양 끝 노드는 위에서 확인)
+        int edgeBlock = block & (Graph.EDGE_STAIR | Graph.EDGE_CRUB);
+        int back = g.oppositeArc(snap.arc);
+        for (int a = 0; a < g.arcCount(); a++) {
+            if (a != snap.arc && a != back && Math.min(dist[g.arcSource(a)], dist[g.arcTarget(a)]) > budget) {
+                assertFalse(covered.containsKey(a), "unreachable arc listed " + what);
+                continue; // 양 끝 모두 예산 밖
+            }
+            int op = g.oppositeArc(a);
+            for (int k = 1; k < SAMPLES; k++) {
+                double x = (double) k / SAMPLES;
+                double d = pointDistance(g, snap, dist, edgeBlock, a, x);
+                if (Math.abs(d - budget) <= EPS * Math.max(1, budget))
+                    continue;
+                boolean isCovered = contains(covered.get(a), x) || (op >= 0 && contains(covered.get(op), 1 - x));
+                assertEquals(d < budget, isCovered, g.idOf(g.arcSource(a)) + " -> " + g.idOf(g.arcTarget(a))
+                        + " at " + x + " (distance " + d + ", budget " + budget + ") " + what);
+            }
+        }
+    }
+
+    /** 기준 Dijkstra: 스내핑 엣지의 양 끝(막히지 않은 방향)에서 남은 구간 거리로 출발 */
+    private static double[] seededDistances(Graph g, SpatialIndex.EdgeSnap snap, int block) {
+        int fwd = snap.arc;
+        int back = g.oppositeArc(fwd);
+        List<Integer> seeds = new ArrayList<>();
+        List<Double> initial = new ArrayList<>();
+        if ((g.arcFlags(fwd) & block) == 0) {
+            seeds.add(g.arcTarget(fwd));
+            initial.add((1 - snap.fraction) * g.arcWeight(fwd));
+        }
+        if (back >= 0 && (g.arcFlags(back) & block) == 0) {
+            seeds.add(g.arcTarget(back));
+            initial.add(snap.fraction * g.arcWeight(back));
+        }
+        return referenceDistances(g, seeds.stream().mapToInt(Integer::intValue).toArray(),
+                initial.stream().mapToDouble(Double::doubleValue).toArray(), block, null);
+    }
+
+    /**
+     * 아크 a 위 x 지점까지 걸어서 가는 최단 거리 (투영점 기준): 출발 노드에서 a를 따라, 도착 노드에서 반대 아크를
+     * 따라, 스내핑 엣지면 투영점에서 바로. 엣지 구간은 엣지 속성으로만 막음
+     */
+    private static double pointDistance(Graph g, SpatialIndex.EdgeSnap snap, double[] dist, int edgeBlock, int a,
+            double x) {
+        double best = Double.POSITIVE_INFINITY;
+        int op = g.oppositeArc(a);
+        if ((g.arcFlags(a) & edgeBlock) == 0)
+            best = Math.min(best, dist[g.arcSource(a)] + x * g.arcWeight(a));
+        if (op >= 0 && (g.arcFlags(op) & edgeBlock) == 0)
+            best = Math.min(best, dist[g.arcTarget(a)] + (1 - x) * g.arcWeight(op));
+        int fwd = snap.arc;
+        int back = g.oppositeArc(fwd);
+        if (a == fwd || a == back) {
+            double along = a == fwd ? x : 1 - x; // 스내핑 아크 기준 위치
+            double w = g.arcWeight(fwd);
+            if (along >= snap.fraction && (g.arcFlags(fwd) & edgeBlock) == 0)
+                best = Math.min(best, (along - snap.fraction) * w);
+            if (along <= snap.fraction && back >= 0 && (g.arcFlags(back) & edgeBlock) == 0)
+                best = Math.min(best, (snap.fraction - along) * w);
+        }
+        return best;
+    }
+
+    private static boolean contains(List<double[]> intervals, double x) {
+        if (intervals == null)
+            return false;
+        for (double[] iv : intervals)
+            if (iv[0] - 1e-9 <= x && x <= iv[1] + 1e-9)
+                return true;
+        return false;
+    }
+}
@@ -0,0 +1,60 @@
+package com.campus.kwangwoon.graph;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class RouteGeometryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void encodesGooglePolylineVector() {
+        // Google 문서의 예제 (38.5, -120.2), (40.7, -120.95), (43.252, -126.453)
+        double[] lat = { 38.5, 40.7, 43.252 };
+        double[] lng = { -120.2, -120.95, -126.453 };
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", RouteGeometry.encode(lat, lng, 3));
+    }
+
+    @Test
+    void followsArcChosenByPenaltySearch() throws IOException {
+        // A-B 사이에 짧은 계단 엣지와 꺾여서 더 긴 일반 엣지가 나란히 있음
+        Files.writeString(dir.resolve("meta.json"), "{ \"directed\": false, \"unit\": \"meter\", \"schemaVersion\": \"1.0.0\" }");
+        Files.writeString(dir.resolve("node.json"), "["
+                + node("A", 37.6190) + "," + node("B", 37.6195) + "," + node("C", 37.6200) + "]");
+        Files.writeString(dir.resolve("edge.json"), "["
+                + "{\"from\":\"A\",\"to\":\"B\",\"stair\":true,\"crub\":false,\"geometry\":[]},"
+                + "{\"from\":\"A\",\"to\":\"B\",\"stair\":false,\"crub\":false,"
+                + "\"geometry\":[{\"lat\":37.61925,\"lng\":127.0595}]},"
+                + "{\"from\":\"B\",\"to\":\"C\",\"stair\":false,\"crub\":false,\"geometry\":[]}]");
+        Files.writeString(dir.resolve("building.json"), "[]");
+        Graph g = Graph.load(dir);
+
+        Router.Options opt = new Router.Options();
+        opt.costModel = new CostModel();
+        opt.costModel.stairPenalty = 1000;
+        Router.RouteResult res = Router.shortestPath(g, "A", "C", opt);
+        assertNotNull(res);
+        assertFalse(res.hasStair);
+
+        RouteGeometry geo = RouteGeometry.of(g, res, null, opt);
+        assertEquals(List.of("A", "B", "C"), geo.path);
+        assertEquals(4, geo.points); // A, 꺾인 점, B, C
+        assertFalse(geo.segments.get(0).stair);
+        assertEquals(res.cost, geo.segments.get(0).distance + geo.segments.get(1).distance, 1e-9);
+    }
+
+    private static String node(String id, double lat) {
+        return "{\"id\":\"" + id + "\",\"name\":\"" + id + "\",\"location\":{\"lat\":" + lat
+                + ",\"lng\":127.0590},\"stair\":false,\"crub\":false}";
+    }
+}
@@ -0,0 +1,203 @@
+package com.campus.kwangwoon.graph;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static com.campus.kwangwoon.graph.TestGraphs.BLOCKS;
+import static com.campus.kwangwoon.graph.TestGraphs.EPS;
+import static com.campus.kwangwoon.graph.TestGraphs.assertRoute;
+import static com.campus.kwangwoon.graph.TestGraphs.options;
+import static com.campus.kwangwoon.graph.TestGraphs.referenceCost;
+import static com.campus.kwangwoon.graph.TestGraphs.referenceLimitedCost;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Router 탐색 방식별 결과가 테스트 안의 단순 Dijkstra와 같은지.
+ * 실제 데이터(resources/data)와 GraphGenerator로 만든 격자 그래프 두 가지에서 회피 프로필 네 개로 확인
+ */
+class RouterTest {
+
+    @TempDir
+    static Path tempDir;
+    @TempDir
+    static Path directedDir;
+
+    private static Graph campus;
+    private static Graph generated;
+    private static Graph directed;
+
+    @BeforeAll
+    static void loadGraphs() throws IOException {
+        campus = TestGraphs.campus();
+        generated = TestGraphs.generated(tempDir, 900, 7);
+        directed = TestGraphs.directed(directedDir, 900, 11);
+    }
+
+    @Test
+    void dijkstraAndAStarMatchReference() {
+        assertAlgorithmMatchesReference(Router.Algorithm.DIJKSTRA);
+        assertAlgorithmMatchesReference(Router.Algorithm.ASTAR);
+    }
+
+    @Test
+    void bidirectionalMatchesReference() {
+        // 유향 그래프에서는 역방향 탐색이 들어오는 아크 목록을 따라가야 함
+        assertAlgorithmMatchesReference(Router.Algorithm.BIDIRECTIONAL);
+    }
+
+    private static void assertAlgorithmMatchesReference(Router.Algorithm algorithm) {
+        for (Graph g : List.of(campus, generated, directed)) {
+            Random rnd = new Random(1);
+            for (int q = 0; q < 150; q++) {
+                int s = rnd.nextInt(g.nodeCount());
+                int t = rnd.nextInt(g.nodeCount());
+                int block = BLOCKS[q % BLOCKS.length];
+                Router.Options opt = options(block);
+                opt.algorithm = algorithm;
+                Router.RouteResult res = Router.shortestPath(g, g.idOf(s), g.idOf(t), opt);
+                assertRoute(g, referenceCost(g, s, t, block, null), res, block,
+                        algorithm + " " + g.idOf(s) + " -> " + g.idOf(t));
+            }
+        }
+    }
+
+    @Test
+    void penaltySearchMinimizesPenalizedCost() {
+        for (Graph g : List.of(campus, generated, directed)) {
+            Random rnd = new Random(3);
+            for (int q = 0; q < 150; q++) {
+                CostModel model = randomPenalties(rnd);
+                int block = BLOCKS[q % BLOCKS.length];
+                Router.Options opt = options(block);
+                opt.costModel = model;
+                int s = rnd.nextInt(g.nodeCount());
+                int t = rnd.nextInt(g.nodeCount());
+                assertPenalized(g, referenceCost(g, s, t, block, model),
+                        Router.shortestPath(g, g.idOf(s), g.idOf(t), opt), model, block);
+            }
+        }
+    }
+
+    @Test
+    void stairAndCurbLimitsMatchLayeredReference() {
+        // 층 수가 질의마다 달라도 스레드별 층 작업 공간을 재사용하므로 앞 질의의 값이 남으면 여기서 틀림
+        for (Graph g : List.of(campus, generated, directed)) {
+            Random rnd = new Random(4);
+            for (int q = 0; q < 150; q++) {
+                CostModel model = randomPenalties(rnd);
+                model.maxStairs = rnd.nextInt(3) - 1; // -1(제한 없음), 0, 1
+                model.maxCrubs = rnd.nextInt(3) - 1;
+                Router.Options opt = options(0);
+                opt.costModel = model;
+                int s = rnd.nextInt(g.nodeCount());
+                int t = rnd.nextInt(g.nodeCount());
+                Router.RouteResult res = Router.shortestPath(g, g.idOf(s), g.idOf(t), opt);
+                assertPenalized(g, referenceLimitedCost(g, s, t, 0, model), res, model, 0);
+                if (res == null)
+                    continue;
+                int stairs = 0;
+                int crubs = 0;
+                for (int a : res.arcs) {
+                    stairs += (g.arcFlags(a) & Graph.STAIR_ANY) != 0 ? 1 : 0;
+                    crubs += (g.arcFlags(a) & Graph.CRUB_ANY) != 0 ? 1 : 0;
+                }
+                assertTrue(model.maxStairs < 0 || stairs <= model.maxStairs, "stairs=" + stairs);
+                assertTrue(model.maxCrubs < 0 || crubs <= model.maxCrubs, "crubs=" + crubs);
+            }
+        }
+    }
+
+    @Test
+    void zeroStairLimitEqualsStairAvoidance() {
+        for (Graph g : List.of(campus, generated)) {
+            Random rnd = new Random(4);
+            for (int q = 0; q < 100; q++) {
+                int s = rnd.nextInt(g.nodeCount());
+                int t = rnd.nextInt(g.nodeCount());
+                Router.Options limited = options(0);
+                limited.costModel = new CostModel();
+                limited.costModel.maxStairs = 0;
+                assertRoute(g, referenceCost(g, s, t, Graph.STAIR_ANY, null),
+                        Router.shortestPath(g, g.idOf(s), g.idOf(t), limited), Graph.STAIR_ANY,
+                        "maxStairs=0 " + g.idOf(s) + " -> " + g.idOf(t));
+            }
+        }
+    }
+
+    @Test
+    void penaltyCostArraysFollowProfileAdjacency() {
+        Graph g = generated;
+        CostModel model = new CostModel();
+        // 벌점이 없으면 (상한만 있어도) 프로필 거리 배열을 그대로 씀
+        model.maxStairs = 1;
+        assertSame(g.adjacency(Graph.CRUB_ANY).weights, g.arcCosts(Graph.CRUB_ANY, model));
+
+        model.stairFactor = 2;
+        model.stairPenalty = 30;
+        double[] costs = g.arcCosts(Graph.CRUB_ANY, model);
+        Graph.Adjacency adj = g.adjacency(Graph.CRUB_ANY);
+        assertEquals(adj.arcs.length, costs.length);
+        for (int i = 0; i < costs.length; i++)
+            assertEquals(model.cost(g.arcWeight(adj.arcs[i]), g.arcFlags(adj.arcs[i])), costs[i]);
+
+        // 같은 벌점 값이면 다른 CostModel 객체여도 같은 배열을 공유 (상한은 키에 들어가지 않음)
+        CostModel same = new CostModel();
+        same.stairFactor = 2;
+        same.stairPenalty = 30;
+        assertSame(costs, g.arcCosts(Graph.CRUB_ANY, same));
+        assertNotSame(costs, g.arcCosts(0, same));
+
+        // 보관 개수를 넘게 다른 벌점을 쓰면 오래된 배열은 버려지고 다시 만듦
+        for (int k = 1; k <= 32; k++) {
+            CostModel other = new CostModel();
+            other.stairPenalty = k;
+            g.arcCosts(Graph.CRUB_ANY, other);
+        }
+        double[] rebuilt = g.arcCosts(Graph.CRUB_ANY, same);
+        assertNotSame(costs, rebuilt);
+        assertArrayEquals(costs, rebuilt);
+    }
+
+    private static CostModel randomPenalties(Random rnd) {
+        CostModel model = new CostModel();
+        model.stairFactor = 1 + rnd.nextInt(3);
+        model.stairPenalty = rnd.nextInt(100);
+        model.crubFactor = 1 + rnd.nextInt(3);
+        model.crubPenalty = rnd.nextInt(100);
+        return model;
+    }
+
+    /** 탐색이 고른 아크의 벌점 포함 비용이 최소이고, cost는 벌점이 아닌 실제 거리인지 */
+    private static void assertPenalized(Graph g, double expected, Router.RouteResult res, CostModel model,
+            int block) {
+        if (Double.isInfinite(expected)) {
+            assertNull(res);
+            return;
+        }
+        assertNotNull(res);
+        double penalized = 0;
+        double meters = 0;
+        for (int i = 0; i < res.arcs.length; i++) {
+            int a = res.arcs[i];
+            assertEquals(res.path.get(i), g.idOf(g.arcSource(a)));
+            assertEquals(res.path.get(i + 1), g.idOf(g.arcTarget(a)));
+            assertEquals(0, g.arcFlags(a) & block);
+            penalized += model.cost(g.arcWeight(a), g.arcFlags(a));
+            meters += g.arcWeight(a);
+        }
+        assertEquals(expected, penalized, EPS * Math.max(1, expected));
+        assertEquals(meters, res.cost, EPS * Math.max(1, meters));
+    }
+}
@@ -0,0 +1,208 @@
+package com.campus.kwangwoon.graph;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 탐색 테스트 공용: 실제 데이터(resources/data)와 GraphGenerator 그래프, 그리고 비교 기준인 단순 Dijkstra.
+ * 기준 탐색은 공개 아크 접근자만 쓰므로 Router 쪽 배열/인접 뷰와 독립적임
+ */
+final class TestGraphs {
+
+    static final double EPS = 1e-6;
+    /** 회피 프로필 네 가지 (없음, 계단, 턱, 둘 다) */
+    static final int[] BLOCKS = { 0, Graph.STAIR_ANY, Graph.CRUB_ANY, Graph.STAIR_ANY | Graph.CRUB_ANY };
+
+    private TestGraphs() {
+    }
+
+    static Graph campus() throws IOException {
+        try {
+            return Graph.load(Paths.get(TestGraphs.class.getResource("/data").toURI()));
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /** dir에 계단/턱이 15%씩 섞인 격자 그래프를 만들어서 읽음 */
+    static Graph generated(Path dir, int nodes, long seed) throws IOException {
+        GraphGenerator.Options opt = new GraphGenerator.Options();
+        opt.nodes = nodes;
+        opt.seed = seed;
+        opt.nodeStairRate = opt.edgeStairRate = 0.15;
+        opt.nodeCrubRate = opt.edgeCrubRate = 0.15;
+        GraphGenerator.generate(dir, opt);
+        return Graph.load(dir);
+    }
+
+    /**
+     * generated()와 같은 격자를 유향(meta.directed = true) 데이터로 바꿔서 읽음. 엣지마다 반대 방향 엣지를
+     * 80% 확률로 따로 넣고(나머지는 일방통행), 반대 방향 엣지의 계단/턱은 10% 확률로 뒤집음
+     */
+    static Graph directed(Path dir, int nodes, long seed) throws IOException {
+        generated(dir, nodes, seed);
+        ObjectMapper om = new ObjectMapper();
+        ArrayNode edges = (ArrayNode) om.readTree(dir.resolve("edge.json").toFile());
+        ArrayNode out = om.createArrayNode();
+        Random rnd = new Random(seed);
+        for (int i = 0; i < edges.size(); i++) {
+            ObjectNode e = (ObjectNode) edges.get(i);
+            out.add(e);
+            if (rnd.nextDouble() >= 0.8)
+                continue;
+            ObjectNode r = e.deepCopy();
+            r.put("from", e.get("to").asText());
+            r.put("to", e.get("from").asText());
+            if (rnd.nextDouble() < 0.1)
+                r.put("stair", !e.get("stair").asBoolean());
+            if (rnd.nextDouble() < 0.1)
+                r.put("crub", !e.get("crub").asBoolean());
+            ArrayNode geometry = om.createArrayNode();
+            for (int k = e.path("geometry").size() - 1; k >= 0; k--)
+                geometry.add(e.get("geometry").get(k));
+            r.set("geometry", geometry);
+            out.add(r);
+        }
+        om.writeValue(dir.resolve("edge.json").toFile(), out);
+        Files.writeString(dir.resolve("meta.json"),
+                "{ \"directed\": true, \"unit\": \"meter\", \"schemaVersion\": \"1.0.0\" }");
+        return Graph.load(dir);
+    }
+
+    static Router.Options options(int block) {
+        Router.Options opt = new Router.Options();
+        opt.avoidStair = (block & Graph.STAIR_ANY) != 0;
+        opt.avoidCrub = (block & Graph.CRUB_ANY) != 0;
+        return opt;
+    }
+
+    /** 경로가 있으면 비용이 같고, 아크가 이어지며 막힌 아크를 지나지 않는지 (expected가 무한대면 경로 없음) */
+    static void assertRoute(Graph g, double expected, Router.RouteResult res, int block, String what) {
+        if (Double.isInfinite(expected)) {
+            assertNull(res, what);
+            return;
+        }
+        assertNotNull(res, what);
+        assertEquals(expected, res.cost, EPS * Math.max(1, expected), what);
+        assertEquals(res.path.size() - 1, res.arcs.length, what);
+        double sum = 0;
+        boolean stair = false;
+        boolean crub = false;
+        for (int i = 0; i < res.arcs.length; i++) {
+            int a = res.arcs[i];
+            assertEquals(res.path.get(i), g.idOf(g.arcSource(a)), what);
+            assertEquals(res.path.get(i + 1), g.idOf(g.arcTarget(a)), what);
+            assertEquals(0, g.arcFlags(a) & block, what);
+            sum += g.arcWeight(a);
+            stair |= (g.arcFlags(a) & Graph.STAIR_ANY) != 0;
+            crub |= (g.arcFlags(a) & Graph.CRUB_ANY) != 0;
+        }
+        assertEquals(res.cost, sum, EPS * Math.max(1, sum), what);
+        assertEquals(stair, res.hasStair, what);
+        assertEquals(crub, res.hasCrub, what);
+    }
+
+    /** 교과서 Dijkstra로 s -> t 비용 (model이 있으면 벌점 포함 비용), 도달할 수 없으면 무한대 */
+    static double referenceCost(Graph g, int s, int t, int block, CostModel model) {
+        return referenceDistances(g, new int[] { s }, new double[] { 0 }, block, model)[t];
+    }
+
+    /**
+     * 계단/턱 수 상한(model.maxStairs/maxCrubs)까지 지키는 최소 벌점 비용: (노드, 계단 수, 턱 수) 상태 위의 Dijkstra.
+     * 상한이 없는 쪽은 세지 않음
+     */
+    static double referenceLimitedCost(Graph g, int s, int t, int block, CostModel model) {
+        int sl = model.maxStairs < 0 ? 1 : model.maxStairs + 1;
+        int cl = model.maxCrubs < 0 ? 1 : model.maxCrubs + 1;
+        int layers = sl * cl;
+        double[] dist = new double[g.nodeCount() * layers];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        List<List<Integer>> out = new ArrayList<>();
+        for (int v = 0; v < g.nodeCount(); v++)
+            out.add(new ArrayList<>());
+        for (int a = 0; a < g.arcCount(); a++)
+            out.get(g.arcSource(a)).add(a);
+        PriorityQueue<double[]> pq = new PriorityQueue<>((x, y) -> Double.compare(x[0], y[0]));
+        dist[s * layers] = 0;
+        pq.add(new double[] { 0, s * layers });
+        while (!pq.isEmpty()) {
+            double[] top = pq.poll();
+            int x = (int) top[1];
+            if (top[0] > dist[x])
+                continue;
+            int u = x / layers;
+            if (u == t)
+                return dist[x];
+            int stairs = x % layers % sl;
+            int crubs = x % layers / sl;
+            for (int a : out.get(u)) {
+                int flags = g.arcFlags(a);
+                if ((flags & block) != 0)
+                    continue;
+                int ns = stairs + (model.maxStairs >= 0 && (flags & Graph.STAIR_ANY) != 0 ? 1 : 0);
+                int nc = crubs + (model.maxCrubs >= 0 && (flags & Graph.CRUB_ANY) != 0 ? 1 : 0);
+                if (ns >= sl || nc >= cl)
+                    continue;
+                int y = g.arcTarget(a) * layers + ns + sl * nc;
+                double nd = dist[x] + model.cost(g.arcWeight(a), flags);
+                if (nd < dist[y]) {
+                    dist[y] = nd;
+                    pq.add(new double[] { nd, y });
+                }
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /** 여러 출발 노드(각자 초기 비용)에서 모든 노드까지의 거리 */
+    static double[] referenceDistances(Graph g, int[] sources, double[] initial, int block, CostModel model) {
+        List<List<Integer>> out = new ArrayList<>();
+        for (int v = 0; v < g.nodeCount(); v++)
+            out.add(new ArrayList<>());
+        for (int a = 0; a < g.arcCount(); a++)
+            out.get(g.arcSource(a)).add(a);
+        double[] dist = new double[g.nodeCount()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        PriorityQueue<double[]> pq = new PriorityQueue<>((x, y) -> Double.compare(x[0], y[0]));
+        for (int i = 0; i < sources.length; i++) {
+            if (initial[i] < dist[sources[i]]) {
+                dist[sources[i]] = initial[i];
+                pq.add(new double[] { initial[i], sources[i] });
+            }
+        }
+        while (!pq.isEmpty()) {
+            double[] top = pq.poll();
+            int u = (int) top[1];
+            if (top[0] > dist[u])
+                continue;
+            for (int a : out.get(u)) {
+                int flags = g.arcFlags(a);
+                if ((flags & block) != 0)
+                    continue;
+                double w = model == null ? g.arcWeight(a) : model.cost(g.arcWeight(a), flags);
+                int v = g.arcTarget(a);
+                if (dist[u] + w < dist[v]) {
+                    dist[v] = dist[u] + w;
+                    pq.add(new double[] { dist[v], v });
+                }
+            }
+        }
+        return dist;
+    }
+}
@@ -0,0 +1,132 @@
+package com.campus.kwangwoon.service;
+
+import com.campus.kwangwoon.graph.Router;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 경로 캐시: 같은 키는 한 번만 계산, 새 그래프 버전에서 전체 무효화, 구간별 LRU 교체.
+ * 계산 대신 호출 횟수를 세는 가짜 결과를 넣어서 캐시 동작만 확인
+ */
+class RouteCacheTest {
+
+    private static final List<String> TARGETS = List.of("T");
+
+    @Test
+    void hitsSkipComputeAndReportNoSearch() {
+        RouteCache cache = new RouteCache(10);
+        AtomicInteger computed = new AtomicInteger();
+        Router.RouteResult first = cache.get(1, "A", TARGETS, null, () -> result(computed, 10.0));
+        assertEquals(120, first.settled); // 계산한 요청은 탐색 통계를 그대로 받음
+        Router.RouteResult second = cache.get(1, "A", TARGETS, null, () -> result(computed, 10.0));
+        assertEquals(1, computed.get());
+        assertEquals(10.0, second.cost);
+        assertEquals(0, second.settled);
+        assertEquals(0, second.relaxed);
+
+        // 회피 옵션이 다르면 다른 키
+        Router.Options avoid = new Router.Options();
+        avoid.avoidStair = true;
+        cache.get(1, "A", TARGETS, avoid, () -> result(computed, 12.0));
+        assertEquals(2, computed.get());
+
+        // "경로 없음"도 캐시
+        assertNull(cache.get(1, "B", TARGETS, null, () -> none(computed)));
+        assertNull(cache.get(1, "B", TARGETS, null, () -> none(computed)));
+        assertEquals(3, computed.get());
+
+        RouteCache.Stats stats = cache.stats();
+        assertEquals(2, stats.hits);
+        assertEquals(3, stats.misses);
+        assertEquals(3, stats.size);
+    }
+
+    @Test
+    void newerGraphVersionInvalidatesEverything() {
+        RouteCache cache = new RouteCache(10);
+        AtomicInteger computed = new AtomicInteger();
+        cache.get(1, "A", TARGETS, null, () -> result(computed, 10.0));
+        cache.get(1, "B", TARGETS, null, () -> result(computed, 11.0));
+        assertEquals(2, cache.stats().size);
+
+        // 다시 로드한 그래프(버전 2)에서는 이전 결과를 쓰지 않고, 처음 보는 버전에서 전체를 비움
+        Router.RouteResult fresh = cache.get(2, "A", TARGETS, null, () -> result(computed, 20.0));
+        assertEquals(20.0, fresh.cost);
+        assertEquals(3, computed.get());
+        assertEquals(1, cache.stats().size);
+        assertEquals(2, cache.stats().graphVersion);
+
+        // 교체 직전 스냅샷으로 늦게 들어온 요청은 계산만 하고 캐시에 넣지 않음
+        cache.get(1, "A", TARGETS, null, () -> result(computed, 10.0));
+        cache.get(1, "A", TARGETS, null, () -> result(computed, 10.0));
+        assertEquals(5, computed.get());
+        assertEquals(1, cache.stats().size);
+    }
+
+    @Test
+    void segmentsEvictLeastRecentlyUsed() {
+        // 용량 1: 구간 하나에 항목 하나
+        RouteCache single = new RouteCache(1);
+        AtomicInteger computed = new AtomicInteger();
+        single.get(1, "A", TARGETS, null, () -> result(computed, 1.0));
+        single.get(1, "B", TARGETS, null, () -> result(computed, 2.0));
+        single.get(1, "A", TARGETS, null, () -> result(computed, 1.0));
+        assertEquals(3, computed.get());
+        assertEquals(2, single.stats().evictions);
+        assertEquals(1, single.stats().size);
+
+        // 용량이 구간 수보다 크면 구간마다 나눠 갖지만 전체 크기는 용량을 넘지 않음
+        RouteCache cache = new RouteCache(40);
+        for (int i = 0; i < 500; i++) {
+            String source = "N" + i;
+            cache.get(1, source, TARGETS, null, () -> result(computed, 1.0));
+        }
+        RouteCache.Stats stats = cache.stats();
+        assertTrue(stats.size <= 40, "size " + stats.size);
+        assertEquals(500 - stats.size, stats.evictions);
+
+        // 방금 쓴 항목은 남아 있음
+        int before = computed.get();
+        cache.get(1, "N499", TARGETS, null, () -> result(computed, 1.0));
+        assertEquals(before, computed.get());
+    }
+
+    @Test
+    void getAllIfPresentNeedsEveryStartNode() {
+        RouteCache cache = new RouteCache(10);
+        AtomicInteger computed = new AtomicInteger();
+        cache.get(1, "A", TARGETS, null, () -> result(computed, 10.0));
+        cache.get(1, "B", TARGETS, null, () -> none(computed));
+
+        Map<String, Router.RouteResult> both = cache.getAllIfPresent(1, List.of("A", "B"), TARGETS, null);
+        assertEquals(2, both.size());
+        assertEquals(10.0, both.get("A").cost);
+        assertEquals(0, both.get("A").settled);
+        assertTrue(both.containsKey("B"));
+        assertNull(both.get("B"));
+
+        // 하나라도 없으면 계산하지 않고 null (miss 한 번)
+        long misses = cache.stats().misses;
+        assertNull(cache.getAllIfPresent(1, List.of("A", "C"), TARGETS, null));
+        assertNull(cache.getAllIfPresent(2, List.of("A"), TARGETS, null));
+        assertEquals(misses + 2, cache.stats().misses);
+        assertEquals(2, computed.get());
+    }
+
+    private static Router.RouteResult result(AtomicInteger computed, double cost) {
+        computed.incrementAndGet();
+        return new Router.RouteResult(List.of("S", "T"), cost, false, false, 120, 200);
+    }
+
+    private static Router.RouteResult none(AtomicInteger computed) {
+        computed.incrementAndGet();
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+package com.campus.kwangwoon.service;
+
+import com.campus.kwangwoon.graph.Graph;
+import com.campus.kwangwoon.graph.Router;
+import com.campus.kwangwoon.graph.SpatialIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 실제 캠퍼스 데이터(resources/data)로 띄운 RouteService: 스내핑 출발 질의와 노드 출발 캐시의 관계
+ */
+class RouteServiceTest {
+
+    private GraphService graphService;
+    private RouteService routeService;
+
+    @BeforeEach
+    void setUp() throws IOException, URISyntaxException {
+        graphService = GraphService.load(Paths.get(RouteServiceTest.class.getResource("/data").toURI()));
+        routeService = new RouteService(graphService, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        routeService.shutdown();
+    }
+
+    @Test
+    void snappedStartRunsOneSearchUntilBothEndsAreCached() {
+        GraphSnapshot snap = graphService.snapshot();
+        Graph g = snap.graph;
+        Router.Options opt = new Router.Options();
+        String target = g.idOf(g.nodeCount() - 1);
+        Set<String> warmed = new HashSet<>();
+        int checked = 0;
+        for (int arc = 0; arc < g.arcCount() && checked < 20; arc += 7) {
+            int u = g.arcSource(arc);
+            int v = g.arcTarget(arc);
+            SpatialIndex.EdgeSnap start = snap.spatialIndex.nearestEdge(
+                    (g.lat(u) * 2 + g.lat(v)) / 3, (g.lng(u) * 2 + g.lng(v)) / 3, opt);
+            List<String> ends = Router.startNodes(g, start, opt);
+            if (ends.contains(target) || warmed.containsAll(ends))
+                continue;
+            Router.RouteResult direct = Router.shortestPathToAny(g, start, List.of(target), opt);
+            if (direct == null)
+                continue;
+            checked++;
+
+            // 캐시에 없으면 두 출발점을 넣은 탐색 한 번 (노드 출발 탐색 두 번이 아님), 결과는 캐시에 넣지 않음
+            long misses = routeService.cacheStats().misses;
+            Router.RouteResult miss = routeService.route(snap, start, List.of(target), opt);
+            assertEquals(direct.cost, miss.cost, 1e-6);
+            assertEquals(direct.settled, miss.settled);
+            assertEquals(direct.relaxed, miss.relaxed);
+            assertEquals(misses + 1, routeService.cacheStats().misses);
+
+            // 양 끝 노드 결과가 캐시에 있으면 조합만 하고 탐색하지 않음
+            for (String end : ends)
+                routeService.route(snap, end, target, opt);
+            warmed.addAll(ends);
+            Router.RouteResult hit = routeService.route(snap, start, List.of(target), opt);
+            assertEquals(direct.cost, hit.cost, 1e-6);
+            assertEquals(0, hit.settled);
+        }
+        assertTrue(checked > 0);
+    }
+}
@@ -0,0 +1,315 @@
+package com.campus.kwangwoon.web;
+
+import com.campus.kwangwoon.service.GraphService;
+import com.campus.kwangwoon.service.GraphSnapshot;
+import com.campus.kwangwoon.service.RouteMetrics;
+import com.campus.kwangwoon.service.RouteService;
+import com.campus.kwangwoon.graph.Router;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 컨트롤러를 스프링 컨텍스트(DB) 없이 작은 그래프로 직접 띄워서 확인.
+ * GPS 지점에서 가장 가까운 엣지가 계단(S1-S2)이고, 그 옆에 P를 지나 빌딩 Hall(게이트 G)로 가는 길이 있음.
+ * 빌딩 Tower(게이트 X)는 G에서 계단(G-X)으로만 이어짐
+ */
+class RouteControllerTest {
+
+    @TempDir
+    Path dir;
+
+    private GraphService graphService;
+    private RouteController controller;
+    private RouteMetrics routeMetrics;
+    private RouteService routeService;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(dir.resolve("meta.json"), "{ \"directed\": false, \"unit\": \"meter\", \"schemaVersion\": \"1.0.0\" }");
+        Files.writeString(dir.resolve("node.json"), "["
+                + node("S1", 37.6190, 127.0590) + "," + node("S2", 37.6190, 127.0592) + ","
+                + node("P", 37.6195, 127.0591) + "," + node("G", 37.6200, 127.0591) + ","
+                + node("X", 37.6210, 127.0591) + "]");
+        Files.writeString(dir.resolve("edge.json"), "["
+                + edge("S1", "S2", true) + "," + edge("S1", "P", false) + "," + edge("S2", "P", false) + ","
+                + edge("P", "G", false) + "," + edge("G", "X", true) + "]");
+        Files.writeString(dir.resolve("building.json"), "[{\"id\":\"Hall\",\"name\":\"Hall\","
+                + "\"location\":{\"lat\":37.6201,\"lng\":127.0591},\"gates\":[\"G\"]},"
+                + "{\"id\":\"Tower\",\"name\":\"Tower\","
+                + "\"location\":{\"lat\":37.6211,\"lng\":127.0591},\"gates\":[\"X\"]}]");
+
+        graphService = GraphService.load(dir);
+        routeService = new RouteService(graphService, 100);
+        routeMetrics = new RouteMetrics(new SimpleMeterRegistry(), routeService, graphService);
+        controller = new RouteController();
+        ReflectionTestUtils.setField(controller, "graphService", graphService);
+        ReflectionTestUtils.setField(controller, "routeService", routeService);
+        ReflectionTestUtils.setField(controller, "routeMetrics", routeMetrics);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "penaltyMaxLayers", 4);
+        ReflectionTestUtils.setField(controller, "batchMaxQueries", 1000);
+        ReflectionTestUtils.setField(controller, "walkingSpeed", 1.3);
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        routeMetrics.close();
+        routeService.shutdown();
+    }
+
+    @Test
+    void findWithAvoidStairSnapsPastStairEdge() throws Exception {
+        // 가장 가까운 엣지는 계단 S1-S2지만, 회피 시 걸을 수 있는 엣지로 스내핑해서 경로가 있어야 함
+        mvc.perform(get("/api/find").param("lat", "37.61901").param("lng", "127.0591")
+                .param("building", "Hall").param("avoidStair", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasStair").value(false))
+                .andExpect(jsonPath("$.path", contains("P", "G")));
+    }
+
+    @Test
+    void findWithoutAvoidanceUsesNearestEdge() throws Exception {
+        mvc.perform(get("/api/find").param("lat", "37.61901").param("lng", "127.0591")
+                .param("building", "Hall"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasStair").value(true));
+    }
+
+    @Test
+    void penaltyLayersAreCappedAtTheApiBoundary() throws Exception {
+        // (maxStairs + 1) * (maxCrubs + 1) = 4 까지는 허용, 넘으면 탐색 전에 400
+        mvc.perform(get("/api/find").param("lat", "37.61901").param("lng", "127.0591")
+                .param("building", "Hall").param("maxStairs", "1").param("maxCrubs", "1"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/find").param("lat", "37.61901").param("lng", "127.0591")
+                .param("building", "Hall").param("maxStairs", "4"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/find").param("lat", "37.61901").param("lng", "127.0591")
+                .param("building", "Hall").param("maxStairs", "1").param("maxCrubs", "2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void reloadIsDisabledByDefault() throws Exception {
+        mvc.perform(post("/api/admin/reload").header("X-Admin-Token", "anything"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void reloadRequiresMatchingToken() throws Exception {
+        ReflectionTestUtils.setField(controller, "adminReloadEnabled", true);
+        ReflectionTestUtils.setField(controller, "adminToken", "secret");
+        mvc.perform(post("/api/admin/reload"))
+                .andExpect(status().isForbidden());
+        mvc.perform(post("/api/admin/reload").header("X-Admin-Token", "wrong"))
+                .andExpect(status().isForbidden());
+        mvc.perform(post("/api/admin/reload").header("X-Admin-Token", "secret"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void batchStreamsOneNdjsonLinePerQuery() throws Exception {
+        String body = "[" + query("S1", "G", false) + "," + query("S1", "P", false) + ","
+                + query("S2", "G", true) + "," + query("Nowhere", "G", false) + "]";
+        MvcResult started = mvc.perform(post("/api/route/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult done = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        // 한 줄에 결과 하나, 순서는 끝난 순서라서 index로 맞춤
+        String[] lines = done.getResponse().getContentAsString().split("\n");
+        assertEquals(4, lines.length);
+        JsonNode[] byIndex = new JsonNode[4];
+        ObjectMapper om = new ObjectMapper();
+        for (String line : lines) {
+            JsonNode result = om.readTree(line);
+            byIndex[result.get("index").asInt()] = result;
+        }
+        Router.Options avoid = new Router.Options();
+        avoid.avoidStair = true;
+        assertBatchLine(byIndex[0], "S1", "G", routeService.route("S1", "G", new Router.Options()));
+        assertBatchLine(byIndex[1], "S1", "P", routeService.route("S1", "P", new Router.Options()));
+        assertBatchLine(byIndex[2], "S2", "G", routeService.route("S2", "G", avoid));
+        // 없는 노드는 요청 전체가 아니라 그 줄만 error
+        assertTrue(byIndex[3].get("result").isNull());
+        assertFalse(byIndex[3].get("error").asText().isEmpty());
+    }
+
+    @Test
+    void batchRejectsTooManyQueries() throws Exception {
+        ReflectionTestUtils.setField(controller, "batchMaxQueries", 2);
+        mvc.perform(post("/api/route/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[" + query("S1", "G", false) + "," + query("S2", "G", false) + ","
+                        + query("P", "G", false) + "]"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/route/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[" + query("S1", "G", false) + "," + query("S2", "G", false) + "]"))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void matrixMarksUnreachableCellsNull() throws Exception {
+        double gx = routeService.route("G", "X", new Router.Options()).cost;
+        mvc.perform(get("/api/buildings/matrix"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.origins", contains("Hall", "Tower")))
+                .andExpect(jsonPath("$.destinations", contains("Hall", "Tower")))
+                .andExpect(jsonPath("$.distances[0][0]").value(0.0))
+                .andExpect(jsonPath("$.distances[0][1]").value(gx))
+                .andExpect(jsonPath("$.distances[1][0]").value(gx))
+                .andExpect(jsonPath("$.durations[0][1]").value(gx / 1.3));
+        // 계단을 피하면 Hall <-> Tower는 갈 수 없음: 행렬 전체를 실패시키지 않고 그 칸만 null
+        mvc.perform(get("/api/buildings/matrix").param("avoidStair", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.distances[0][0]").value(0.0))
+                .andExpect(jsonPath("$.distances[1][1]").value(0.0))
+                .andExpect(jsonPath("$.distances[0][1]").value(nullValue()))
+                .andExpect(jsonPath("$.distances[1][0]").value(nullValue()))
+                .andExpect(jsonPath("$.durations[0][1]").value(nullValue()));
+    }
+
+    @Test
+    void matrixOriginsAreCapped() throws Exception {
+        RouteService capped = new RouteService(graphService, 100, 1, 1);
+        try {
+            ReflectionTestUtils.setField(controller, "routeService", capped);
+            // origins를 생략하면 전체 빌딩(2개)이 출발지라서 상한(1)을 넘음
+            mvc.perform(get("/api/buildings/matrix"))
+                    .andExpect(status().isBadRequest());
+            mvc.perform(get("/api/buildings/matrix").param("origins", "Hall,Tower"))
+                    .andExpect(status().isBadRequest());
+            mvc.perform(get("/api/buildings/matrix").param("origins", "Tower"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.origins", contains("Tower")))
+                    .andExpect(jsonPath("$.destinations", contains("Hall", "Tower")));
+            mvc.perform(get("/api/buildings/matrix").param("origins", "Nowhere"))
+                    .andExpect(status().isBadRequest());
+        } finally {
+            capped.shutdown();
+        }
+    }
+
+    @Test
+    void nodesEtagIsPerContentCoding() throws Exception {
+        // 원본과 gzip은 바이트가 다른 표현이므로 ETag도 다르고, 둘 다 Vary: Accept-Encoding
+        MvcResult plain = mvc.perform(get("/api/nodes"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+        MvcResult gzip = mvc.perform(get("/api/nodes").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+        String plainTag = plain.getResponse().getHeader(HttpHeaders.ETAG);
+        String gzipTag = gzip.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(plainTag);
+        assertNotEquals(plainTag, gzipTag);
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(gzip.getResponse().getContentAsByteArray()))) {
+            assertArrayEquals(plain.getResponse().getContentAsByteArray(), in.readAllBytes());
+        }
+
+        // 보낼 표현의 ETag와 맞을 때만 304 (약한 비교 W/ 허용)
+        mvc.perform(get("/api/nodes").header(HttpHeaders.IF_NONE_MATCH, plainTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, plainTag))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING));
+        mvc.perform(get("/api/nodes").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/" + gzipTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, gzipTag));
+        mvc.perform(get("/api/nodes").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, plainTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, gzipTag));
+        // gzip;q=0 이면 원본으로 보냄
+        mvc.perform(get("/api/nodes").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0")
+                .header(HttpHeaders.IF_NONE_MATCH, plainTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void payloadsAreBuiltWithTheSnapshot() throws Exception {
+        // 교체 전에 만들어 둔 바이트를 그대로 보냄 (요청 처리 중 직렬화 없음)
+        GraphSnapshot snap = graphService.snapshot();
+        assertNotNull(snap.nodesPayload);
+        assertNotNull(snap.edgesPayload);
+        MvcResult edges = mvc.perform(get("/api/edges")).andExpect(status().isOk()).andReturn();
+        assertArrayEquals(snap.edgesPayload.json, edges.getResponse().getContentAsByteArray());
+        assertEquals(snap.edgesPayload.etag, edges.getResponse().getHeader(HttpHeaders.ETAG));
+
+        // 다시 로드한 스냅샷도 만들 때 이미 갖고 있고, 데이터가 같으면 ETag도 같음 (브라우저 캐시 유지)
+        GraphSnapshot next = graphService.reload();
+        assertNotSame(snap.nodesPayload, next.nodesPayload);
+        assertEquals(snap.nodesPayload.etag, next.nodesPayload.etag);
+        assertEquals(snap.nodesPayload.gzipEtag, next.nodesPayload.gzipEtag);
+    }
+
+    private static void assertBatchLine(JsonNode line, String start, String end, Router.RouteResult expected) {
+        assertEquals(start, line.get("start").asText());
+        assertEquals(end, line.get("end").asText());
+        assertTrue(line.get("error").isNull());
+        assertEquals(expected.cost, line.get("result").get("cost").asDouble(), 1e-9);
+        List<String> path = new ArrayList<>();
+        line.get("result").get("path").forEach(id -> path.add(id.asText()));
+        assertEquals(expected.path, path);
+    }
+
+    private static String query(String start, String end, boolean avoidStair) {
+        return "{\"start\":\"" + start + "\",\"end\":\"" + end + "\",\"avoidStair\":" + avoidStair + "}";
+    }
+
+    private static String node(String id, double lat, double lng) {
+        return "{\"id\":\"" + id + "\",\"name\":\"" + id + "\",\"location\":{\"lat\":" + lat + ",\"lng\":" + lng
+                + "},\"stair\":false,\"crub\":false}";
+    }
+
+    private static String edge(String from, String to, boolean stair) {
+        return "{\"from\":\"" + from + "\",\"to\":\"" + to + "\",\"stair\":" + stair
+                + ",\"crub\":false,\"geometry\":[]}";
+    }
+}